@@ -0,0 +1,50 @@
+// Writes a .gz and a .br copy next to each compressible file in build/,
+// so that the backend can send them as-is (see StaticResourceConfig)
+// instead of compressing the same bytes on every request.
+//
+// Runs automatically after `npm run build` (the "postbuild" script).
+
+import { readdir, readFile, stat, writeFile } from "node:fs/promises";
+import path from "node:path";
+import { fileURLToPath } from "node:url";
+import { brotliCompressSync, constants, gzipSync } from "node:zlib";
+
+const buildDir = path.resolve(
+  path.dirname(fileURLToPath(import.meta.url)),
+  "..",
+  "build",
+);
+const compressible = /\.(html|js|mjs|css|json|svg|txt|map|ico)$/;
+// files smaller than this are sent as they are; compressing them saves little
+const minSize = 1024;
+
+async function* files(dir) {
+  for (const entry of await readdir(dir, { withFileTypes: true })) {
+    const file = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* files(file);
+    } else {
+      yield file;
+    }
+  }
+}
+
+let count = 0;
+for await (const file of files(buildDir)) {
+  if (!compressible.test(file) || (await stat(file)).size < minSize) {
+    continue;
+  }
+  const contents = await readFile(file);
+  await writeFile(`${file}.gz`, gzipSync(contents, { level: 9 }));
+  await writeFile(
+    `${file}.br`,
+    brotliCompressSync(contents, {
+      params: {
+        [constants.BROTLI_PARAM_QUALITY]: constants.BROTLI_MAX_QUALITY,
+        [constants.BROTLI_PARAM_SIZE_HINT]: contents.length,
+      },
+    }),
+  );
+  count++;
+}
+console.log(`compress.js: wrote .gz and .br files for ${count} files in build/`);
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The `JobExecutorConfig` class defines the executor that runs jobs (see JobService).
+ *
+ * <p>The executor has a fixed number of worker threads and a bounded queue; once both are full,
+ * further jobs are rejected rather than piling up. In "virtual" mode each worker is a virtual
+ * thread, which is cheap enough that the pool can be much larger for jobs that mostly sleep or wait
+ * on I/O.
+ */
+@Configuration
+@Slf4j
+public class JobExecutorConfig {
+
+  /** Name of the executor bean, for use with {@code @Async} */
+  public static final String JOB_EXECUTOR = "jobExecutor";
+
+  @Value("${app.jobs.executor.mode:platform}")
+  private String mode;
+
+  @Value("${app.jobs.executor.poolSize:4}")
+  private int poolSize;
+
+  @Value("${app.jobs.executor.virtualPoolSize:256}")
+  private int virtualPoolSize;
+
+  @Value("${app.jobs.executor.queueCapacity:100}")
+  private int queueCapacity;
+
+  /**
+   * The executor that runs jobs.
+   *
+   * @return a bounded thread pool executor
+   */
+  @Bean(name = JOB_EXECUTOR)
+  public ThreadPoolTaskExecutor jobExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    boolean virtual = "virtual".equalsIgnoreCase(mode);
+    int threads = virtual ? virtualPoolSize : poolSize;
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("job-");
+    if (virtual) {
+      // idle virtual workers go away, so each job effectively gets a fresh virtual thread
+      executor.setThreadFactory(Thread.ofVirtual().name("job-virtual-", 0).factory());
+      executor.setAllowCoreThreadTimeOut(true);
+      executor.setKeepAliveSeconds(1);
+    }
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    log.info(
+        "Job executor: mode={}, threads={}, queueCapacity={}",
+        virtual ? "virtual" : "platform",
+        threads,
+        queueCapacity);
+    return executor;
+  }
+}
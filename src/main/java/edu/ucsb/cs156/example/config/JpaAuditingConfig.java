@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * The `JpaAuditingConfig` class turns on JPA auditing, so that fields annotated with
+ * {@code @CreatedDate} and {@code @LastModifiedDate} (e.g. on Job) are filled in when an entity is
+ * saved.
+ *
+ * <p>This is kept out of ExampleApplication so that {@code @WebMvcTest} slices, which have no JPA
+ * metamodel, do not try to set it up.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * Supplies the current time as a ZonedDateTime, which is the type of the audited fields.
+   *
+   * @return the date time provider
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
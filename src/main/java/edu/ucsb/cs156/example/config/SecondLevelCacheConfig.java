@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `SecondLevelCacheConfig` class turns on Hibernate's second-level cache and query cache,
+ * backed by in-process Caffeine caches (through JCache).
+ *
+ * <p>Only entities marked {@code @Cacheable} are cached (UCSBDiningCommons, UCSBOrganization,
+ * UCSBDate and Restaurant), each in a region named after its table, together with the results of
+ * queries that have the cacheable hint. These regions hold at most app.cache.reference.maxSize
+ * entries, for at most app.cache.reference.ttlSeconds. The timestamps region, which Hibernate uses
+ * to tell which cached query results are stale, must not lose entries, so it is unbounded.
+ *
+ * <p>Like JpaAuditingConfig, this is kept out of ExampleApplication, so that slices that set up JPA
+ * without it (e.g. JobsControllerTests) run without a second-level cache.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+  /** The regions of the cached entities (see the @Cache annotations) and of the query cache. */
+  public static final List<String> REFERENCE_REGIONS =
+      List.of(
+          "ucsbdiningcommons",
+          "ucsborganizations",
+          "ucsbdates",
+          "restaurants",
+          RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+  /**
+   * Creates the caches. Each application context gets its own cache manager (tests start several in
+   * one JVM, each with its own database), which is closed with the context.
+   *
+   * @param maxSize the most entries kept in each region
+   * @param ttlSeconds how long an entry is kept after it is written
+   * @return the cache manager
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager secondLevelCacheManager(
+      @Value("${app.cache.reference.maxSize:10000}") long maxSize,
+      @Value("${app.cache.reference.ttlSeconds:600}") long ttlSeconds) {
+    CacheManager cacheManager =
+        Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(
+                URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+    for (String region : REFERENCE_REGIONS) {
+      cacheManager.createCache(
+          region,
+          new CaffeineConfiguration<>()
+              .setMaximumSize(OptionalLong.of(maxSize))
+              .setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds))));
+    }
+    cacheManager.createCache(
+        RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+        new CaffeineConfiguration<>());
+    return cacheManager;
+  }
+
+  /**
+   * Points Hibernate at the caches, and has it count cache hits and misses (see
+   * SecondLevelCacheService).
+   *
+   * @param secondLevelCacheManager the cache manager
+   * @return the customizer of Hibernate's settings
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheProperties(
+      CacheManager secondLevelCacheManager) {
+    return properties -> {
+      properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+      properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+      properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+      properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+      properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+      properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+      properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+    };
+  }
+}
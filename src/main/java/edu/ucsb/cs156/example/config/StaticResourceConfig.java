@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+/**
+ * The `StaticResourceConfig` class sets up how the built frontend (copied to classpath:/public/ by
+ * the pom) is served.
+ *
+ * <p>Files under /assets/ have a content hash in their name (Vite fingerprints them), so a given
+ * URL never changes its contents; they are sent with a far-future, immutable Cache-Control, and
+ * browsers do not ask for them again. Everything else, in particular index.html (which is what
+ * FrontendController forwards to, and which names the current assets), is sent with "no-cache", so
+ * browsers revalidate it (via Last-Modified) on every page load and pick up a new build at once.
+ *
+ * <p>When the client accepts it, the .br or .gz copy that the frontend build writes next to each
+ * file (see frontend/scripts/compress.js) is sent instead of the file itself.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+  @Value("${app.static.assetsMaxAgeDays:365}")
+  private long assetsMaxAgeDays;
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    registry
+        .addResourceHandler("/assets/**")
+        .addResourceLocations("classpath:/public/assets/")
+        .setCacheControl(
+            CacheControl.maxAge(Duration.ofDays(assetsMaxAgeDays)).cachePublic().immutable())
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+    registry
+        .addResourceHandler("/**")
+        .addResourceLocations("classpath:/public/")
+        .setCacheControl(CacheControl.noCache())
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+  }
+}
@@ -1,20 +1,60 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.KeysetCursor;
+import edu.ucsb.cs156.example.services.BulkWriteService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.JsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.temporal.Temporal;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Globals;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 /** This is an abstract class that provides common functionality for all API controllers. */
 @Slf4j
 public abstract class ApiController {
+  /** The most items a paged endpoint returns per page */
+  public static final int MAX_PAGE_SIZE = 100;
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private JsonExportService jsonExportService;
+
+  @Autowired private TableVersionService tableVersionService;
+
+  @Autowired private BulkWriteService bulkWriteService;
+
   /**
    * This method returns the current user.
    *
@@ -24,6 +64,218 @@ public abstract class ApiController {
     return currentUserService.getCurrentUser();
   }
 
+  /**
+   * This method builds the page request for a paged endpoint. Rows are sorted by sortField and then
+   * by idField (in the same direction), so that pages do not overlap when sortField has ties.
+   *
+   * @param page page number, starting from 0
+   * @param pageSize items per page (capped at MAX_PAGE_SIZE)
+   * @param sortField the field to sort by; must be one of sortFields
+   * @param sortDirection ASC or DESC
+   * @param sortFields the fields the endpoint can be sorted by
+   * @param idField the field that identifies a row
+   * @return the page request
+   * @throws ResponseStatusException (400 Bad Request) if a parameter is not valid
+   */
+  protected PageRequest pageRequest(
+      int page,
+      int pageSize,
+      String sortField,
+      String sortDirection,
+      Set<String> sortFields,
+      String idField) {
+    if (!sortFields.contains(sortField)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "sortField must be one of " + sortFields);
+    }
+    Sort.Direction direction =
+        Sort.Direction.fromOptionalString(sortDirection)
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "sortDirection must be ASC or DESC"));
+    if (page < 0 || pageSize < 1) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "page must be at least 0 and pageSize at least 1");
+    }
+    Sort sort = Sort.by(direction, sortField);
+    if (!sortField.equals(idField)) {
+      sort = sort.and(Sort.by(direction, idField));
+    }
+    return PageRequest.of(page, Math.min(pageSize, MAX_PAGE_SIZE), sort);
+  }
+
+  /**
+   * This method builds the limit for a cursor listing. It asks for one row more than the page size,
+   * so that cursorPage can tell whether there is a next page.
+   *
+   * @param pageSize items per page (capped at MAX_PAGE_SIZE)
+   * @return the limit
+   * @throws ResponseStatusException (400 Bad Request) if pageSize is less than 1
+   */
+  protected PageRequest cursorLimit(int pageSize) {
+    if (pageSize < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "pageSize must be at least 1");
+    }
+    return PageRequest.ofSize(Math.min(pageSize, MAX_PAGE_SIZE) + 1);
+  }
+
+  /**
+   * This method decodes the cursor passed to a cursor listing.
+   *
+   * @param cursor the token from nextCursor of the previous page
+   * @param parseTimestamp parses the timestamp, e.g. LocalDateTime::parse
+   * @param <T> the type of the timestamp
+   * @return the cursor
+   * @throws ResponseStatusException (400 Bad Request) if the token is not a cursor
+   */
+  protected <T extends Temporal> KeysetCursor<T> decodeCursor(
+      String cursor, Function<String, T> parseTimestamp) {
+    try {
+      return KeysetCursor.decode(cursor, parseTimestamp);
+    } catch (IllegalArgumentException | DateTimeException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor is not valid");
+    }
+  }
+
+  /**
+   * This method makes a page of a cursor listing from the rows fetched with cursorLimit.
+   *
+   * @param rows the rows, in listing order
+   * @param limit the limit the rows were fetched with
+   * @param timestampOf the timestamp the listing is ordered by
+   * @param idOf the id of a row
+   * @param <E> the type of the rows
+   * @param <T> the type of the timestamp
+   * @return the page, with a next cursor if there are more rows
+   */
+  protected <E, T extends Temporal> CursorPage<E> cursorPage(
+      List<E> rows, PageRequest limit, Function<E, T> timestampOf, ToLongFunction<E> idOf) {
+    int pageSize = limit.getPageSize() - 1;
+    if (rows.size() <= pageSize) {
+      return new CursorPage<>(rows, null);
+    }
+    List<E> content = rows.subList(0, pageSize);
+    E last = content.get(pageSize - 1);
+    return new CursorPage<>(
+        content, new KeysetCursor<>(timestampOf.apply(last), idOf.applyAsLong(last)).encode());
+  }
+
+  /**
+   * This method writes rows to the response as a JSON array while they are read from the database
+   * (see JsonExportService), instead of collecting them into a list first.
+   *
+   * @param rows opens the stream of rows, e.g. repository::streamAllBy
+   * @param response the response
+   * @param <T> the type of the rows
+   * @throws IOException if the response cannot be written
+   */
+  protected <T> void writeJsonArray(Supplier<Stream<T>> rows, HttpServletResponse response)
+      throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    jsonExportService.writeJsonArray(rows, response.getOutputStream());
+  }
+
+  /**
+   * This method sends a file as an attachment. Under Tomcat, the file is handed to the connector,
+   * which sends it with sendfile, straight from the operating system's page cache to the socket,
+   * without copying it through the JVM. Elsewhere (e.g. in MockMvc tests) it is copied with
+   * FileChannel.transferTo.
+   *
+   * @param file the file
+   * @param contentType the content type of the file
+   * @param request the request
+   * @param response the response
+   * @throws IOException if the file cannot be read or the response cannot be written
+   */
+  protected void sendFile(
+      Path file, String contentType, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    long size = Files.size(file);
+    response.setContentType(contentType);
+    response.setContentLengthLong(size);
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString());
+    if (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+      request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+      request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+      request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, size);
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file)) {
+      WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+      for (long sent = 0; sent < size; ) {
+        sent += channel.transferTo(sent, size - sent, out);
+      }
+    }
+  }
+
+  /**
+   * This method sets the ETag of a list or detail response from the version of the entity's table
+   * (see TableVersionService), and checks it against the request's If-None-Match header. The
+   * response may be stored by the browser, but must be revalidated before each use.
+   *
+   * @param entityClass the entity class the endpoint returns
+   * @param request the request
+   * @return true if the client's copy is current; the response is then 304 Not Modified, and the
+   *     endpoint should return null without reading the table
+   */
+  protected boolean notModified(Class<?> entityClass, ServletWebRequest request) {
+    String etag = tableVersionService.etag(entityClass);
+    if (etag == null) {
+      return false;
+    }
+    request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+    return request.checkNotModified(etag);
+  }
+
+  /**
+   * This method creates many entities in one transaction (see BulkWriteService).
+   *
+   * @param entityClass the entity class
+   * @param items the new entities
+   * @param <T> the type of the entities
+   * @return the result of each item; 400 Bad Request, with nothing created, if any item is invalid
+   */
+  protected <T> ResponseEntity<List<BulkItemResult<T>>> bulkCreate(
+      Class<T> entityClass, List<T> items) {
+    return bulkResponse(bulkWriteService.create(entityClass, items));
+  }
+
+  /**
+   * This method updates many entities in one transaction (see BulkWriteService).
+   *
+   * @param entityClass the entity class
+   * @param items the new contents of the entities, with their ids
+   * @param <T> the type of the entities
+   * @return the result of each item; 400 Bad Request, with nothing updated, if any item is invalid
+   */
+  protected <T> ResponseEntity<List<BulkItemResult<T>>> bulkUpdate(
+      Class<T> entityClass, List<T> items) {
+    return bulkResponse(bulkWriteService.update(entityClass, items));
+  }
+
+  /**
+   * This method deletes many entities in one transaction (see BulkWriteService).
+   *
+   * @param entityClass the entity class
+   * @param ids the ids of the entities
+   * @param <T> the type of the entities
+   * @return the result of each id; 400 Bad Request, with nothing deleted, if any id is invalid
+   */
+  protected <T> ResponseEntity<List<BulkItemResult<T>>> bulkDelete(
+      Class<T> entityClass, List<?> ids) {
+    return bulkResponse(bulkWriteService.delete(entityClass, ids));
+  }
+
+  private static <T> ResponseEntity<List<BulkItemResult<T>>> bulkResponse(
+      List<BulkItemResult<T>> results) {
+    return ResponseEntity.status(
+            BulkItemResult.allWritten(results) ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+        .body(results);
+  }
+
   /**
    * This method returns a generic message.
    *
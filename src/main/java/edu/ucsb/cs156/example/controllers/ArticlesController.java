@@ -1,18 +1,32 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.atLeast;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.containsIgnoringCase;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.lessThan;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for Articles */
 @Tag(name = "Articles")
@@ -32,18 +47,97 @@ public class ArticlesController extends ApiController {
 
   @Autowired ArticlesRepository articlesRepository;
 
+  static final Set<String> SORT_FIELDS = Set.of("id", "title", "url", "email", "dateAdded");
+
   /**
    * List all Articles
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return an iterable of Articles
    */
   @Operation(summary = "List all articles")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Articles> allArticles() {
+  public Iterable<Articles> allArticles(ServletWebRequest request) {
+    if (notModified(Articles.class, request)) {
+      return null;
+    }
     return articlesRepository.findAll();
   }
 
+  /**
+   * Export all articles as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all articles as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportArticles(HttpServletResponse response) throws IOException {
+    writeJsonArray(articlesRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of articles, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize articles per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param email only articles added by this email
+   * @param title only articles whose title contains this text (ignoring case)
+   * @param dateAddedAfter only articles added at or after this time (in iso format)
+   * @param dateAddedBefore only articles added before this time (in iso format)
+   * @return the page, with the total number of articles and pages
+   */
+  @Operation(summary = "List articles, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<Articles> pageOfArticles(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "articles per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(name = "sortField", description = "one of id, title, url, email, dateAdded")
+          @RequestParam(defaultValue = "id")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          String sortDirection,
+      @Parameter(name = "email", description = "only articles added by this email")
+          @RequestParam(required = false)
+          String email,
+      @Parameter(
+              name = "title",
+              description = "only articles whose title contains this text (ignoring case)")
+          @RequestParam(required = false)
+          String title,
+      @Parameter(
+              name = "dateAddedAfter",
+              description = "only articles added at or after this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime dateAddedAfter,
+      @Parameter(
+              name = "dateAddedBefore",
+              description = "only articles added before this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime dateAddedBefore) {
+    Specification<Articles> filter =
+        Specification.allOf(
+            equalTo("email", email),
+            containsIgnoringCase("title", title),
+            atLeast("dateAdded", dateAddedAfter),
+            lessThan("dateAdded", dateAddedBefore));
+    return new PagedModel<>(
+        articlesRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
   /**
    * Create a new article
    *
@@ -88,7 +182,11 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Get a single article")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Articles getById(@Parameter(name = "id") @RequestParam Long id) {
+  public Articles getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(Articles.class, request)) {
+      return null;
+    }
     return articlesRepository
         .findById(id)
         .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
@@ -133,4 +231,46 @@ public class ArticlesController extends ApiController {
     articlesRepository.delete(articles);
     return Map.of("message", String.format("Articles with id %d deleted", id));
   }
+
+  /**
+   * Create many articles at once
+   *
+   * @param articles the new articles
+   * @return the result for each of the articles; none are created unless all are valid
+   */
+  @Operation(summary = "Create many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<Articles>>> postArticlesInBulk(
+      @RequestBody List<Articles> articles) {
+    return bulkCreate(Articles.class, articles);
+  }
+
+  /**
+   * Update many articles at once, replacing all their fields
+   *
+   * @param articles the new contents of the articles, with their ids
+   * @return the result for each of the articles; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many articles at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<Articles>>> updateArticlesInBulk(
+      @RequestBody List<Articles> articles) {
+    return bulkUpdate(Articles.class, articles);
+  }
+
+  /**
+   * Delete many articles at once
+   *
+   * @param ids the ids of the articles
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<Articles>>> deleteArticlesInBulk(
+      @RequestBody List<Long> ids) {
+    return bulkDelete(Articles.class, ids);
+  }
 }
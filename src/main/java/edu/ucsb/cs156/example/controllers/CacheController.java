@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.CacheRegionStats;
+import edu.ucsb.cs156.example.services.SecondLevelCacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for looking at (and clearing) Hibernate's second-level cache.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see edu.ucsb.cs156.example.services.SecondLevelCacheService
+ */
+@Tag(name = "Cache (admin only)")
+@RequestMapping("/api/admin/cache")
+@RestController
+public class CacheController extends ApiController {
+
+  @Autowired SecondLevelCacheService secondLevelCacheService;
+
+  /**
+   * This method returns the hit/miss counts of each region of the second-level cache.
+   *
+   * @return the counts, one entry per region
+   */
+  @Operation(summary = "Get hit/miss counts of the second-level cache")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public List<CacheRegionStats> getCacheStats() {
+    return secondLevelCacheService.getStatistics();
+  }
+
+  /**
+   * This method empties the second-level cache of this instance of the app.
+   *
+   * @return a message indicating the cache was cleared
+   */
+  @Operation(summary = "Clear the second-level cache")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Object clearCache() {
+    secondLevelCacheService.evictAll();
+    return genericMessage("Second-level cache cleared");
+  }
+}
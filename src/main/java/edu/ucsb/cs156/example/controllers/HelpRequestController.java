@@ -1,17 +1,33 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.atLeast;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.lessThan;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.KeysetCursor;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +37,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @Tag(name = "HelpRequest")
 @RequestMapping("/api/helprequest")
@@ -30,29 +47,151 @@ public class HelpRequestController extends ApiController {
 
   @Autowired HelpRequestRepository helpRequestRepository;
 
+  static final Set<String> SORT_FIELDS =
+      Set.of("id", "requesterEmail", "teamId", "tableOrBreakoutRoom", "requestTime", "solved");
+
   /**
    * List all UCSB dates
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return an iterable of UCSBDate
    */
   @Operation(summary = "List all help requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<HelpRequest> allHelpRequests() {
+  public Iterable<HelpRequest> allHelpRequests(ServletWebRequest request) {
+    if (notModified(HelpRequest.class, request)) {
+      return null;
+    }
     Iterable<HelpRequest> helprequest = helpRequestRepository.findAll();
     return helprequest;
   }
 
+  /**
+   * Export all help requests as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all help requests as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportHelpRequests(HttpServletResponse response) throws IOException {
+    writeJsonArray(helpRequestRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of help requests, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize help requests per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param requesterEmail only requests made by this email
+   * @param teamId only requests of this team
+   * @param solved only solved (true) or unsolved (false) requests
+   * @param requestTimeAfter only requests made at or after this time (in iso format)
+   * @param requestTimeBefore only requests made before this time (in iso format)
+   * @return the page, with the total number of help requests and pages
+   */
+  @Operation(summary = "List help requests, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<HelpRequest> pageOfHelpRequests(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "help requests per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(
+              name = "sortField",
+              description =
+                  "one of id, requesterEmail, teamId, tableOrBreakoutRoom, requestTime, solved")
+          @RequestParam(defaultValue = "requestTime")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "DESC")
+          String sortDirection,
+      @Parameter(name = "requesterEmail", description = "only requests made by this email")
+          @RequestParam(required = false)
+          String requesterEmail,
+      @Parameter(name = "teamId", description = "only requests of this team")
+          @RequestParam(required = false)
+          String teamId,
+      @Parameter(name = "solved", description = "only solved (true) or unsolved (false) requests")
+          @RequestParam(required = false)
+          Boolean solved,
+      @Parameter(
+              name = "requestTimeAfter",
+              description = "only requests made at or after this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime requestTimeAfter,
+      @Parameter(
+              name = "requestTimeBefore",
+              description = "only requests made before this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime requestTimeBefore) {
+    Specification<HelpRequest> filter =
+        Specification.allOf(
+            equalTo("requesterEmail", requesterEmail),
+            equalTo("teamId", teamId),
+            equalTo("solved", solved),
+            atLeast("requestTime", requestTimeAfter),
+            lessThan("requestTime", requestTimeBefore));
+    return new PagedModel<>(
+        helpRequestRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
+  /**
+   * List help requests, newest first, one page at a time. Each page ends with a cursor for the next
+   * one, so later pages cost the same as the first however far the listing goes.
+   *
+   * @param cursor nextCursor from the previous page (omit for the first page)
+   * @param pageSize help requests per page
+   * @return the page, with the cursor for the next page (null on the last page)
+   */
+  @Operation(summary = "List help requests, newest first, one page at a time from a cursor")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/cursor")
+  public CursorPage<HelpRequest> helpRequestsFromCursor(
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor from the previous page (omit for the first page)")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "pageSize", description = "help requests per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize) {
+    PageRequest limit = cursorLimit(pageSize);
+    List<HelpRequest> rows;
+    if (cursor == null) {
+      rows = helpRequestRepository.findNewest(limit);
+    } else {
+      KeysetCursor<LocalDateTime> after = decodeCursor(cursor, LocalDateTime::parse);
+      rows = helpRequestRepository.findOlderThan(after.timestamp(), after.id(), limit);
+    }
+    return cursorPage(rows, limit, HelpRequest::getRequestTime, HelpRequest::getId);
+  }
+
   /**
    * Get a single request by id
    *
    * @param id the id of the request
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a HelpRequest
    */
   @Operation(summary = "Get a single help request")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public HelpRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public HelpRequest getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(HelpRequest.class, request)) {
+      return null;
+    }
     HelpRequest helpRequest =
         helpRequestRepository
             .findById(id)
@@ -155,4 +294,46 @@ public class HelpRequestController extends ApiController {
 
     return helpRequest;
   }
+
+  /**
+   * Create many help requests at once
+   *
+   * @param helpRequests the new help requests
+   * @return the result for each of the help requests; none are created unless all are valid
+   */
+  @Operation(summary = "Create many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<HelpRequest>>> postHelpRequestsInBulk(
+      @RequestBody List<HelpRequest> helpRequests) {
+    return bulkCreate(HelpRequest.class, helpRequests);
+  }
+
+  /**
+   * Update many help requests at once, replacing all their fields
+   *
+   * @param helpRequests the new contents of the help requests, with their ids
+   * @return the result for each of the help requests; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many help requests at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<HelpRequest>>> updateHelpRequestsInBulk(
+      @RequestBody List<HelpRequest> helpRequests) {
+    return bulkUpdate(HelpRequest.class, helpRequests);
+  }
+
+  /**
+   * Delete many help requests at once
+   *
+   * @param ids the ids of the help requests
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<HelpRequest>>> deleteHelpRequestsInBulk(
+      @RequestBody List<Long> ids) {
+    return bulkDelete(HelpRequest.class, ids);
+  }
 }
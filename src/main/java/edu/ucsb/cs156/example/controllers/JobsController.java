@@ -5,22 +5,49 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobTypeStats;
+import edu.ucsb.cs156.example.models.KeysetCursor;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.jobs.JobStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
@@ -29,10 +56,23 @@ import org.springframework.web.bind.annotation.RestController;
 public class JobsController extends ApiController {
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogStreamService jobLogStreamService;
+
+  @Autowired private JobStatsService jobStatsService;
+
+  @Autowired private ImportService importService;
+
+  @Autowired private ExportService exportService;
+
   @Autowired ObjectMapper mapper;
 
+  static final Set<String> SORT_FIELDS =
+      Set.of("id", "status", "jobType", "createdAt", "updatedAt", "runDurationMs");
+
   @Operation(summary = "List all jobs")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
@@ -41,10 +81,77 @@ public class JobsController extends ApiController {
     return jobs;
   }
 
+  @Operation(summary = "List one page of job summaries (without logs), optionally filtered")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "", params = "!id")
+  public PagedModel<JobSummary> pageOfJobs(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "jobs per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(
+              name = "sortField",
+              description = "one of id, status, jobType, createdAt, updatedAt, runDurationMs")
+          @RequestParam(defaultValue = "createdAt")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "DESC")
+          String sortDirection,
+      @Parameter(name = "status", description = "only jobs with this status")
+          @RequestParam(required = false)
+          String status,
+      @Parameter(name = "createdById", description = "only jobs created by this user")
+          @RequestParam(required = false)
+          Long createdById,
+      @Parameter(
+              name = "createdAfter",
+              description = "only jobs created at or after this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdAfter,
+      @Parameter(
+              name = "createdBefore",
+              description = "only jobs created before this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdBefore) {
+    PageRequest pageRequest =
+        pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id");
+    return new PagedModel<>(
+        jobsRepository.findSummaries(
+            status, createdById, createdAfter, createdBefore, pageRequest));
+  }
+
+  @Operation(summary = "List job summaries, newest first, one page at a time from a cursor")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/cursor")
+  public CursorPage<JobSummary> jobsFromCursor(
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor from the previous page (omit for the first page)")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "pageSize", description = "job summaries per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize) {
+    PageRequest limit = cursorLimit(pageSize);
+    List<JobSummary> rows;
+    if (cursor == null) {
+      rows = jobsRepository.findNewestSummaries(limit);
+    } else {
+      KeysetCursor<ZonedDateTime> after = decodeCursor(cursor, ZonedDateTime::parse);
+      rows = jobsRepository.findSummariesCreatedBefore(after.timestamp(), after.id(), limit);
+    }
+    return cursorPage(rows, limit, JobSummary::getCreatedAt, JobSummary::getId);
+  }
+
   @Operation(summary = "Delete all job records")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("/all")
   public Map<String, String> deleteAllJobs() {
+    jobLogLinesRepository.deleteAllLines();
     jobsRepository.deleteAll();
     return Map.of("message", "All jobs deleted");
   }
@@ -69,6 +176,7 @@ public class JobsController extends ApiController {
     if (!jobsRepository.existsById(id)) {
       return Map.of("message", String.format("Job with id %d not found", id));
     }
+    jobLogLinesRepository.deleteByJobId(id);
     jobsRepository.deleteById(id);
     return Map.of("message", String.format("Job with id %d deleted", id));
   }
@@ -78,10 +186,83 @@ public class JobsController extends ApiController {
   @PostMapping("/launch/testjob")
   public Job launchTestJob(
       @Parameter(name = "fail") @RequestParam Boolean fail,
-      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs) {
+      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs,
+      @Parameter(name = "priority", description = "LOW, NORMAL or HIGH")
+          @RequestParam(defaultValue = "NORMAL")
+          JobPriority priority,
+      @Parameter(name = "timeoutSeconds", description = "0 for the default timeout")
+          @RequestParam(defaultValue = "0")
+          Long timeoutSeconds) {
 
     TestJob testJob = TestJob.builder().fail(fail).sleepMs(sleepMs).build();
-    return jobService.runAsJob(testJob);
+    return jobService.runAsJob(testJob, priority, timeoutSeconds);
+  }
+
+  @Operation(
+      summary =
+          "Launch a job that imports rows from a CSV file (with a header row) or an NDJSON file")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/launch/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job launchImportJob(
+      @Parameter(name = "type", description = "ucsbdiningcommonsmenuitem or menuitemreview")
+          @RequestParam
+          String type,
+      @Parameter(name = "format", description = "csv or ndjson; by default, from the file name")
+          @RequestParam(required = false)
+          String format,
+      @Parameter(name = "file") @RequestParam MultipartFile file,
+      @Parameter(name = "priority", description = "LOW, NORMAL or HIGH")
+          @RequestParam(defaultValue = "NORMAL")
+          JobPriority priority,
+      @Parameter(name = "timeoutSeconds", description = "0 for the default timeout")
+          @RequestParam(defaultValue = "0")
+          Long timeoutSeconds)
+      throws IOException {
+
+    return importService.launch(type, format, file, priority, timeoutSeconds);
+  }
+
+  @Operation(summary = "Launch a job that exports every row of a table to a compressed CSV file")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/launch/export")
+  public Job launchExportJob(
+      @Parameter(name = "table", description = "e.g. helprequest, menuitemreview") @RequestParam
+          String table,
+      @Parameter(name = "priority", description = "LOW, NORMAL or HIGH")
+          @RequestParam(defaultValue = "LOW")
+          JobPriority priority,
+      @Parameter(name = "timeoutSeconds", description = "0 for the default timeout")
+          @RequestParam(defaultValue = "0")
+          Long timeoutSeconds) {
+    return exportService.launch(table, priority, timeoutSeconds);
+  }
+
+  @Operation(
+      summary = "Download the file written by an export job",
+      description = "Exports are kept on the disk of the instance that ran the job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/export/{id}")
+  public void downloadExport(
+      @PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Path file =
+        exportService
+            .fileOf(id)
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Job %d has no export file".formatted(id)));
+    sendFile(file, "application/gzip", request, response);
+  }
+
+  @Operation(summary = "Cancel a queued or running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/cancel")
+  public Map<String, String> cancelJob(@Parameter(name = "id") @RequestParam Long id) {
+    if (!jobService.cancelJob(id)) {
+      return Map.of("message", String.format("Job with id %d is not queued or running", id));
+    }
+    return Map.of("message", String.format("Job with id %d cancelled", id));
   }
 
   @Operation(summary = "Get long job logs")
@@ -91,4 +272,43 @@ public class JobsController extends ApiController {
 
     return jobService.getJobLogs(id);
   }
+
+  @Operation(
+      summary =
+          "Stream new job log lines as Server-Sent Events, resuming after the given sequence number")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/logs/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "after", description = "sequence number of the last line already seen")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(name = "Last-Event-ID", description = "set by EventSource when it reconnects")
+          @RequestHeader(value = "Last-Event-ID", required = false)
+          Long lastEventId) {
+    Job job =
+        jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+    long lastSeenSeq = lastEventId != null ? lastEventId : (after != null ? after : -1);
+    return jobLogStreamService.stream(job, lastSeenSeq);
+  }
+
+  @Operation(summary = "Get pool size, active count and queue depth of the job executor")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/executor")
+  public JobExecutorStats getExecutorStats() {
+    return jobService.getExecutorStats();
+  }
+
+  @Operation(
+      summary =
+          "Get run time percentiles, queue wait percentiles and failure rate per job type, for the"
+              + " jobs that ended in the last given number of hours")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/stats")
+  public List<JobTypeStats> getJobStats(
+      @Parameter(name = "hours", description = "how many hours back to look")
+          @RequestParam(defaultValue = "168")
+          long hours) {
+    return jobStatsService.getStats(ZonedDateTime.now().minusHours(hours));
+  }
 }
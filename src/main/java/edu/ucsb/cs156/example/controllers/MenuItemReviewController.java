@@ -1,17 +1,33 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.atLeast;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.lessThan;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.KeysetCursor;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +37,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for MenuItemReview */
 @Tag(name = "MenuItemReview")
@@ -31,29 +48,150 @@ public class MenuItemReviewController extends ApiController {
 
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  static final Set<String> SORT_FIELDS =
+      Set.of("id", "itemId", "reviewerEmail", "stars", "dateReviewed");
+
   /**
    * List all Menu Item Reviews
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return an iterable of MenuItemReview
    */
   @Operation(summary = "List all menu item review")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<MenuItemReview> allMenuItemReview() {
+  public Iterable<MenuItemReview> allMenuItemReview(ServletWebRequest request) {
+    if (notModified(MenuItemReview.class, request)) {
+      return null;
+    }
     Iterable<MenuItemReview> review = menuItemReviewRepository.findAll();
     return review;
   }
 
+  /**
+   * Export all menu item reviews as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all menu item reviews as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportMenuItemReviews(HttpServletResponse response) throws IOException {
+    writeJsonArray(menuItemReviewRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of menu item reviews, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize menu item reviews per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param itemId only reviews of this menu item
+   * @param reviewerEmail only reviews by this email
+   * @param minStars only reviews with at least this many stars
+   * @param dateReviewedAfter only reviews made at or after this time (in iso format)
+   * @param dateReviewedBefore only reviews made before this time (in iso format)
+   * @return the page, with the total number of menu item reviews and pages
+   */
+  @Operation(summary = "List menu item reviews, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<MenuItemReview> pageOfMenuItemReviews(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "menu item reviews per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(
+              name = "sortField",
+              description = "one of id, itemId, reviewerEmail, stars, dateReviewed")
+          @RequestParam(defaultValue = "dateReviewed")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "DESC")
+          String sortDirection,
+      @Parameter(name = "itemId", description = "only reviews of this menu item")
+          @RequestParam(required = false)
+          Long itemId,
+      @Parameter(name = "reviewerEmail", description = "only reviews by this email")
+          @RequestParam(required = false)
+          String reviewerEmail,
+      @Parameter(name = "minStars", description = "only reviews with at least this many stars")
+          @RequestParam(required = false)
+          Integer minStars,
+      @Parameter(
+              name = "dateReviewedAfter",
+              description = "only reviews made at or after this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime dateReviewedAfter,
+      @Parameter(
+              name = "dateReviewedBefore",
+              description = "only reviews made before this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime dateReviewedBefore) {
+    Specification<MenuItemReview> filter =
+        Specification.allOf(
+            equalTo("itemId", itemId),
+            equalTo("reviewerEmail", reviewerEmail),
+            atLeast("stars", minStars),
+            atLeast("dateReviewed", dateReviewedAfter),
+            lessThan("dateReviewed", dateReviewedBefore));
+    return new PagedModel<>(
+        menuItemReviewRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
+  /**
+   * List menu item reviews, newest first, one page at a time. Each page ends with a cursor for the
+   * next one, so later pages cost the same as the first however far the listing goes.
+   *
+   * @param cursor nextCursor from the previous page (omit for the first page)
+   * @param pageSize menu item reviews per page
+   * @return the page, with the cursor for the next page (null on the last page)
+   */
+  @Operation(summary = "List menu item reviews, newest first, one page at a time from a cursor")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/cursor")
+  public CursorPage<MenuItemReview> menuItemReviewsFromCursor(
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor from the previous page (omit for the first page)")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "pageSize", description = "menu item reviews per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize) {
+    PageRequest limit = cursorLimit(pageSize);
+    List<MenuItemReview> rows;
+    if (cursor == null) {
+      rows = menuItemReviewRepository.findNewest(limit);
+    } else {
+      KeysetCursor<LocalDateTime> after = decodeCursor(cursor, LocalDateTime::parse);
+      rows = menuItemReviewRepository.findOlderThan(after.timestamp(), after.id(), limit);
+    }
+    return cursorPage(rows, limit, MenuItemReview::getDateReviewed, MenuItemReview::getId);
+  }
+
   /**
    * Get a single menu item review by id
    *
    * @param id the id of the date
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a UCSBDate
    */
   @Operation(summary = "Get a single menu item review")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public MenuItemReview getById(@Parameter(name = "id") @RequestParam Long id) {
+  public MenuItemReview getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(MenuItemReview.class, request)) {
+      return null;
+    }
     MenuItemReview menuItem =
         menuItemReviewRepository
             .findById(id)
@@ -150,4 +288,46 @@ public class MenuItemReviewController extends ApiController {
 
     return menuItemReview;
   }
+
+  /**
+   * Create many menu item reviews at once
+   *
+   * @param menuItemReviews the new menu item reviews
+   * @return the result for each of the menu item reviews; none are created unless all are valid
+   */
+  @Operation(summary = "Create many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<MenuItemReview>>> postMenuItemReviewsInBulk(
+      @RequestBody List<MenuItemReview> menuItemReviews) {
+    return bulkCreate(MenuItemReview.class, menuItemReviews);
+  }
+
+  /**
+   * Update many menu item reviews at once, replacing all their fields
+   *
+   * @param menuItemReviews the new contents of the menu item reviews, with their ids
+   * @return the result for each of the menu item reviews; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many menu item reviews at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<MenuItemReview>>> updateMenuItemReviewsInBulk(
+      @RequestBody List<MenuItemReview> menuItemReviews) {
+    return bulkUpdate(MenuItemReview.class, menuItemReviews);
+  }
+
+  /**
+   * Delete many menu item reviews at once
+   *
+   * @param ids the ids of the menu item reviews
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<MenuItemReview>>> deleteMenuItemReviewsInBulk(
+      @RequestBody List<Long> ids) {
+    return bulkDelete(MenuItemReview.class, ids);
+  }
 }
@@ -1,17 +1,28 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,8 +32,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-/** REST controller for RecommendationRequest */
+/**
+ * REST controller for RecommendationRequest * @param request the request, whose If-None-Match
+ * header is checked against the ETag
+ */
 @Tag(name = "RecommendationRequest")
 @RequestMapping("/api/recommendationrequests")
 @RestController
@@ -31,13 +46,83 @@ public class RecommendationRequestController extends ApiController {
 
   @Autowired RecommendationRequestRepository recommendationrequestRepository;
 
+  static final Set<String> SORT_FIELDS =
+      Set.of("id", "requesterEmail", "professorEmail", "dateRequested", "dateNeeded", "done");
+
   @Operation(summary = "List all recommendation requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<RecommendationRequest> allRecommendationRequests() {
+  public Iterable<RecommendationRequest> allRecommendationRequests(ServletWebRequest request) {
+    if (notModified(RecommendationRequest.class, request)) {
+      return null;
+    }
     return recommendationrequestRepository.findAll();
   }
 
+  /**
+   * Export all recommendation requests as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(
+      summary = "Export all recommendation requests as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportRecommendationRequests(HttpServletResponse response) throws IOException {
+    writeJsonArray(recommendationrequestRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of recommendation requests, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize recommendation requests per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param requesterEmail only requests made by this email
+   * @param professorEmail only requests to this professor
+   * @param done only done (true) or open (false) requests
+   * @return the page, with the total number of recommendation requests and pages
+   */
+  @Operation(summary = "List recommendation requests, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<RecommendationRequest> pageOfRecommendationRequests(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "recommendation requests per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(
+              name = "sortField",
+              description =
+                  "one of id, requesterEmail, professorEmail, dateRequested, dateNeeded, done")
+          @RequestParam(defaultValue = "dateRequested")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "DESC")
+          String sortDirection,
+      @Parameter(name = "requesterEmail", description = "only requests made by this email")
+          @RequestParam(required = false)
+          String requesterEmail,
+      @Parameter(name = "professorEmail", description = "only requests to this professor")
+          @RequestParam(required = false)
+          String professorEmail,
+      @Parameter(name = "done", description = "only done (true) or open (false) requests")
+          @RequestParam(required = false)
+          Boolean done) {
+    Specification<RecommendationRequest> filter =
+        Specification.allOf(
+            equalTo("requesterEmail", requesterEmail),
+            equalTo("professorEmail", professorEmail),
+            equalTo("done", done));
+    return new PagedModel<>(
+        recommendationrequestRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
   /**
    * Create a new request
    *
@@ -94,7 +179,11 @@ public class RecommendationRequestController extends ApiController {
   @Operation(summary = "Get a request by id")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public RecommendationRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public RecommendationRequest getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(RecommendationRequest.class, request)) {
+      return null;
+    }
     return recommendationrequestRepository
         .findById(id)
         .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
@@ -136,4 +225,50 @@ public class RecommendationRequestController extends ApiController {
     recommendationrequestRepository.delete(request);
     return genericMessage("request with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many recommendation requests at once
+   *
+   * @param recommendationRequests the new recommendation requests
+   * @return the result for each of the recommendation requests; none are created unless all are
+   *     valid
+   */
+  @Operation(summary = "Create many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<RecommendationRequest>>>
+      postRecommendationRequestsInBulk(
+          @RequestBody List<RecommendationRequest> recommendationRequests) {
+    return bulkCreate(RecommendationRequest.class, recommendationRequests);
+  }
+
+  /**
+   * Update many recommendation requests at once, replacing all their fields
+   *
+   * @param recommendationRequests the new contents of the recommendation requests, with their ids
+   * @return the result for each of the recommendation requests; none are updated unless all are
+   *     valid
+   */
+  @Operation(summary = "Update many recommendation requests at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<RecommendationRequest>>>
+      updateRecommendationRequestsInBulk(
+          @RequestBody List<RecommendationRequest> recommendationRequests) {
+    return bulkUpdate(RecommendationRequest.class, recommendationRequests);
+  }
+
+  /**
+   * Delete many recommendation requests at once
+   *
+   * @param ids the ids of the recommendation requests
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<RecommendationRequest>>>
+      deleteRecommendationRequestsInBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(RecommendationRequest.class, ids);
+  }
 }
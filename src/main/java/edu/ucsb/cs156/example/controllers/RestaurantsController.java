@@ -1,13 +1,25 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.containsIgnoringCase;
+
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.SecondLevelCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for Restaurants */
 @Tag(name = "Restaurants")
@@ -26,29 +39,92 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired SecondLevelCacheService secondLevelCacheService;
+
+  static final Set<String> SORT_FIELDS = Set.of("id", "name");
+
   /**
    * This method returns a list of all restaurants.
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a list of all restaurants
    */
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
+  public Iterable<Restaurant> allRestaurants(ServletWebRequest request) {
+    if (notModified(Restaurant.class, request)) {
+      return null;
+    }
     Iterable<Restaurant> restaurants = restaurantRepository.findAll();
     return restaurants;
   }
 
+  /**
+   * Export all restaurants as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all restaurants as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportRestaurants(HttpServletResponse response) throws IOException {
+    writeJsonArray(restaurantRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of restaurants, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize restaurants per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param name only restaurants whose name contains this text (ignoring case)
+   * @return the page, with the total number of restaurants and pages
+   */
+  @Operation(summary = "List restaurants, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<Restaurant> pageOfRestaurants(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "restaurants per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(name = "sortField", description = "one of id, name")
+          @RequestParam(defaultValue = "name")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          String sortDirection,
+      @Parameter(
+              name = "name",
+              description = "only restaurants whose name contains this text (ignoring case)")
+          @RequestParam(required = false)
+          String name) {
+    Specification<Restaurant> filter = Specification.allOf(containsIgnoringCase("name", name));
+    return new PagedModel<>(
+        restaurantRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
   /**
    * This method returns a single restaurant.
    *
    * @param id id of the restaurant to get
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a single restaurant
    */
   @Operation(summary = "Get a single restaurant")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
+  public Restaurant getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(Restaurant.class, request)) {
+      return null;
+    }
     Restaurant restaurant =
         restaurantRepository
             .findById(id)
@@ -76,6 +152,7 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(description);
 
     Restaurant savedrestaurant = restaurantRepository.save(restaurant);
+    secondLevelCacheService.evict(Restaurant.class);
     return savedrestaurant;
   }
 
@@ -95,6 +172,7 @@ public class RestaurantsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
     restaurantRepository.delete(restaurant);
+    secondLevelCacheService.evict(Restaurant.class);
     return genericMessage("Restaurant with id %s deleted".formatted(id));
   }
 
@@ -120,7 +198,58 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(incoming.getDescription());
 
     restaurantRepository.save(restaurant);
+    secondLevelCacheService.evict(Restaurant.class);
 
     return restaurant;
   }
+
+  /**
+   * Create many restaurants at once
+   *
+   * @param restaurants the new restaurants
+   * @return the result for each of the restaurants; none are created unless all are valid
+   */
+  @Operation(summary = "Create many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<Restaurant>>> postRestaurantsInBulk(
+      @RequestBody List<Restaurant> restaurants) {
+    ResponseEntity<List<BulkItemResult<Restaurant>>> response =
+        bulkCreate(Restaurant.class, restaurants);
+    secondLevelCacheService.evict(Restaurant.class);
+    return response;
+  }
+
+  /**
+   * Update many restaurants at once, replacing all their fields
+   *
+   * @param restaurants the new contents of the restaurants, with their ids
+   * @return the result for each of the restaurants; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many restaurants at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<Restaurant>>> updateRestaurantsInBulk(
+      @RequestBody List<Restaurant> restaurants) {
+    ResponseEntity<List<BulkItemResult<Restaurant>>> response =
+        bulkUpdate(Restaurant.class, restaurants);
+    secondLevelCacheService.evict(Restaurant.class);
+    return response;
+  }
+
+  /**
+   * Delete many restaurants at once
+   *
+   * @param ids the ids of the restaurants
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<Restaurant>>> deleteRestaurantsInBulk(
+      @RequestBody List<Long> ids) {
+    ResponseEntity<List<BulkItemResult<Restaurant>>> response = bulkDelete(Restaurant.class, ids);
+    secondLevelCacheService.evict(Restaurant.class);
+    return response;
+  }
 }
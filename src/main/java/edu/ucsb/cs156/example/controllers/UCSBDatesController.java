@@ -1,17 +1,30 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.containsIgnoringCase;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.SecondLevelCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +34,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -31,29 +45,98 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired SecondLevelCacheService secondLevelCacheService;
+
+  static final Set<String> SORT_FIELDS = Set.of("id", "quarterYYYYQ", "name", "localDateTime");
+
   /**
    * List all UCSB dates
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return an iterable of UCSBDate
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
+  public Iterable<UCSBDate> allUCSBDates(ServletWebRequest request) {
+    if (notModified(UCSBDate.class, request)) {
+      return null;
+    }
     Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
     return dates;
   }
 
+  /**
+   * Export all dates as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all dates as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportUCSBDates(HttpServletResponse response) throws IOException {
+    writeJsonArray(ucsbDateRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of dates, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize dates per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param quarterYYYYQ only dates in this quarter (YYYYQ)
+   * @param name only dates whose name contains this text (ignoring case)
+   * @return the page, with the total number of dates and pages
+   */
+  @Operation(summary = "List dates, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<UCSBDate> pageOfUCSBDates(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "dates per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(name = "sortField", description = "one of id, quarterYYYYQ, name, localDateTime")
+          @RequestParam(defaultValue = "localDateTime")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          String sortDirection,
+      @Parameter(name = "quarterYYYYQ", description = "only dates in this quarter (YYYYQ)")
+          @RequestParam(required = false)
+          String quarterYYYYQ,
+      @Parameter(
+              name = "name",
+              description = "only dates whose name contains this text (ignoring case)")
+          @RequestParam(required = false)
+          String name) {
+    Specification<UCSBDate> filter =
+        Specification.allOf(
+            equalTo("quarterYYYYQ", quarterYYYYQ), containsIgnoringCase("name", name));
+    return new PagedModel<>(
+        ucsbDateRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
   /**
    * Get a single date by id
    *
    * @param id the id of the date
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a UCSBDate
    */
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public UCSBDate getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(UCSBDate.class, request)) {
+      return null;
+    }
     UCSBDate ucsbDate =
         ucsbDateRepository
             .findById(id)
@@ -96,6 +179,7 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(localDateTime);
 
     UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+    secondLevelCacheService.evict(UCSBDate.class);
 
     return savedUcsbDate;
   }
@@ -116,6 +200,7 @@ public class UCSBDatesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     ucsbDateRepository.delete(ucsbDate);
+    secondLevelCacheService.evict(UCSBDate.class);
     return genericMessage("UCSBDate with id %s deleted".formatted(id));
   }
 
@@ -142,7 +227,56 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
     ucsbDateRepository.save(ucsbDate);
+    secondLevelCacheService.evict(UCSBDate.class);
 
     return ucsbDate;
   }
+
+  /**
+   * Create many dates at once
+   *
+   * @param uCSBDates the new dates
+   * @return the result for each of the dates; none are created unless all are valid
+   */
+  @Operation(summary = "Create many dates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDate>>> postUCSBDatesInBulk(
+      @RequestBody List<UCSBDate> uCSBDates) {
+    ResponseEntity<List<BulkItemResult<UCSBDate>>> response = bulkCreate(UCSBDate.class, uCSBDates);
+    secondLevelCacheService.evict(UCSBDate.class);
+    return response;
+  }
+
+  /**
+   * Update many dates at once, replacing all their fields
+   *
+   * @param uCSBDates the new contents of the dates, with their ids
+   * @return the result for each of the dates; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many dates at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDate>>> updateUCSBDatesInBulk(
+      @RequestBody List<UCSBDate> uCSBDates) {
+    ResponseEntity<List<BulkItemResult<UCSBDate>>> response = bulkUpdate(UCSBDate.class, uCSBDates);
+    secondLevelCacheService.evict(UCSBDate.class);
+    return response;
+  }
+
+  /**
+   * Delete many dates at once
+   *
+   * @param ids the ids of the dates
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many dates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDate>>> deleteUCSBDatesInBulk(
+      @RequestBody List<Long> ids) {
+    ResponseEntity<List<BulkItemResult<UCSBDate>>> response = bulkDelete(UCSBDate.class, ids);
+    secondLevelCacheService.evict(UCSBDate.class);
+    return response;
+  }
 }
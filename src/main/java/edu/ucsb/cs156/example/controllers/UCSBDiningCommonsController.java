@@ -1,14 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.containsIgnoringCase;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.SecondLevelCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for UCSBDiningCommons */
 @Tag(name = "UCSBDiningCommons")
@@ -28,29 +42,115 @@ public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired SecondLevelCacheService secondLevelCacheService;
+
+  static final Set<String> SORT_FIELDS = Set.of("code", "name");
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a list of all ucsbdiningcommons
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
+  public Iterable<UCSBDiningCommons> allCommonss(ServletWebRequest request) {
+    if (notModified(UCSBDiningCommons.class, request)) {
+      return null;
+    }
     Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
     return commons;
   }
 
+  /**
+   * Export all dining commons as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all dining commons as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportCommons(HttpServletResponse response) throws IOException {
+    writeJsonArray(ucsbDiningCommonsRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of dining commons, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize dining commons per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param name only dining commons whose name contains this text (ignoring case)
+   * @param hasSackMeal only dining commons with (true) or without (false) sack meals
+   * @param hasTakeOutMeal only dining commons with (true) or without (false) take out meals
+   * @param hasDiningCam only dining commons with (true) or without (false) a dining cam
+   * @return the page, with the total number of dining commons and pages
+   */
+  @Operation(summary = "List dining commons, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<UCSBDiningCommons> pageOfCommons(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "dining commons per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(name = "sortField", description = "one of code, name")
+          @RequestParam(defaultValue = "code")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          String sortDirection,
+      @Parameter(
+              name = "name",
+              description = "only dining commons whose name contains this text (ignoring case)")
+          @RequestParam(required = false)
+          String name,
+      @Parameter(
+              name = "hasSackMeal",
+              description = "only dining commons with (true) or without (false) sack meals")
+          @RequestParam(required = false)
+          Boolean hasSackMeal,
+      @Parameter(
+              name = "hasTakeOutMeal",
+              description = "only dining commons with (true) or without (false) take out meals")
+          @RequestParam(required = false)
+          Boolean hasTakeOutMeal,
+      @Parameter(
+              name = "hasDiningCam",
+              description = "only dining commons with (true) or without (false) a dining cam")
+          @RequestParam(required = false)
+          Boolean hasDiningCam) {
+    Specification<UCSBDiningCommons> filter =
+        Specification.allOf(
+            containsIgnoringCase("name", name),
+            equalTo("hasSackMeal", hasSackMeal),
+            equalTo("hasTakeOutMeal", hasTakeOutMeal),
+            equalTo("hasDiningCam", hasDiningCam));
+    return new PagedModel<>(
+        ucsbDiningCommonsRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "code")));
+  }
+
   /**
    * This method returns a single diningcommons.
    *
    * @param code code of the diningcommons
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a single diningcommons
    */
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public UCSBDiningCommons getById(
+      @Parameter(name = "code") @RequestParam String code, ServletWebRequest request) {
+    if (notModified(UCSBDiningCommons.class, request)) {
+      return null;
+    }
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
             .findById(code)
@@ -93,6 +193,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(longitude);
 
     UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+    secondLevelCacheService.evict(UCSBDiningCommons.class);
 
     return savedCommons;
   }
@@ -113,6 +214,7 @@ public class UCSBDiningCommonsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
+    secondLevelCacheService.evict(UCSBDiningCommons.class);
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -143,7 +245,59 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(incoming.getLongitude());
 
     ucsbDiningCommonsRepository.save(commons);
+    secondLevelCacheService.evict(UCSBDiningCommons.class);
 
     return commons;
   }
+
+  /**
+   * Create many dining commons at once
+   *
+   * @param commons the new dining commons
+   * @return the result for each of the dining commons; none are created unless all are valid
+   */
+  @Operation(summary = "Create many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDiningCommons>>> postCommonsInBulk(
+      @RequestBody List<UCSBDiningCommons> commons) {
+    ResponseEntity<List<BulkItemResult<UCSBDiningCommons>>> response =
+        bulkCreate(UCSBDiningCommons.class, commons);
+    secondLevelCacheService.evict(UCSBDiningCommons.class);
+    return response;
+  }
+
+  /**
+   * Update many dining commons at once, replacing all their fields
+   *
+   * @param commons the new contents of the dining commons, with their ids
+   * @return the result for each of the dining commons; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many dining commons at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDiningCommons>>> updateCommonsInBulk(
+      @RequestBody List<UCSBDiningCommons> commons) {
+    ResponseEntity<List<BulkItemResult<UCSBDiningCommons>>> response =
+        bulkUpdate(UCSBDiningCommons.class, commons);
+    secondLevelCacheService.evict(UCSBDiningCommons.class);
+    return response;
+  }
+
+  /**
+   * Delete many dining commons at once
+   *
+   * @param ids the ids of the dining commons
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDiningCommons>>> deleteCommonsInBulk(
+      @RequestBody List<String> ids) {
+    ResponseEntity<List<BulkItemResult<UCSBDiningCommons>>> response =
+        bulkDelete(UCSBDiningCommons.class, ids);
+    secondLevelCacheService.evict(UCSBDiningCommons.class);
+    return response;
+  }
 }
@@ -1,15 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.containsIgnoringCase;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for UCSBDiningCommonsMenuItems */
 @Tag(name = "UCSBDiningCommonsMenuItem")
@@ -29,29 +42,103 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+  static final Set<String> SORT_FIELDS = Set.of("id", "diningCommonsCode", "name", "station");
+
   /**
    * List all UCSB Dining Commons Menu Items
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return an iterable of UCSBDiningCommonsMenuItem
    */
   @Operation(summary = "List all ucsb dining commons menu items")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItem() {
+  public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItem(
+      ServletWebRequest request) {
+    if (notModified(UCSBDiningCommonsMenuItem.class, request)) {
+      return null;
+    }
     Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
     return items;
   }
 
+  /**
+   * Export all menu items as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all menu items as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportUCSBDiningCommonsMenuItems(HttpServletResponse response) throws IOException {
+    writeJsonArray(ucsbDiningCommonsMenuItemRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of menu items, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize menu items per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param diningCommonsCode only menu items of this dining commons
+   * @param station only menu items of this station
+   * @param name only menu items whose name contains this text (ignoring case)
+   * @return the page, with the total number of menu items and pages
+   */
+  @Operation(summary = "List menu items, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<UCSBDiningCommonsMenuItem> pageOfUCSBDiningCommonsMenuItems(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "menu items per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(name = "sortField", description = "one of id, diningCommonsCode, name, station")
+          @RequestParam(defaultValue = "id")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          String sortDirection,
+      @Parameter(name = "diningCommonsCode", description = "only menu items of this dining commons")
+          @RequestParam(required = false)
+          String diningCommonsCode,
+      @Parameter(name = "station", description = "only menu items of this station")
+          @RequestParam(required = false)
+          String station,
+      @Parameter(
+              name = "name",
+              description = "only menu items whose name contains this text (ignoring case)")
+          @RequestParam(required = false)
+          String name) {
+    Specification<UCSBDiningCommonsMenuItem> filter =
+        Specification.allOf(
+            equalTo("diningCommonsCode", diningCommonsCode),
+            equalTo("station", station),
+            containsIgnoringCase("name", name));
+    return new PagedModel<>(
+        ucsbDiningCommonsMenuItemRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "id")));
+  }
+
   /**
    * Get a single menu item by id
    *
    * @param id the id of the menu item
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a UCSBDiningCommonsMenuItem
    */
   @Operation(summary = "Get a single menu item")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommonsMenuItem getById(@Parameter(name = "id") @RequestParam Long id) {
+  public UCSBDiningCommonsMenuItem getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (notModified(UCSBDiningCommonsMenuItem.class, request)) {
+      return null;
+    }
     UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem =
         ucsbDiningCommonsMenuItemRepository
             .findById(id)
@@ -137,4 +224,48 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
     return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many menu items at once
+   *
+   * @param uCSBDiningCommonsMenuItems the new menu items
+   * @return the result for each of the menu items; none are created unless all are valid
+   */
+  @Operation(summary = "Create many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDiningCommonsMenuItem>>>
+      postUCSBDiningCommonsMenuItemsInBulk(
+          @RequestBody List<UCSBDiningCommonsMenuItem> uCSBDiningCommonsMenuItems) {
+    return bulkCreate(UCSBDiningCommonsMenuItem.class, uCSBDiningCommonsMenuItems);
+  }
+
+  /**
+   * Update many menu items at once, replacing all their fields
+   *
+   * @param uCSBDiningCommonsMenuItems the new contents of the menu items, with their ids
+   * @return the result for each of the menu items; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many menu items at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDiningCommonsMenuItem>>>
+      updateUCSBDiningCommonsMenuItemsInBulk(
+          @RequestBody List<UCSBDiningCommonsMenuItem> uCSBDiningCommonsMenuItems) {
+    return bulkUpdate(UCSBDiningCommonsMenuItem.class, uCSBDiningCommonsMenuItems);
+  }
+
+  /**
+   * Delete many menu items at once
+   *
+   * @param ids the ids of the menu items
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBDiningCommonsMenuItem>>>
+      deleteUCSBDiningCommonsMenuItemsInBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(UCSBDiningCommonsMenuItem.class, ids);
+  }
 }
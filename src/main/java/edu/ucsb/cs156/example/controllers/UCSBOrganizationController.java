@@ -1,14 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.containsIgnoringCase;
+import static edu.ucsb.cs156.example.repositories.EntitySpecifications.equalTo;
+
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.SecondLevelCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for UCSBOrganization */
 @Tag(name = "UCSBOrganization")
@@ -27,19 +41,91 @@ import org.springframework.web.bind.annotation.RestController;
 public class UCSBOrganizationController extends ApiController {
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired SecondLevelCacheService secondLevelCacheService;
+
+  static final Set<String> SORT_FIELDS =
+      Set.of("orgCode", "orgTranslationShort", "orgTranslation", "inactive");
+
   /**
    * THis method returns a list of all ucsborganizations.
    *
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a list of all ucsborganizations
    */
   @Operation(summary = "List all ucsb organizations")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBOrganization> allOrganization() {
+  public Iterable<UCSBOrganization> allOrganization(ServletWebRequest request) {
+    if (notModified(UCSBOrganization.class, request)) {
+      return null;
+    }
     Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
     return organizations;
   }
 
+  /**
+   * Export all organizations as a JSON array, written as they are read from the database
+   *
+   * @param response the response to write the array to
+   * @throws IOException if the response cannot be written
+   */
+  @Operation(summary = "Export all organizations as a JSON array, streamed as they are read")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void exportOrganizations(HttpServletResponse response) throws IOException {
+    writeJsonArray(ucsbOrganizationRepository::streamAllBy, response);
+  }
+
+  /**
+   * List one page of organizations, sorted and filtered
+   *
+   * @param page page number, starting from 0
+   * @param pageSize organizations per page
+   * @param sortField the field to sort by
+   * @param sortDirection ASC or DESC
+   * @param orgTranslationShort only organizations whose short name contains this text (ignoring
+   *     case)
+   * @param inactive only inactive (true) or active (false) organizations
+   * @return the page, with the total number of organizations and pages
+   */
+  @Operation(summary = "List organizations, one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/paged")
+  public PagedModel<UCSBOrganization> pageOfOrganizations(
+      @Parameter(name = "page", description = "page number, starting from 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "pageSize", description = "organizations per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int pageSize,
+      @Parameter(
+              name = "sortField",
+              description = "one of orgCode, orgTranslationShort, orgTranslation, inactive")
+          @RequestParam(defaultValue = "orgCode")
+          String sortField,
+      @Parameter(name = "sortDirection", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          String sortDirection,
+      @Parameter(
+              name = "orgTranslationShort",
+              description =
+                  "only organizations whose short name contains this text (ignoring case)")
+          @RequestParam(required = false)
+          String orgTranslationShort,
+      @Parameter(
+              name = "inactive",
+              description = "only inactive (true) or active (false) organizations")
+          @RequestParam(required = false)
+          Boolean inactive) {
+    Specification<UCSBOrganization> filter =
+        Specification.allOf(
+            containsIgnoringCase("orgTranslationShort", orgTranslationShort),
+            equalTo("inactive", inactive));
+    return new PagedModel<>(
+        ucsbOrganizationRepository.findAll(
+            filter, pageRequest(page, pageSize, sortField, sortDirection, SORT_FIELDS, "orgCode")));
+  }
+
   /**
    * This method creates a new organization. Accessible only to users with the role "ROLE_ADMIN".
    *
@@ -65,6 +151,7 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(inactive);
 
     UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organization);
+    secondLevelCacheService.evict(UCSBOrganization.class);
 
     return savedOrganization;
   }
@@ -73,12 +160,17 @@ public class UCSBOrganizationController extends ApiController {
    * This method returns a single organization.
    *
    * @param orgCode code of the organization
+   * @param request the request, whose If-None-Match header is checked against the ETag
    * @return a single organization
    */
   @Operation(summary = "Get a single organization")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBOrganization getById(@Parameter(name = "orgCode") @RequestParam String orgCode) {
+  public UCSBOrganization getById(
+      @Parameter(name = "orgCode") @RequestParam String orgCode, ServletWebRequest request) {
+    if (notModified(UCSBOrganization.class, request)) {
+      return null;
+    }
     UCSBOrganization organization =
         ucsbOrganizationRepository
             .findById(orgCode)
@@ -111,6 +203,7 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(incoming.getInactive());
 
     ucsbOrganizationRepository.save(organization);
+    secondLevelCacheService.evict(UCSBOrganization.class);
 
     return organization;
   }
@@ -131,6 +224,58 @@ public class UCSBOrganizationController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
     ucsbOrganizationRepository.delete(organization);
+    secondLevelCacheService.evict(UCSBOrganization.class);
     return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
   }
+
+  /**
+   * Create many organizations at once
+   *
+   * @param organizations the new organizations
+   * @return the result for each of the organizations; none are created unless all are valid
+   */
+  @Operation(summary = "Create many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBOrganization>>> postOrganizationsInBulk(
+      @RequestBody List<UCSBOrganization> organizations) {
+    ResponseEntity<List<BulkItemResult<UCSBOrganization>>> response =
+        bulkCreate(UCSBOrganization.class, organizations);
+    secondLevelCacheService.evict(UCSBOrganization.class);
+    return response;
+  }
+
+  /**
+   * Update many organizations at once, replacing all their fields
+   *
+   * @param organizations the new contents of the organizations, with their ids
+   * @return the result for each of the organizations; none are updated unless all are valid
+   */
+  @Operation(summary = "Update many organizations at once, replacing all their fields")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBOrganization>>> updateOrganizationsInBulk(
+      @RequestBody List<UCSBOrganization> organizations) {
+    ResponseEntity<List<BulkItemResult<UCSBOrganization>>> response =
+        bulkUpdate(UCSBOrganization.class, organizations);
+    secondLevelCacheService.evict(UCSBOrganization.class);
+    return response;
+  }
+
+  /**
+   * Delete many organizations at once
+   *
+   * @param ids the ids of the organizations
+   * @return the result for each id; none are deleted unless all exist
+   */
+  @Operation(summary = "Delete many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<List<BulkItemResult<UCSBOrganization>>> deleteOrganizationsInBulk(
+      @RequestBody List<String> ids) {
+    ResponseEntity<List<BulkItemResult<UCSBOrganization>>> response =
+        bulkDelete(UCSBOrganization.class, ids);
+    secondLevelCacheService.evict(UCSBOrganization.class);
+    return response;
+  }
 }
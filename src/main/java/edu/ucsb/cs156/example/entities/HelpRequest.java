@@ -1,9 +1,12 @@
 package edu.ucsb.cs156.example.entities;
 
+import edu.ucsb.cs156.example.services.TableVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,9 +18,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "helprequests")
+@EntityListeners(TableVersionListener.class)
 public class HelpRequest {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "HELPREQUESTS_SEQ")
+  @SequenceGenerator(
+      name = "HELPREQUESTS_SEQ",
+      sequenceName = "HELPREQUESTS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String requesterEmail; // email of the student making the request
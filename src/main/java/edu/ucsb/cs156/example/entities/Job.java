@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
 import jakarta.persistence.*;
 import java.time.ZonedDateTime;
 import lombok.*;
@@ -16,7 +17,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public class Job {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "JOBS_SEQ")
+  @SequenceGenerator(name = "JOBS_SEQ", sequenceName = "JOBS_SEQ", allocationSize = 50)
   private long id;
 
   @JsonIgnore
@@ -29,6 +31,33 @@ public class Job {
 
   private String status;
 
+  private String jobType; // e.g. the simple name of the JobContextConsumer class
+
+  private ZonedDateTime startedAt;
+  private ZonedDateTime endedAt;
+  private Long queueWaitMs; // from createdAt to startedAt
+  private Long runDurationMs; // from startedAt to endedAt
+
+  private Double progress; // fraction of the work done, from 0 to 1, as reported by the job
+
+  @Column(length = 1024)
+  private String resultSummary;
+
+  // what the job runs, so that any worker can run it (see JobRegistry): jobType names the class,
+  // and params holds its fields as JSON (null for jobs that can only run where they were created)
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String params;
+
+  @Enumerated(EnumType.ORDINAL) // LOW < NORMAL < HIGH, so that workers can ORDER BY priority
+  private JobPriority priority;
+
+  private Long timeoutMs;
+
+  private int attempts; // how many times a worker has started the job
+
+  private String claimedBy; // id of the worker that holds the job (see JobQueueService)
+  private ZonedDateTime heartbeatAt; // last time that worker said it was still alive
+
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
   @Column(
       columnDefinition = "TEXT",
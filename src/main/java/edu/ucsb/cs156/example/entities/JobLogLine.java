@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a single line of output from a Job.
+ *
+ * <p>Lines are only ever appended, so that logging from a long-running job costs one small insert
+ * per line rather than a rewrite of the whole log.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "jobloglines")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "JOBLOGLINES_SEQ")
+  @SequenceGenerator(
+      name = "JOBLOGLINES_SEQ",
+      sequenceName = "JOBLOGLINES_SEQ",
+      allocationSize = 50)
+  private long id;
+
+  private long jobId;
+  private long seq;
+  private ZonedDateTime loggedAt;
+
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String message;
+}
@@ -1,9 +1,12 @@
 package edu.ucsb.cs156.example.entities;
 
+import edu.ucsb.cs156.example.services.TableVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,9 +18,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "recommendationrequest")
+@EntityListeners(TableVersionListener.class)
 public class RecommendationRequest {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RECOMMENDATIONREQUEST_SEQ")
+  @SequenceGenerator(
+      name = "RECOMMENDATIONREQUEST_SEQ",
+      sequenceName = "RECOMMENDATIONREQUEST_SEQ",
+      allocationSize = 50)
   private Long id;
 
   private String requesterEmail;
@@ -3,9 +3,13 @@ package edu.ucsb.cs156.example.jobs;
 import edu.ucsb.cs156.example.services.jobs.JobContext;
 import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+@Getter
+@Jacksonized
 @Builder
 public class TestJob implements JobContextConsumer {
 
@@ -18,10 +22,13 @@ public class TestJob implements JobContextConsumer {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     ctx.log("Hello World! from test job!");
+    ctx.setProgress(0.5);
     Thread.sleep(sleepMs);
+    ctx.checkCancelled();
     if (fail) {
       throw new Exception("Fail!");
     }
     ctx.log("Goodbye from test job!");
+    ctx.setResultSummary("Slept for %d ms".formatted(sleepMs));
   }
 }
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents what happened to one item of a bulk create, update or
+ * delete request (see BulkWriteService).
+ *
+ * <p>The items of a request are written together or not at all: if any item is "invalid", the
+ * others are "skipped".
+ *
+ * @param <T> the type of the entity
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkItemResult<T> {
+  public static final String CREATED = "created";
+  public static final String UPDATED = "updated";
+  public static final String DELETED = "deleted";
+  public static final String INVALID = "invalid";
+  public static final String SKIPPED = "skipped";
+
+  private int index; // position of the item in the request
+  private String status; // one of the constants above
+  private Object id; // id of the entity, if known
+  private T item; // the entity as saved (for created and updated items)
+  private List<String> errors; // why the item is invalid
+
+  /**
+   * This method tells whether every item of a request was written.
+   *
+   * @param results the results of the items
+   * @return false if some item is invalid (and so nothing was written)
+   */
+  public static boolean allWritten(List<? extends BulkItemResult<?>> results) {
+    return results.stream().noneMatch(r -> INVALID.equals(r.getStatus()));
+  }
+}
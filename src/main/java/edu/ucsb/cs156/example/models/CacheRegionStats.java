@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the hit/miss counts of one region of Hibernate's
+ * second-level cache (an entity, or the query cache) since the app started.
+ *
+ * <p>It is used by admins to check that reads of reference data are served from the cache.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CacheRegionStats {
+  private String region;
+  private long hitCount; // lookups answered from the cache
+  private long missCount; // lookups that went to the database
+  private long putCount; // entries added to the cache
+}
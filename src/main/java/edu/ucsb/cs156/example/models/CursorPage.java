@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+/**
+ * This is a model class for one page of a cursor listing.
+ *
+ * @param content the rows of the page
+ * @param nextCursor the token to pass as cursor to get the next page, or null if this is the last
+ *     page
+ * @param <T> the type of the rows
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {}
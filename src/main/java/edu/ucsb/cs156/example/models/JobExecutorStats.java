@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a snapshot of the executor that runs jobs.
+ *
+ * <p>It is used by admins to size the executor and to see when jobs are backing up.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobExecutorStats {
+  private int poolSize; // threads currently in the pool
+  private int maxPoolSize;
+  private int activeCount; // threads currently running a job
+  private int queueDepth; // jobs waiting for a thread
+  private int queueCapacity;
+  private long rejectedCount; // jobs turned away because the pool and queue were full
+  private int runningJobs; // jobs holding a JobScheduler slot
+  private int queuedJobs; // jobs waiting in the JobScheduler for a slot
+}
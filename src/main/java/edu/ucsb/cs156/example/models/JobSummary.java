@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that summarizes a job for the admin jobs listing.
+ *
+ * <p>It has everything about the job except its log, so that a page of summaries stays small no
+ * matter how long the logs are; the log itself is fetched from /api/jobs/logs/{id}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private long id;
+  private String status;
+  private String jobType;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private ZonedDateTime startedAt;
+  private ZonedDateTime endedAt;
+  private Long runDurationMs;
+  private Double progress;
+  private Long createdById;
+  private String createdByEmail;
+  private long logLines; // number of lines in the job's log
+  private long logSize; // total characters in the job's log lines
+}
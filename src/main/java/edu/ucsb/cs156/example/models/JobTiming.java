@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+/**
+ * This is a projection of a job onto the columns needed for job statistics, so that they can be
+ * read without loading logs.
+ */
+public interface JobTiming {
+  String getJobType();
+
+  String getStatus();
+
+  Long getQueueWaitMs();
+
+  Long getRunDurationMs();
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that holds statistics for the jobs of one type that ended in some period.
+ *
+ * <p>It is used by admins to size the job executor and to spot jobs that have become slower or
+ * started failing.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobTypeStats {
+  private String jobType;
+  private long count; // jobs that ran and ended
+  private long completed;
+  private long failed; // status "error" or "timeout"
+  private long cancelled;
+  private double failureRate; // failed / count
+  private Long p50RunDurationMs; // null if no job recorded a duration
+  private Long p95RunDurationMs;
+  private Long maxRunDurationMs;
+  private Long p50QueueWaitMs;
+  private Long p95QueueWaitMs;
+}
@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * This is a model class for the position of a cursor listing: the timestamp and id of the last row
+ * of a page. The next page starts at the first row that sorts after it, which the database finds
+ * with an index on (timestamp, id) however deep the listing goes.
+ *
+ * <p>Clients see the cursor only as an opaque token (see encode and decode).
+ *
+ * @param timestamp the timestamp of the last row
+ * @param id the id of the last row
+ * @param <T> the type of the timestamp
+ */
+public record KeysetCursor<T extends Temporal>(T timestamp, long id) {
+
+  /**
+   * This method encodes the cursor as a URL safe token.
+   *
+   * @return the token
+   */
+  public String encode() {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((timestamp + "," + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * This method decodes a token made by encode.
+   *
+   * @param token the token
+   * @param parseTimestamp parses the timestamp, e.g. LocalDateTime::parse
+   * @param <T> the type of the timestamp
+   * @return the cursor
+   * @throws RuntimeException (an IllegalArgumentException or DateTimeException) if the token is not
+   *     a cursor
+   */
+  public static <T extends Temporal> KeysetCursor<T> decode(
+      String token, Function<String, T> parseTimestamp) {
+    String[] parts =
+        new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(",", 2);
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Not a cursor: " + token);
+    }
+    return new KeysetCursor<>(parseTimestamp.apply(parts[0]), Long.parseLong(parts[1]));
+  }
+}
@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.repositories;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters for the paged endpoints, for use with JpaSpecificationExecutor.
+ *
+ * <p>Each method returns null when its value is null (or blank), meaning "no filter"; combine them
+ * with {@code Specification.allOf(...)}, which skips nulls.
+ */
+public final class EntitySpecifications {
+
+  private EntitySpecifications() {}
+
+  /**
+   * Rows whose field equals the value.
+   *
+   * @param <T> the entity type
+   * @param field the name of the field
+   * @param value the value, or null for no filter
+   * @return the filter
+   */
+  public static <T> Specification<T> equalTo(String field, Object value) {
+    if (value == null) {
+      return null;
+    }
+    return (root, query, cb) -> cb.equal(root.get(field), value);
+  }
+
+  /**
+   * Rows whose field contains the text, ignoring case.
+   *
+   * @param <T> the entity type
+   * @param field the name of the field (a String)
+   * @param text the text, or null or blank for no filter
+   * @return the filter
+   */
+  public static <T> Specification<T> containsIgnoringCase(String field, String text) {
+    if (text == null || text.isBlank()) {
+      return null;
+    }
+    String pattern =
+        "%"
+            + text.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+            + "%";
+    return (root, query, cb) -> cb.like(cb.lower(root.get(field)), pattern, '\\');
+  }
+
+  /**
+   * Rows whose field is at least the value.
+   *
+   * @param <T> the entity type
+   * @param <Y> the type of the field
+   * @param field the name of the field
+   * @param value the lower bound (inclusive), or null for no filter
+   * @return the filter
+   */
+  public static <T, Y extends Comparable<? super Y>> Specification<T> atLeast(
+      String field, Y value) {
+    if (value == null) {
+      return null;
+    }
+    return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(field), value);
+  }
+
+  /**
+   * Rows whose field is less than the value.
+   *
+   * @param <T> the entity type
+   * @param <Y> the type of the field
+   * @param field the name of the field
+   * @param value the upper bound (exclusive), or null for no filter
+   * @return the filter
+   */
+  public static <T, Y extends Comparable<? super Y>> Specification<T> lessThan(
+      String field, Y value) {
+    if (value == null) {
+      return null;
+    }
+    return (root, query, cb) -> cb.lessThan(root.get(field), value);
+  }
+}
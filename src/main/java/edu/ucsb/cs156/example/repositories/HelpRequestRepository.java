@@ -1,9 +1,61 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /** The HelpRequestRepository is a repository for HelpRequest entities */
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {}
+public interface HelpRequestRepository
+    extends CrudRepository<HelpRequest, Long>, JpaSpecificationExecutor<HelpRequest> {
+
+  /**
+   * This method returns the most recent help requests, newest first (ties broken by id, highest
+   * first). Help requests without a requestTime are not returned.
+   *
+   * @param limit how many help requests to return
+   * @return the help requests
+   */
+  @Query(
+      "SELECT h FROM helprequests h WHERE h.requestTime IS NOT NULL"
+          + " ORDER BY h.requestTime DESC, h.id DESC")
+  List<HelpRequest> findNewest(Pageable limit);
+
+  /**
+   * This method returns the help requests that come after a given one in the order of findNewest,
+   * by seeking on (requestTime, id).
+   *
+   * @param requestTime requestTime of the given help request
+   * @param id id of the given help request
+   * @param limit how many help requests to return
+   * @return the help requests
+   */
+  @Query(
+      "SELECT h FROM helprequests h WHERE (h.requestTime, h.id) < (:requestTime, :id)"
+          + " ORDER BY h.requestTime DESC, h.id DESC")
+  List<HelpRequest> findOlderThan(
+      @Param("requestTime") LocalDateTime requestTime, @Param("id") long id, Pageable limit);
+
+  /**
+   * This method streams all the help requests, reading them from the database in batches as the
+   * stream is consumed. It must be called, and the stream consumed and closed, within a
+   * transaction.
+   *
+   * @return the help requests
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<HelpRequest> streamAllBy();
+}
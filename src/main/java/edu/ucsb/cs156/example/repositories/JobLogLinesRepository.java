@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobLogLinesRepository is a repository for JobLogLine entities. */
+@Repository
+public interface JobLogLinesRepository extends CrudRepository<JobLogLine, Long> {
+  /**
+   * This method writes a batch of log lines in a transaction of its own. Jobs log (and so may
+   * flush) from within their own transactions, e.g. the read-only one of an export; the lines must
+   * be written even so, and kept if that transaction is rolled back.
+   *
+   * @param lines the log lines
+   * @return the saved log lines
+   */
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  <S extends JobLogLine> Iterable<S> saveAll(Iterable<S> lines);
+
+  /**
+   * This method returns the log lines of a job in the order they were written.
+   *
+   * @param jobId id of the job
+   * @return the log lines of the job, ordered by sequence number
+   */
+  List<JobLogLine> findByJobIdOrderBySeqAsc(long jobId);
+
+  /**
+   * This method returns the log lines of a job written after a given line.
+   *
+   * @param jobId id of the job
+   * @param seq sequence number of the last line already seen
+   * @return the later log lines of the job, ordered by sequence number
+   */
+  List<JobLogLine> findByJobIdAndSeqGreaterThanOrderBySeqAsc(long jobId, long seq);
+
+  /**
+   * This method returns the last log line of a job.
+   *
+   * @param jobId id of the job
+   * @return the log line with the highest sequence number, if the job has any
+   */
+  Optional<JobLogLine> findTopByJobIdOrderBySeqDesc(long jobId);
+
+  /**
+   * This method deletes all log lines of a job with a single statement.
+   *
+   * @param jobId id of the job
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobloglines l WHERE l.jobId = :jobId")
+  void deleteByJobId(@Param("jobId") long jobId);
+
+  /**
+   * This method deletes all log lines of several jobs with a single statement.
+   *
+   * @param jobIds ids of the jobs
+   * @return the number of lines deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobloglines l WHERE l.jobId IN :jobIds")
+  int deleteByJobIdIn(@Param("jobIds") List<Long> jobIds);
+
+  /** This method deletes the log lines of every job with a single statement. */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobloglines")
+  void deleteAllLines();
+}
@@ -1,8 +1,287 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobTiming;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+
+  /**
+   * Jobs whose worker has stopped: claimed jobs whose worker has not sent a heartbeat since
+   * :staleBefore, and jobs left queued or running from before jobs were claimed at all
+   */
+  String ORPHANED =
+      " j.status IN ('queued', 'running') AND ("
+          + "(j.claimedBy IS NOT NULL AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore))"
+          + " OR (j.claimedBy IS NULL AND (j.status = 'running' OR j.params IS NULL)))";
+
+  String SUMMARY =
+      "SELECT new edu.ucsb.cs156.example.models.JobSummary("
+          + "j.id, j.status, j.jobType, j.createdAt, j.updatedAt, j.startedAt, j.endedAt,"
+          + " j.runDurationMs, j.progress, u.id, u.email,"
+          + " (SELECT COUNT(l) FROM jobloglines l WHERE l.jobId = j.id),"
+          + " COALESCE((SELECT SUM(LENGTH(l.message)) FROM jobloglines l WHERE l.jobId = j.id),"
+          + " CAST(LENGTH(j.log) AS Long), 0L))"
+          + " FROM jobs j LEFT JOIN j.createdBy u";
+
+  String SUMMARY_FILTER =
+      " WHERE (:status IS NULL OR j.status = :status)"
+          + " AND (:createdById IS NULL OR u.id = :createdById)"
+          + " AND (:createdAfter IS NULL OR j.createdAt >= :createdAfter)"
+          + " AND (:createdBefore IS NULL OR j.createdAt < :createdBefore)";
+
+  /**
+   * This method returns one page of job summaries, without reading the log column. The log size is
+   * computed from the job's log lines, falling back to the length of Job.log for jobs that were run
+   * before logs were stored as lines.
+   *
+   * @param status only jobs with this status (null for any)
+   * @param createdById only jobs created by this user (null for any)
+   * @param createdAfter only jobs created at or after this time (null for no lower bound)
+   * @param createdBefore only jobs created before this time (null for no upper bound)
+   * @param pageable page number, page size and sort order
+   * @return the page of summaries
+   */
+  @Query(
+      value = SUMMARY + SUMMARY_FILTER,
+      countQuery = "SELECT COUNT(j) FROM jobs j LEFT JOIN j.createdBy u" + SUMMARY_FILTER)
+  Page<JobSummary> findSummaries(
+      @Param("status") String status,
+      @Param("createdById") Long createdById,
+      @Param("createdAfter") ZonedDateTime createdAfter,
+      @Param("createdBefore") ZonedDateTime createdBefore,
+      Pageable pageable);
+
+  /**
+   * This method returns summaries of the most recently created jobs, newest first (ties broken by
+   * id, highest first).
+   *
+   * @param limit how many summaries to return
+   * @return the summaries
+   */
+  @Query(SUMMARY + " WHERE j.createdAt IS NOT NULL ORDER BY j.createdAt DESC, j.id DESC")
+  List<JobSummary> findNewestSummaries(Pageable limit);
+
+  /**
+   * This method returns summaries of the jobs that come after a given one in the order of
+   * findNewestSummaries, by seeking on (createdAt, id).
+   *
+   * @param createdAt createdAt of the given job
+   * @param id id of the given job
+   * @param limit how many summaries to return
+   * @return the summaries
+   */
+  @Query(
+      SUMMARY
+          + " WHERE (j.createdAt, j.id) < (:createdAt, :id)"
+          + " ORDER BY j.createdAt DESC, j.id DESC")
+  List<JobSummary> findSummariesCreatedBefore(
+      @Param("createdAt") ZonedDateTime createdAt, @Param("id") long id, Pageable limit);
+
+  /**
+   * This method returns the ids of finished (i.e. not queued or running) jobs created before a
+   * given time, oldest first. Jobs without a createdAt were created before it was recorded, and
+   * count as older than any cutoff.
+   *
+   * @param createdBefore only jobs created before this time
+   * @param pageable how many ids to return
+   * @return the ids
+   */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE j.status NOT IN ('queued', 'running')"
+          + " AND (j.createdAt IS NULL OR j.createdAt < :createdBefore) ORDER BY j.id")
+  List<Long> findFinishedJobIdsCreatedBefore(
+      @Param("createdBefore") ZonedDateTime createdBefore, Pageable pageable);
+
+  /**
+   * This method returns the ids of finished jobs with an id no greater than a given one, oldest
+   * first.
+   *
+   * @param maxId the largest id to return
+   * @param pageable how many ids to return
+   * @return the ids
+   */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE j.status NOT IN ('queued', 'running') AND j.id <= :maxId"
+          + " ORDER BY j.id")
+  List<Long> findFinishedJobIdsUpTo(@Param("maxId") long maxId, Pageable pageable);
+
+  /**
+   * This method returns the ids of finished jobs, newest first.
+   *
+   * @param pageable how many ids to return and how many to skip
+   * @return the ids
+   */
+  @Query("SELECT j.id FROM jobs j WHERE j.status NOT IN ('queued', 'running') ORDER BY j.id DESC")
+  List<Long> findFinishedJobIdsNewestFirst(Pageable pageable);
+
+  /**
+   * This method deletes jobs with a single statement, without loading them (and their logs).
+   *
+   * @param ids ids of the jobs
+   * @return the number of jobs deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobs j WHERE j.id IN :ids")
+  int deleteByIdIn(@Param("ids") List<Long> ids);
+
+  /**
+   * This method records that a worker started a job (status "running" and its new number of
+   * attempts), without writing the rest of the job. The heartbeat is renewed too, so that a job
+   * which waited long in the worker's local queue does not look orphaned.
+   *
+   * @param id id of the job
+   * @param attempts how many times a worker has started the job
+   * @param now the current time
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'running', j.attempts = :attempts, j.heartbeatAt = :now"
+          + " WHERE j.id = :id")
+  void markRunning(
+      @Param("id") long id, @Param("attempts") int attempts, @Param("now") ZonedDateTime now);
+
+  /**
+   * This method records when a job started running, without writing the rest of the job.
+   *
+   * @param id id of the job
+   * @param startedAt when the job started
+   * @param queueWaitMs how long the job waited to start
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.startedAt = :startedAt, j.queueWaitMs = :queueWaitMs WHERE j.id = :id")
+  void markStarted(
+      @Param("id") long id,
+      @Param("startedAt") ZonedDateTime startedAt,
+      @Param("queueWaitMs") Long queueWaitMs);
+
+  /**
+   * This method records the progress of a running job, without writing the rest of the job.
+   *
+   * @param id id of the job
+   * @param progress fraction of the work done
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE jobs j SET j.progress = :progress WHERE j.id = :id")
+  void updateProgress(@Param("id") long id, @Param("progress") double progress);
+
+  /**
+   * This method returns the type, status and timings of the jobs that ended after a given time.
+   *
+   * @param endedAfter only jobs that ended after this time
+   * @return the timings
+   */
+  List<JobTiming> findByEndedAtAfter(ZonedDateTime endedAfter);
+
+  /**
+   * This method locks and returns the queued jobs that no worker has claimed, highest priority
+   * first. Rows locked by another worker are skipped (on databases that support SKIP LOCKED), so
+   * that workers claiming at the same time get different jobs.
+   *
+   * @param pageable how many jobs to return
+   * @return the jobs
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query(
+      "SELECT j FROM jobs j WHERE j.status = 'queued' AND j.claimedBy IS NULL"
+          + " AND j.params IS NOT NULL ORDER BY j.priority DESC, j.id")
+  List<Job> findUnclaimedQueuedJobs(Pageable pageable);
+
+  /**
+   * This method records that a worker still holds some jobs.
+   *
+   * @param ids ids of the jobs
+   * @param workerId id of the worker
+   * @param now the current time
+   * @return the number of jobs updated
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE jobs j SET j.heartbeatAt = :now WHERE j.id IN :ids AND j.claimedBy = :workerId")
+  int heartbeat(
+      @Param("ids") List<Long> ids,
+      @Param("workerId") String workerId,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * This method returns the jobs whose worker has stopped (see ORPHANED).
+   *
+   * @param staleBefore heartbeats before this time are stale
+   * @return the jobs
+   */
+  @Query("SELECT j FROM jobs j WHERE" + ORPHANED + " ORDER BY j.id")
+  List<Job> findOrphanedJobs(@Param("staleBefore") ZonedDateTime staleBefore);
+
+  /**
+   * This method puts an orphaned job back in the queue for any worker to claim, unless it has
+   * stopped being orphaned in the meantime.
+   *
+   * @param id id of the job
+   * @param staleBefore heartbeats before this time are stale
+   * @return 1 if the job was requeued, 0 otherwise
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'queued', j.claimedBy = NULL, j.heartbeatAt = NULL"
+          + " WHERE j.id = :id AND"
+          + ORPHANED)
+  int requeueIfOrphaned(@Param("id") long id, @Param("staleBefore") ZonedDateTime staleBefore);
+
+  /**
+   * This method ends an orphaned job with status "error", unless it has stopped being orphaned in
+   * the meantime.
+   *
+   * @param id id of the job
+   * @param staleBefore heartbeats before this time are stale
+   * @param endedAt when the job is considered to have ended
+   * @param resultSummary why the job failed
+   * @return 1 if the job was updated, 0 otherwise
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'error', j.endedAt = :endedAt,"
+          + " j.resultSummary = :resultSummary WHERE j.id = :id AND"
+          + ORPHANED)
+  int failIfOrphaned(
+      @Param("id") long id,
+      @Param("staleBefore") ZonedDateTime staleBefore,
+      @Param("endedAt") ZonedDateTime endedAt,
+      @Param("resultSummary") String resultSummary);
+
+  /**
+   * This method cancels a job that is queued and not claimed by any worker.
+   *
+   * @param id id of the job
+   * @param endedAt when the job was cancelled
+   * @return 1 if the job was cancelled, 0 otherwise
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'cancelled', j.endedAt = :endedAt"
+          + " WHERE j.id = :id AND j.status = 'queued' AND j.claimedBy IS NULL")
+  int cancelIfUnclaimed(@Param("id") long id, @Param("endedAt") ZonedDateTime endedAt);
+}
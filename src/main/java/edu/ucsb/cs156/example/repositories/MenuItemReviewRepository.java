@@ -1,9 +1,61 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for MenuItemReview entities. */
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository
+    extends CrudRepository<MenuItemReview, Long>, JpaSpecificationExecutor<MenuItemReview> {
+
+  /**
+   * This method returns the most recent reviews, newest first (ties broken by id, highest first).
+   * Reviews without a dateReviewed are not returned.
+   *
+   * @param limit how many reviews to return
+   * @return the reviews
+   */
+  @Query(
+      "SELECT r FROM menuitemreview r WHERE r.dateReviewed IS NOT NULL"
+          + " ORDER BY r.dateReviewed DESC, r.id DESC")
+  List<MenuItemReview> findNewest(Pageable limit);
+
+  /**
+   * This method returns the reviews that come after a given one in the order of findNewest, by
+   * seeking on (dateReviewed, id).
+   *
+   * @param dateReviewed dateReviewed of the given review
+   * @param id id of the given review
+   * @param limit how many reviews to return
+   * @return the reviews
+   */
+  @Query(
+      "SELECT r FROM menuitemreview r WHERE (r.dateReviewed, r.id) < (:dateReviewed, :id)"
+          + " ORDER BY r.dateReviewed DESC, r.id DESC")
+  List<MenuItemReview> findOlderThan(
+      @Param("dateReviewed") LocalDateTime dateReviewed, @Param("id") long id, Pageable limit);
+
+  /**
+   * This method streams all the menu item reviews, reading them from the database in batches as the
+   * stream is consumed. It must be called, and the stream consumed and closed, within a
+   * transaction.
+   *
+   * @return the menu item reviews
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<MenuItemReview> streamAllBy();
+}
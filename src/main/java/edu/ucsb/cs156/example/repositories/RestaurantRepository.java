@@ -1,9 +1,39 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The RestaurantRepository is a repository for Restaurant entities */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {}
+public interface RestaurantRepository
+    extends CrudRepository<Restaurant, Long>, JpaSpecificationExecutor<Restaurant> {
+
+  /**
+   * This method returns all the restaurants. The result is kept in Hibernate's query cache (and the
+   * restaurants themselves in the second-level cache) until one of them is changed.
+   *
+   * @return all the restaurants
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<Restaurant> findAll();
+
+  /**
+   * This method streams all the restaurants, reading them from the database in batches as the
+   * stream is consumed. It must be called, and the stream consumed and closed, within a
+   * transaction.
+   *
+   * @return the restaurants
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Restaurant> streamAllBy();
+}
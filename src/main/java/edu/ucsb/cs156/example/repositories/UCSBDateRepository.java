@@ -1,18 +1,47 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
-public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+public interface UCSBDateRepository
+    extends CrudRepository<UCSBDate, Long>, JpaSpecificationExecutor<UCSBDate> {
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    *
    * @param quarterYYYYQ quarter in the format YYYYQ (e.g. 20241 for Winter 2024, 20242 for Spring
    *     2024, 20243 for Summer 2024, 20244 for Fall 2024)
-   * @return all UCSBDate entities with a given quarterYYYYQ
+   * @return all UCSBDate entities with a given quarterYYYYQ (kept in the query cache, like findAll)
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method returns all the dates. The result is kept in Hibernate's query cache (and the dates
+   * themselves in the second-level cache) until one of them is changed.
+   *
+   * @return all the dates
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBDate> findAll();
+
+  /**
+   * This method streams all the dates, reading them from the database in batches as the stream is
+   * consumed. It must be called, and the stream consumed and closed, within a transaction.
+   *
+   * @return the dates
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<UCSBDate> streamAllBy();
 }
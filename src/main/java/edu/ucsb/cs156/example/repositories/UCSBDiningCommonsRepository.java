@@ -1,9 +1,39 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {}
+public interface UCSBDiningCommonsRepository
+    extends CrudRepository<UCSBDiningCommons, String>, JpaSpecificationExecutor<UCSBDiningCommons> {
+
+  /**
+   * This method returns all the dining commons. The result is kept in Hibernate's query cache (and
+   * the dining commons themselves in the second-level cache) until one of them is changed.
+   *
+   * @return all the dining commons
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBDiningCommons> findAll();
+
+  /**
+   * This method streams all the dining commons, reading them from the database in batches as the
+   * stream is consumed. It must be called, and the stream consumed and closed, within a
+   * transaction.
+   *
+   * @return the dining commons
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<UCSBDiningCommons> streamAllBy();
+}
@@ -1,9 +1,39 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBOrganizationRepository is a repository for UCSBOrganizations entities */
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {}
+public interface UCSBOrganizationRepository
+    extends CrudRepository<UCSBOrganization, String>, JpaSpecificationExecutor<UCSBOrganization> {
+
+  /**
+   * This method returns all the organizations. The result is kept in Hibernate's query cache (and
+   * the organizations themselves in the second-level cache) until one of them is changed.
+   *
+   * @return all the organizations
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBOrganization> findAll();
+
+  /**
+   * This method streams all the organizations, reading them from the database in batches as the
+   * stream is consumed. It must be called, and the stream consumed and closed, within a
+   * transaction.
+   *
+   * @return the organizations
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<UCSBOrganization> streamAllBy();
+}
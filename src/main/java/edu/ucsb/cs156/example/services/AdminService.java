@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that decides whether a user is an admin: either their email is one of the
+ * configured app.admin.emails, or their User.admin flag is set in the database.
+ *
+ * <p>The configured emails are kept in a hash set. The admin flags read from the database are
+ * cached by email (like the users in UserUpsertService), so a burst of logins does not query the
+ * users table for each one. Code that changes a user's admin flag must call evict.
+ */
+@Service
+public class AdminService {
+
+  private final UserRepository userRepository;
+
+  private final Set<String> adminEmails;
+
+  private final Cache<String, Boolean> adminFlags;
+
+  @Autowired
+  public AdminService(
+      UserRepository userRepository,
+      @Value("${app.admin.emails}") List<String> adminEmails,
+      @Value("${app.users.cache.maxSize:10000}") long maxSize,
+      @Value("${app.users.cache.ttlSeconds:300}") long ttlSeconds) {
+    this.userRepository = userRepository;
+    this.adminEmails = new HashSet<>(adminEmails);
+    this.adminFlags =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+  }
+
+  /**
+   * Whether the email is one of the configured admin emails.
+   *
+   * @param email email address of the user
+   * @return true if the email is in app.admin.emails
+   */
+  public boolean isConfiguredAdmin(String email) {
+    return adminEmails.contains(email);
+  }
+
+  /**
+   * Whether the user with the given email is an admin, either because their email is configured as
+   * an admin email or because their admin flag is set in the database.
+   *
+   * @param email email address of the user
+   * @return whether the user is an admin
+   */
+  public boolean isAdmin(String email) {
+    if (isConfiguredAdmin(email)) {
+      return true;
+    }
+    return adminFlags.get(
+        email, e -> userRepository.findByEmail(e).map(User::getAdmin).orElse(false));
+  }
+
+  /**
+   * Forget the cached admin flag of a user, so that the next check reads it from the database.
+   *
+   * @param email email address of the user
+   */
+  public void evict(String email) {
+    adminFlags.invalidate(email);
+  }
+}
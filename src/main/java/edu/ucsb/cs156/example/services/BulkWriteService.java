@@ -0,0 +1,280 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The BulkWriteService creates, updates or deletes many entities of one type at once, for the /bulk
+ * endpoints of the CRUD controllers.
+ *
+ * <p>All the items of a request are checked before anything is written: every field is required (as
+ * it is by the single-item endpoints), ids must not repeat, and the rows to update or delete must
+ * exist (which is looked up with one query). If any item is invalid, nothing is written. Otherwise
+ * all the writes are done in one transaction, and sent at commit in JDBC batches (see
+ * hibernate.jdbc.batch_size in application.properties). They go through the entity manager, so
+ * TableVersionListener bumps the table's version, and the second-level cache is kept current.
+ */
+@Service
+public class BulkWriteService {
+
+  @Autowired private EntityManager entityManager;
+
+  @Value("${app.bulk.maxItems:1000}")
+  private int maxItems;
+
+  /**
+   * This method creates new entities. Ids that the database generates must not be given; other ids
+   * must be given, and must not exist yet.
+   *
+   * @param entityClass the entity class
+   * @param items the new entities
+   * @param <T> the type of the entities
+   * @return the result of each item, in order, with the saved entity if all were created
+   * @throws ResponseStatusException (400 Bad Request) if there are more than maxItems items
+   */
+  @Transactional
+  public <T> List<BulkItemResult<T>> create(Class<T> entityClass, List<T> items) {
+    EntityType<T> type = entityType(entityClass, items.size());
+    boolean generatedId = isGenerated(type.getId(type.getIdType().getJavaType()));
+    List<Object> ids = items.stream().map(item -> item == null ? null : idOf(item)).toList();
+    Set<Object> existing = generatedId ? Set.of() : find(type, ids).keySet();
+
+    List<List<String>> errors = new ArrayList<>();
+    Set<Object> seen = new HashSet<>();
+    for (int i = 0; i < items.size(); i++) {
+      List<String> itemErrors = new ArrayList<>();
+      Object id = ids.get(i);
+      if (items.get(i) == null) {
+        itemErrors.add("item is missing");
+      } else if (generatedId) {
+        if (!isUnset(id)) {
+          itemErrors.add(idName(type) + " is assigned by the database and must not be given");
+        }
+      } else {
+        checkId(type, id, seen, itemErrors);
+        if (existing.contains(id)) {
+          itemErrors.add("%s with id %s already exists".formatted(entityClass.getSimpleName(), id));
+        }
+      }
+      itemErrors.addAll(missingFields(type, items.get(i)));
+      errors.add(itemErrors);
+    }
+    if (hasErrors(errors)) {
+      return rejected(ids, errors);
+    }
+
+    List<BulkItemResult<T>> results = new ArrayList<>();
+    for (int i = 0; i < items.size(); i++) {
+      T item = items.get(i);
+      entityManager.persist(item);
+      results.add(written(i, BulkItemResult.CREATED, idOf(item), item));
+    }
+    return results;
+  }
+
+  /**
+   * This method updates existing entities, replacing all their fields with those of the items.
+   *
+   * @param entityClass the entity class
+   * @param items the new contents of the entities, with their ids
+   * @param <T> the type of the entities
+   * @return the result of each item, in order, with the saved entity if all were updated
+   * @throws ResponseStatusException (400 Bad Request) if there are more than maxItems items
+   */
+  @Transactional
+  public <T> List<BulkItemResult<T>> update(Class<T> entityClass, List<T> items) {
+    EntityType<T> type = entityType(entityClass, items.size());
+    List<Object> ids = items.stream().map(item -> item == null ? null : idOf(item)).toList();
+    Map<Object, T> existing = find(type, ids);
+
+    List<List<String>> errors = new ArrayList<>();
+    Set<Object> seen = new HashSet<>();
+    for (int i = 0; i < items.size(); i++) {
+      List<String> itemErrors = new ArrayList<>();
+      if (items.get(i) == null) {
+        itemErrors.add("item is missing");
+      } else {
+        checkExisting(type, ids.get(i), seen, existing, itemErrors);
+      }
+      itemErrors.addAll(missingFields(type, items.get(i)));
+      errors.add(itemErrors);
+    }
+    if (hasErrors(errors)) {
+      return rejected(ids, errors);
+    }
+
+    List<BulkItemResult<T>> results = new ArrayList<>();
+    for (int i = 0; i < items.size(); i++) {
+      // the entity was loaded by find, so this copies the fields without reading it again
+      T saved = entityManager.merge(items.get(i));
+      results.add(written(i, BulkItemResult.UPDATED, ids.get(i), saved));
+    }
+    return results;
+  }
+
+  /**
+   * This method deletes entities.
+   *
+   * @param entityClass the entity class
+   * @param ids the ids of the entities
+   * @param <T> the type of the entities
+   * @return the result of each id, in order
+   * @throws ResponseStatusException (400 Bad Request) if there are more than maxItems ids
+   */
+  @Transactional
+  public <T> List<BulkItemResult<T>> delete(Class<T> entityClass, List<?> ids) {
+    EntityType<T> type = entityType(entityClass, ids.size());
+    Map<Object, T> existing = find(type, ids);
+
+    List<List<String>> errors = new ArrayList<>();
+    Set<Object> seen = new HashSet<>();
+    for (Object id : ids) {
+      List<String> itemErrors = new ArrayList<>();
+      checkExisting(type, id, seen, existing, itemErrors);
+      errors.add(itemErrors);
+    }
+    if (hasErrors(errors)) {
+      return rejected(ids, errors);
+    }
+
+    List<BulkItemResult<T>> results = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i++) {
+      entityManager.remove(existing.get(ids.get(i)));
+      results.add(written(i, BulkItemResult.DELETED, ids.get(i), null));
+    }
+    return results;
+  }
+
+  private <T> EntityType<T> entityType(Class<T> entityClass, int size) {
+    if (size > maxItems) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "at most %d items can be written at once".formatted(maxItems));
+    }
+    return entityManager.getMetamodel().entity(entityClass);
+  }
+
+  private Object idOf(Object item) {
+    return entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(item);
+  }
+
+  private static String idName(EntityType<?> type) {
+    return type.getId(type.getIdType().getJavaType()).getName();
+  }
+
+  private static boolean isGenerated(SingularAttribute<?, ?> id) {
+    return ((AnnotatedElement) id.getJavaMember()).isAnnotationPresent(GeneratedValue.class);
+  }
+
+  /** An id that is null, or 0 for a primitive id: one the database has not assigned yet. */
+  private static boolean isUnset(Object id) {
+    return id == null || (id instanceof Number n && n.longValue() == 0);
+  }
+
+  /** Reads the entities with the given ids (ignoring ids that are not set) with one query. */
+  private <T> Map<Object, T> find(EntityType<T> type, Collection<?> ids) {
+    List<?> set = ids.stream().filter(id -> !isUnset(id)).distinct().toList();
+    Map<Object, T> found = new HashMap<>();
+    if (set.isEmpty()) {
+      return found;
+    }
+    String query = "SELECT e FROM %s e WHERE e.%s IN :ids".formatted(type.getName(), idName(type));
+    for (T entity :
+        entityManager
+            .createQuery(query, type.getJavaType())
+            .setParameter("ids", set)
+            .getResultList()) {
+      found.put(idOf(entity), entity);
+    }
+    return found;
+  }
+
+  private static void checkId(
+      EntityType<?> type, Object id, Set<Object> seen, List<String> itemErrors) {
+    if (isUnset(id)) {
+      itemErrors.add(idName(type) + " is required");
+    } else if (!seen.add(id)) {
+      itemErrors.add("%s %s appears more than once".formatted(idName(type), id));
+    }
+  }
+
+  private static void checkExisting(
+      EntityType<?> type,
+      Object id,
+      Set<Object> seen,
+      Map<Object, ?> existing,
+      List<String> itemErrors) {
+    checkId(type, id, seen, itemErrors);
+    if (!isUnset(id) && !existing.containsKey(id)) {
+      itemErrors.add(new EntityNotFoundException(type.getJavaType(), id).getMessage());
+    }
+  }
+
+  /** The fields (other than the id) that are null, which the single-item endpoints require. */
+  private List<String> missingFields(EntityType<?> type, Object item) {
+    if (item == null) {
+      return List.of();
+    }
+    EntityPersister persister =
+        entityManager
+            .getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(type.getJavaType());
+    return type.getSingularAttributes().stream()
+        .filter(attribute -> !attribute.isId() && !attribute.getJavaType().isPrimitive())
+        .filter(attribute -> persister.getPropertyValue(item, attribute.getName()) == null)
+        .map(attribute -> attribute.getName() + " is required")
+        .sorted(Comparator.naturalOrder())
+        .toList();
+  }
+
+  private static boolean hasErrors(List<List<String>> errors) {
+    return errors.stream().anyMatch(itemErrors -> !itemErrors.isEmpty());
+  }
+
+  private static <T> List<BulkItemResult<T>> rejected(List<?> ids, List<List<String>> errors) {
+    List<BulkItemResult<T>> results = new ArrayList<>();
+    for (int i = 0; i < errors.size(); i++) {
+      List<String> itemErrors = errors.get(i);
+      results.add(
+          BulkItemResult.<T>builder()
+              .index(i)
+              .status(itemErrors.isEmpty() ? BulkItemResult.SKIPPED : BulkItemResult.INVALID)
+              .id(isUnset(ids.get(i)) ? null : ids.get(i))
+              .errors(itemErrors)
+              .build());
+    }
+    return results;
+  }
+
+  private static <T> BulkItemResult<T> written(int index, String status, Object id, T item) {
+    return BulkItemResult.<T>builder()
+        .index(index)
+        .status(status)
+        .id(id)
+        .item(item)
+        .errors(List.of())
+        .build();
+  }
+}
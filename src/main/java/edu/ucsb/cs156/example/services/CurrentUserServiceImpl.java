@@ -2,14 +2,10 @@ package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
-import edu.ucsb.cs156.example.repositories.UserRepository;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -18,22 +14,37 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * This is a service that provides information about the current user.
  *
  * <p>This is the version of the service used in production.
+ *
+ * <p>Users are looked up through UserUpsertService, which answers from its cache while the OAuth2
+ * profile is unchanged, so that most requests do not query the users table.
+ *
+ * <p>Within an HTTP request, the User and CurrentUser are worked out once and kept as request
+ * attributes, so every controller and service that asks during that request gets the same objects.
  */
 @Slf4j
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
-  @Autowired private UserRepository userRepository;
+  @Autowired private UserUpsertService userUpsertService;
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  @Autowired private AdminService adminService;
+
+  private static final String USER_ATTRIBUTE = CurrentUserServiceImpl.class.getName() + ".user";
+
+  private static final String CURRENT_USER_ATTRIBUTE =
+      CurrentUserServiceImpl.class.getName() + ".currentUser";
+
+  /** A value worked out for the authentication of the current request */
+  private record Memo(Authentication authentication, Object value) {}
 
   /**
    * This method returns the current user as a User object.
@@ -41,9 +52,39 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * @return the current user
    */
   public CurrentUser getCurrentUser() {
-    CurrentUser cu = CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
-    log.info("getCurrentUser returns {}", cu);
-    return cu;
+    return (CurrentUser)
+        memoizeForRequest(
+            CURRENT_USER_ATTRIBUTE,
+            () -> {
+              CurrentUser cu =
+                  CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
+              log.debug("getCurrentUser returns {}", cu);
+              return cu;
+            });
+  }
+
+  /**
+   * Return the value stored under name in the current request, computing and storing it first if
+   * needed. The value is only reused while the request's authentication stays the same (it changes
+   * e.g. during login). Outside of an HTTP request (e.g. in a job), the value is always computed.
+   *
+   * @param name the name of the request attribute
+   * @param compute computes the value
+   * @return the value
+   */
+  private Object memoizeForRequest(String name, Supplier<Object> compute) {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request == null) {
+      return compute.get();
+    }
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (request.getAttribute(name, RequestAttributes.SCOPE_REQUEST) instanceof Memo memo
+        && memo.authentication() == authentication) {
+      return memo.value();
+    }
+    Object value = compute.get();
+    request.setAttribute(name, new Memo(authentication, value), RequestAttributes.SCOPE_REQUEST);
+    return value;
   }
 
   /**
@@ -51,7 +92,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * automatically injected by Spring.
    *
    * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * already there, or if their profile changed (see UserUpsertService). A changed profile is stored
+   * even while the user is cached.
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -70,20 +112,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String locale = oAuthUser.getAttribute("locale");
     String hostedDomain = oAuthUser.getAttribute("hd");
 
-    java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
+    log.debug("attrs={}", oAuthUser.getAttributes());
 
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
-
-    User u =
+    return userUpsertService.upsert(
         User.builder()
             .googleSub(googleSub)
             .email(email)
@@ -94,10 +125,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
             .emailVerified(emailVerified)
             .locale(locale)
             .hostedDomain(hostedDomain)
-            .admin(adminEmails.contains(email))
-            .build();
-    userRepository.save(u);
-    return u;
+            .admin(adminService.isConfiguredAdmin(email))
+            .build());
   }
 
   /**
@@ -106,13 +135,18 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * @return the current user
    */
   public User getUser() {
-    SecurityContext securityContext = SecurityContextHolder.getContext();
-    Authentication authentication = securityContext.getAuthentication();
+    return (User)
+        memoizeForRequest(
+            USER_ATTRIBUTE,
+            () -> {
+              SecurityContext securityContext = SecurityContextHolder.getContext();
+              Authentication authentication = securityContext.getAuthentication();
 
-    if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
-    }
-    return null;
+              if (authentication instanceof OAuth2AuthenticationToken) {
+                return getOAuth2AuthenticatedUser(securityContext, authentication);
+              }
+              return null;
+            });
   }
 
   /**
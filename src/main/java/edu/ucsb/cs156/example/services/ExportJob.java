@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+
+/**
+ * An ExportJob writes the rows of a table to a compressed file (see ExportService).
+ *
+ * <p>Like ImportJob, it is not in the jobs package on purpose: the file is written to the disk of
+ * the instance that runs the job, and can only be downloaded from there, so JobRegistry should not
+ * store the job for another instance to run.
+ */
+public class ExportJob implements JobContextConsumer {
+
+  private final ExportService exportService;
+  private final String table;
+
+  ExportJob(ExportService exportService, String table) {
+    this.exportService = exportService;
+    this.table = table;
+  }
+
+  @Override
+  public void accept(JobContext ctx) throws Exception {
+    exportService.export(ctx, table);
+  }
+}
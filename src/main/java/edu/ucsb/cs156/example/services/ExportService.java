@@ -0,0 +1,310 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The ExportService writes every row of a table to a gzip-compressed CSV file (with a header row)
+ * on this instance's disk, as a job (see ExportJob and /api/jobs/launch/export). The file is then
+ * downloaded from /api/jobs/export/{id}.
+ *
+ * <p>Rows come from the table's streamAllBy method (read with a JDBC fetch size) and each one is
+ * detached once written, so the memory used does not depend on the number of rows. The file is
+ * written under a temporary name and renamed once complete, so a download never gets part of an
+ * export. Files are kept in app.export.directory for app.export.maxAgeDays.
+ *
+ * <p>The same sweep also deletes uploads that ImportService left in app.import.directory, e.g. when
+ * the instance stopped before their jobs ran.
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+  /** The file name extension of exports */
+  public static final String EXTENSION = ".csv.gz";
+
+  private static final CsvMapper CSV_MAPPER =
+      CsvMapper.builder()
+          .addModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          // columns in the order of the entity's fields, id first
+          .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+          .build();
+
+  /** A table that can be exported. */
+  private record Table<T>(
+      Class<T> entityClass, CrudRepository<T, ?> repository, Supplier<Stream<T>> rows) {}
+
+  @Autowired private ArticlesRepository articlesRepository;
+
+  @Autowired private HelpRequestRepository helpRequestRepository;
+
+  @Autowired private MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired private RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired private RestaurantRepository restaurantRepository;
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  @Autowired private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired private UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private JobService jobService;
+
+  @Lazy @Autowired private ExportService self;
+
+  @Value("${app.export.directory:${java.io.tmpdir}/exports}")
+  private Path directory;
+
+  @Value("${app.import.directory:${java.io.tmpdir}/imports}")
+  private Path importDirectory;
+
+  @Value("${app.export.logEveryRows:10000}")
+  private long logEveryRows;
+
+  @Value("${app.export.maxAgeDays:7}")
+  private int maxAgeDays;
+
+  /** The tables that can be exported, named as in the paths of their controllers */
+  private final Map<String, Table<?>> tables = new TreeMap<>();
+
+  @PostConstruct
+  void registerTables() {
+    tables.put(
+        "articles",
+        new Table<>(Articles.class, articlesRepository, articlesRepository::streamAllBy));
+    tables.put(
+        "helprequest",
+        new Table<>(HelpRequest.class, helpRequestRepository, helpRequestRepository::streamAllBy));
+    tables.put(
+        "menuitemreview",
+        new Table<>(
+            MenuItemReview.class, menuItemReviewRepository, menuItemReviewRepository::streamAllBy));
+    tables.put(
+        "recommendationrequests",
+        new Table<>(
+            RecommendationRequest.class,
+            recommendationRequestRepository,
+            recommendationRequestRepository::streamAllBy));
+    tables.put(
+        "restaurants",
+        new Table<>(Restaurant.class, restaurantRepository, restaurantRepository::streamAllBy));
+    tables.put(
+        "ucsbdates",
+        new Table<>(UCSBDate.class, ucsbDateRepository, ucsbDateRepository::streamAllBy));
+    tables.put(
+        "ucsbdiningcommons",
+        new Table<>(
+            UCSBDiningCommons.class,
+            ucsbDiningCommonsRepository,
+            ucsbDiningCommonsRepository::streamAllBy));
+    tables.put(
+        "ucsbdiningcommonsmenuitem",
+        new Table<>(
+            UCSBDiningCommonsMenuItem.class,
+            ucsbDiningCommonsMenuItemRepository,
+            ucsbDiningCommonsMenuItemRepository::streamAllBy));
+    tables.put(
+        "ucsborganization",
+        new Table<>(
+            UCSBOrganization.class,
+            ucsbOrganizationRepository,
+            ucsbOrganizationRepository::streamAllBy));
+  }
+
+  /**
+   * This method queues a job that exports a table.
+   *
+   * @param table the name of the table, e.g. helprequest
+   * @param priority the priority of the job
+   * @param timeoutSeconds how long the job may run; 0 for the default
+   * @return the job
+   * @throws ResponseStatusException (400 Bad Request) if the table is not known
+   */
+  public Job launch(String table, JobPriority priority, long timeoutSeconds) {
+    if (!tables.containsKey(table)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "table must be one of " + String.join(", ", tables.keySet()));
+    }
+    return jobService.runAsJob(new ExportJob(self, table), priority, timeoutSeconds);
+  }
+
+  /**
+   * This method writes the rows of a table to the export file of a job, reporting its progress
+   * through the job context. The rows are read in a read-only transaction; the lines the job logs
+   * meanwhile are written in transactions of their own (see JobLogLinesRepository.saveAll).
+   *
+   * @param ctx the context of the job
+   * @param table the name of the table
+   * @throws IOException if the file cannot be written
+   */
+  @Transactional(readOnly = true)
+  public void export(JobContext ctx, String table) throws IOException {
+    export(ctx, table, tables.get(table));
+  }
+
+  private <T> void export(JobContext ctx, String name, Table<T> table) throws IOException {
+    long total = table.repository().count();
+    ctx.log("Exporting %d rows of %s".formatted(total, name));
+    Files.createDirectories(directory);
+    Path file = directory.resolve(name + "-" + ctx.getJobId() + EXTENSION);
+    Path part = directory.resolve(file.getFileName() + ".part");
+
+    long written = 0;
+    try {
+      try (SequenceWriter writer =
+              CSV_MAPPER
+                  .writerFor(table.entityClass())
+                  .with(CSV_MAPPER.schemaFor(table.entityClass()).withHeader())
+                  .writeValues(new GZIPOutputStream(Files.newOutputStream(part), 65536));
+          Stream<T> rows = table.rows().get()) {
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+          ctx.checkCancelled();
+          T row = it.next();
+          writer.write(row);
+          entityManager.detach(row);
+          written++;
+          ctx.setProgress((double) written / total);
+          if (written % logEveryRows == 0) {
+            ctx.log("Exported %d rows".formatted(written));
+          }
+        }
+      }
+      Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(part);
+    }
+
+    String summary =
+        "Exported %d rows to %s (%d bytes)"
+            .formatted(written, file.getFileName(), Files.size(file));
+    ctx.log(summary);
+    ctx.setResultSummary(summary);
+  }
+
+  /**
+   * The export file of a job.
+   *
+   * @param jobId the id of the job
+   * @return the file, or empty if the job did not export anything, or did so on another instance,
+   *     or the file has been deleted
+   * @throws IOException if the directory cannot be read
+   */
+  public Optional<Path> fileOf(long jobId) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return Optional.empty();
+    }
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(directory, "*-" + jobId + EXTENSION)) {
+      Iterator<Path> it = files.iterator();
+      return it.hasNext() ? Optional.of(it.next()) : Optional.empty();
+    }
+  }
+
+  /**
+   * Delete the exports and uploads that are older than maxAgeDays; run by the scheduler every
+   * app.export.sweepIntervalMs.
+   */
+  @Scheduled(
+      initialDelayString = "${app.export.sweepIntervalMs:3600000}",
+      fixedDelayString = "${app.export.sweepIntervalMs:3600000}")
+  public void scheduledSweep() {
+    try {
+      sweep();
+    } catch (Exception e) {
+      log.warn("Export sweep failed", e);
+    }
+  }
+
+  /**
+   * Delete the exports (and the files of exports that never finished), and the uploads left by
+   * imports, that are older than maxAgeDays.
+   *
+   * @return the number of files deleted
+   * @throws IOException if a directory cannot be read
+   */
+  public int sweep() throws IOException {
+    FileTime cutoff = FileTime.from(Instant.now().minus(maxAgeDays, ChronoUnit.DAYS));
+    int deleted =
+        deleteOlderThan(directory, "*" + EXTENSION + "*", cutoff)
+            + deleteOlderThan(importDirectory, ImportService.FILE_PREFIX + "*", cutoff);
+    if (deleted > 0) {
+      log.info("Export sweep deleted {} files", deleted);
+    }
+    return deleted;
+  }
+
+  private static int deleteOlderThan(Path dir, String glob, FileTime cutoff) throws IOException {
+    if (!Files.isDirectory(dir)) {
+      return 0;
+    }
+    int deleted = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+      for (Path file : files) {
+        if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+          Files.deleteIfExists(file);
+          deleted++;
+        }
+      }
+    }
+    return deleted;
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An ImportJob imports an uploaded file into a table (see ImportService), and then deletes the
+ * file. If the job never runs (it is rejected, or cancelled while queued), the file is deleted when
+ * the job is discarded.
+ *
+ * <p>It is not in the jobs package on purpose: the file is on this instance's disk, so JobRegistry
+ * should not store the job for another instance to run.
+ */
+public class ImportJob implements JobContextConsumer {
+
+  private final ImportService importService;
+  private final Class<?> entityClass;
+  private final String format;
+  private final Path file;
+
+  ImportJob(ImportService importService, Class<?> entityClass, String format, Path file) {
+    this.importService = importService;
+    this.entityClass = entityClass;
+    this.format = format;
+    this.file = file;
+  }
+
+  @Override
+  public void accept(JobContext ctx) throws Exception {
+    try {
+      importService.importFile(ctx, entityClass, format, file);
+    } finally {
+      deleteFile();
+    }
+  }
+
+  @Override
+  public void onDiscard() throws IOException {
+    deleteFile();
+  }
+
+  private void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+}
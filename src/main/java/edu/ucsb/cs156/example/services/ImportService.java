@@ -0,0 +1,281 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The ImportService loads the rows of a CSV or NDJSON (one JSON object per line) file into a table,
+ * as a job (see ImportJob and /api/jobs/launch/import).
+ *
+ * <p>The file is read as a stream, one row at a time, and the rows are written through
+ * BulkWriteService in batches of app.import.batchSize, each in its own transaction. So neither the
+ * file nor its rows are ever all in memory, and the batches already written stay written if the job
+ * fails or is cancelled part way through. Rows that cannot be read, or that are not valid, are
+ * logged (by their number, counting from 1 and leaving out the CSV header and blank lines) and
+ * skipped.
+ *
+ * <p>Uploads are kept in app.import.directory until their job has run, or is discarded without
+ * running. ExportService.sweep deletes any left behind, e.g. by an instance that stopped.
+ *
+ * <p>CSV files start with a header row naming the fields of the entity (e.g.
+ * diningCommonsCode,name,station); empty cells are missing values. Ids are assigned by the
+ * database, so the rows must not have one.
+ */
+@Service
+public class ImportService {
+
+  /** The tables that rows can be imported into, named as in the paths of their controllers */
+  public static final Map<String, Class<?>> TYPES =
+      new TreeMap<>(
+          Map.of(
+              "ucsbdiningcommonsmenuitem", UCSBDiningCommonsMenuItem.class,
+              "menuitemreview", MenuItemReview.class));
+
+  /** The formats that files can be in */
+  public static final Set<String> FORMATS = Set.of("csv", "ndjson");
+
+  /** At most this many skipped rows are logged one by one */
+  public static final int MAX_LOGGED_ERRORS = 100;
+
+  /** The names of uploaded files start with this */
+  static final String FILE_PREFIX = "import-";
+
+  private static final ObjectReader CSV_READER =
+      CsvMapper.builder()
+          .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+          // the file is closed by importFile, which still needs it at the end of the rows
+          .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+          .build()
+          .readerFor(Map.class)
+          .with(CsvSchema.emptySchema().withHeader());
+
+  @Autowired private BulkWriteService bulkWriteService;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Value("${app.import.directory:${java.io.tmpdir}/imports}")
+  private Path directory;
+
+  @Value("${app.import.batchSize:500}")
+  private int batchSize;
+
+  @Value("${app.bulk.maxItems:1000}")
+  private int maxItems;
+
+  /**
+   * This method saves an uploaded file to a temporary file, and queues a job that imports it.
+   *
+   * @param type the table to import into, one of TYPES
+   * @param format csv or ndjson; if null, it is taken from the extension of the file's name
+   * @param upload the uploaded file
+   * @param priority the priority of the job
+   * @param timeoutSeconds how long the job may run; 0 for the default
+   * @return the job
+   * @throws ResponseStatusException (400 Bad Request) if the type or format is not known
+   * @throws IOException if the file cannot be saved
+   */
+  public Job launch(
+      String type, String format, MultipartFile upload, JobPriority priority, long timeoutSeconds)
+      throws IOException {
+    // if the job never runs, JobService discards it, which deletes the file
+    return jobService.runAsJob(importJob(type, format, upload), priority, timeoutSeconds);
+  }
+
+  private ImportJob importJob(String type, String format, MultipartFile upload) throws IOException {
+    Class<?> entityClass = TYPES.get(type);
+    if (entityClass == null) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "type must be one of " + String.join(", ", TYPES.keySet()));
+    }
+    String fileFormat = format != null ? format : formatOf(upload.getOriginalFilename());
+    if (fileFormat == null || !FORMATS.contains(fileFormat)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+    }
+    Files.createDirectories(directory);
+    Path file = Files.createTempFile(directory, FILE_PREFIX, "." + fileFormat);
+    upload.transferTo(file);
+    return new ImportJob(this, entityClass, fileFormat, file);
+  }
+
+  /** The format that the extension of a file name stands for (ndjson files are often .jsonl). */
+  static String formatOf(String fileName) {
+    String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+    if (name.endsWith(".csv")) {
+      return "csv";
+    }
+    if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+      return "ndjson";
+    }
+    return null;
+  }
+
+  /**
+   * This method imports the rows of a file, reporting its progress through the job context.
+   *
+   * @param ctx the context of the job
+   * @param entityClass the entity class of the rows
+   * @param format csv or ndjson
+   * @param file the file
+   * @param <T> the type of the entities
+   * @throws IOException if the file cannot be read
+   */
+  public <T> void importFile(JobContext ctx, Class<T> entityClass, String format, Path file)
+      throws IOException {
+    try (SeekableByteChannel channel = Files.newByteChannel(file);
+        BufferedReader reader =
+            new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+      ctx.log(
+          "Importing %s rows from a %s file of %d bytes"
+              .formatted(entityClass.getSimpleName(), format, channel.size()));
+      Batches<T> batches = new Batches<>(ctx, entityClass, channel);
+      if (format.equals("csv")) {
+        readCsv(reader, entityClass, batches);
+      } else {
+        readNdjson(reader, entityClass, batches);
+      }
+      batches.write();
+
+      String summary = "Imported %d rows, skipped %d".formatted(batches.imported, batches.skipped);
+      ctx.log(summary);
+      ctx.setResultSummary(summary);
+    }
+  }
+
+  private <T> void readCsv(BufferedReader reader, Class<T> entityClass, Batches<T> batches)
+      throws IOException {
+    MappingIterator<Map<String, String>> rows = CSV_READER.readValues(reader);
+    for (long row = 1; ; row++) {
+      Map<String, String> cells;
+      try {
+        if (!rows.hasNextValue()) {
+          return;
+        }
+        cells = rows.nextValue();
+      } catch (JsonProcessingException e) {
+        // e.g. too many cells; the parser goes on with the next row, or ends if it cannot
+        batches.skip(row, e.getOriginalMessage());
+        continue;
+      }
+      cells.values().removeIf(String::isEmpty);
+      try {
+        batches.add(row, mapper.treeToValue(mapper.valueToTree(cells), entityClass));
+      } catch (JsonProcessingException e) {
+        batches.skip(row, e.getOriginalMessage());
+      }
+    }
+  }
+
+  private <T> void readNdjson(BufferedReader reader, Class<T> entityClass, Batches<T> batches)
+      throws IOException {
+    long row = 0;
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      if (line.isBlank()) {
+        continue;
+      }
+      row++;
+      try {
+        batches.add(row, mapper.readValue(line, entityClass));
+      } catch (JsonProcessingException e) {
+        batches.skip(row, e.getOriginalMessage());
+      }
+    }
+  }
+
+  /** The rows read so far that have not been written yet, with their row numbers. */
+  private class Batches<T> {
+    private final JobContext ctx;
+    private final Class<T> entityClass;
+    private final SeekableByteChannel channel;
+    private final int size = Math.min(batchSize, maxItems);
+    private final List<T> items = new ArrayList<>();
+    private final List<Long> rows = new ArrayList<>();
+    private long imported = 0;
+    private long skipped = 0;
+
+    Batches(JobContext ctx, Class<T> entityClass, SeekableByteChannel channel) {
+      this.ctx = ctx;
+      this.entityClass = entityClass;
+      this.channel = channel;
+    }
+
+    void add(long row, T item) throws IOException {
+      ctx.checkCancelled();
+      items.add(item);
+      rows.add(row);
+      if (items.size() >= size) {
+        write();
+      }
+    }
+
+    void skip(long row, String error) {
+      ctx.checkCancelled();
+      skipped++;
+      if (skipped <= MAX_LOGGED_ERRORS) {
+        ctx.log("Skipped row %d: %s".formatted(row, error));
+      } else if (skipped == MAX_LOGGED_ERRORS + 1) {
+        ctx.log("Further skipped rows are not logged");
+      }
+    }
+
+    /** Writes the batch, skipping the rows that BulkWriteService finds invalid. */
+    void write() throws IOException {
+      if (items.isEmpty()) {
+        return;
+      }
+      List<BulkItemResult<T>> results = bulkWriteService.create(entityClass, items);
+      if (!BulkItemResult.allWritten(results)) {
+        List<T> valid = new ArrayList<>();
+        for (BulkItemResult<T> result : results) {
+          if (result.getStatus().equals(BulkItemResult.INVALID)) {
+            skip(rows.get(result.getIndex()), String.join(", ", result.getErrors()));
+          } else {
+            valid.add(items.get(result.getIndex()));
+          }
+        }
+        results = bulkWriteService.create(entityClass, valid);
+      }
+      imported += results.size();
+      ctx.log("Imported %d rows (up to row %d)".formatted(imported, rows.getLast()));
+      // the reader is ahead of the rows written by at most its buffer, which is close enough
+      ctx.setProgress((double) channel.position() / channel.size());
+      items.clear();
+      rows.clear();
+    }
+  }
+}
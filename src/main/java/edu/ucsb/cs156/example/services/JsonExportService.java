@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that writes the rows of a table as a JSON array while they are read from the
+ * database.
+ *
+ * <p>Rows come from a repository Stream (read with a JDBC fetch size, see the streamAllBy methods)
+ * and each one is detached once written, so the memory used does not depend on the number of rows.
+ */
+@Service
+public class JsonExportService {
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private EntityManager entityManager;
+
+  /**
+   * Write rows as a JSON array.
+   *
+   * @param rows opens the stream of rows (it is opened and closed within this method's transaction)
+   * @param out where to write the array; it is flushed but not closed
+   * @param <T> the type of the rows
+   * @throws IOException if the array cannot be written
+   */
+  @Transactional(readOnly = true)
+  public <T> void writeJsonArray(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (JsonGenerator json =
+            mapper
+                .getFactory()
+                .createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        Stream<T> stream = rows.get()) {
+      json.writeStartArray();
+      stream.forEach(
+          row -> {
+            try {
+              writer.writeValue(json, row);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            entityManager.detach(row);
+          });
+      json.writeEndArray();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service for Hibernate's second-level cache, which holds the reference entities
+ * (UCSBDiningCommons, UCSBOrganization, UCSBDate and Restaurant, marked with @Cache) and the
+ * results of their cacheable queries. Its regions are set up in SecondLevelCacheConfig.
+ *
+ * <p>Hibernate keeps the cache up to date with the writes it makes itself. The controllers also
+ * call evict after they write one of these entities, so that nothing stale is left behind by a
+ * write made some other way (e.g. a bulk update).
+ */
+@Service
+public class SecondLevelCacheService {
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private SessionFactory sessionFactory() {
+    return entityManagerFactory.unwrap(SessionFactory.class);
+  }
+
+  /**
+   * Drop all the cached entities of a type, and all cached query results.
+   *
+   * @param entityClass the type of entity that was written
+   */
+  public void evict(Class<?> entityClass) {
+    org.hibernate.Cache cache = sessionFactory().getCache();
+    cache.evictEntityData(entityClass);
+    cache.evictQueryRegions();
+  }
+
+  /** Drop everything in the second-level cache. */
+  public void evictAll() {
+    sessionFactory().getCache().evictAll();
+  }
+
+  /**
+   * Get the hit/miss counts of each entity region, followed by those of the query cache.
+   *
+   * @return the counts, one entry per region
+   */
+  public List<CacheRegionStats> getStatistics() {
+    Statistics statistics = sessionFactory().getStatistics();
+    List<CacheRegionStats> regions = new ArrayList<>();
+    Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+        .sorted()
+        .forEach(
+            name -> {
+              CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+              regions.add(
+                  CacheRegionStats.builder()
+                      .region(name)
+                      .hitCount(region.getHitCount())
+                      .missCount(region.getMissCount())
+                      .putCount(region.getPutCount())
+                      .build());
+            });
+    regions.add(
+        CacheRegionStats.builder()
+            .region(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)
+            .hitCount(statistics.getQueryCacheHitCount())
+            .missCount(statistics.getQueryCacheMissCount())
+            .putCount(statistics.getQueryCachePutCount())
+            .build());
+    return regions;
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * This is a JPA entity listener that bumps the version of an entity's table (see
+ * TableVersionService) whenever an entity is inserted, updated or deleted.
+ */
+@Component
+public class TableVersionListener {
+
+  @Autowired private TableVersionService tableVersionService;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void tableChanged(Object entity) {
+    tableVersionService.bump(TableVersionService.tableOf(Hibernate.getClass(entity)));
+  }
+}
@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.persistence.Entity;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This is a service that keeps a version number for each table, so that list and detail endpoints
+ * can send an ETag and answer "304 Not Modified" when the table has not changed.
+ *
+ * <p>Versions are stored in TABLE_VERSIONS, which has one row per table, and are bumped by
+ * TableVersionListener in the same transaction as the write. The ETag also has the time the row was
+ * created, so that a database that is recreated (e.g. the in-memory H2 database in development)
+ * does not hand out ETags that browsers have cached for the old data.
+ *
+ * <p>The ETags are weak (W/"..."): Tomcat does not gzip a response that has a strong ETag, and
+ * If-None-Match only needs weak comparison.
+ *
+ * <p>Only writes made through JPA entities bump the version; bulk JPQL or SQL updates of these
+ * tables must call bump themselves.
+ */
+@Service
+public class TableVersionService {
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  /**
+   * This method returns the name of the table of an entity class, which is the key of its version.
+   *
+   * @param entityClass the entity class
+   * @return the name given in its @Entity annotation
+   */
+  public static String tableOf(Class<?> entityClass) {
+    return entityClass.getAnnotation(Entity.class).name();
+  }
+
+  /**
+   * This method returns the current ETag of the table of an entity class.
+   *
+   * @param entityClass the entity class
+   * @return the weak ETag (with W/ and quotes), or null if the table has no version
+   */
+  public String etag(Class<?> entityClass) {
+    String table = tableOf(entityClass);
+    List<String> etags =
+        jdbcTemplate.query(
+            "SELECT CREATED_AT, VERSION FROM TABLE_VERSIONS WHERE TABLE_NAME = ?",
+            (rs, rowNum) ->
+                "W/\"%s-%d-%d\""
+                    .formatted(
+                        table, rs.getTimestamp("CREATED_AT").getTime(), rs.getLong("VERSION")),
+            table);
+    return etags.isEmpty() ? null : etags.get(0);
+  }
+
+  /**
+   * This method bumps the version of a table. Within a transaction, only the first call for each
+   * table writes, since the new version is committed (or rolled back) with the transaction.
+   *
+   * @param table the name of the table
+   */
+  public void bump(String table) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()
+        && !firstBumpInTransaction(table)) {
+      return;
+    }
+    int updated =
+        jdbcTemplate.update(
+            "UPDATE TABLE_VERSIONS SET VERSION = VERSION + 1 WHERE TABLE_NAME = ?", table);
+    if (updated == 0) {
+      // a table that the changelog does not list yet
+      jdbcTemplate.update(
+          "INSERT INTO TABLE_VERSIONS (TABLE_NAME, VERSION, CREATED_AT) VALUES (?, 1, ?)",
+          table,
+          new Timestamp(System.currentTimeMillis()));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean firstBumpInTransaction(String table) {
+    Set<String> bumped = (Set<String>) TransactionSynchronizationManager.getResource(this);
+    if (bumped == null) {
+      bumped = new HashSet<>();
+      TransactionSynchronizationManager.bindResource(this, bumped);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(TableVersionService.this);
+            }
+          });
+    }
+    return bumped.add(table);
+  }
+}
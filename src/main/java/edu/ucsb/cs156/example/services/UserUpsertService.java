@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that stores the profile of a user who logs in with OAuth2.
+ *
+ * <p>Users are unique by email (index USERS_EMAIL_UK). A new user is inserted; if another request
+ * inserted the same user first, the insert fails on the unique index and that user is used instead.
+ * An existing user is only written when their profile (or admin flag) actually changed, so most
+ * logins cost no write at all.
+ *
+ * <p>The stored users are also cached by email (bounded by app.users.cache.maxSize, each entry
+ * expiring after app.users.cache.ttlSeconds), so that CurrentUserServiceImpl need not query the
+ * users table on most requests. Since every write of a user goes through upsert, which caches what
+ * it wrote, the cache is never behind the database. A profile that matches its cached user is
+ * answered from the cache; one that differs (e.g. a new name or picture from the provider) is
+ * stored at once.
+ */
+@Slf4j
+@Service
+public class UserUpsertService {
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private AdminService adminService;
+
+  @Value("${app.users.cache.maxSize:10000}")
+  private long userCacheMaxSize;
+
+  @Value("${app.users.cache.ttlSeconds:300}")
+  private long userCacheTtlSeconds;
+
+  private Cache<String, User> userCache;
+
+  @PostConstruct
+  void createUserCache() {
+    userCache =
+        Caffeine.newBuilder()
+            .maximumSize(userCacheMaxSize)
+            .expireAfterWrite(Duration.ofSeconds(userCacheTtlSeconds))
+            .build();
+  }
+
+  /**
+   * The user with the given email, as last stored by upsert, if it is still cached.
+   *
+   * @param email the email of the user
+   * @return the user, or null if it is not cached
+   */
+  User getCachedUser(String email) {
+    return userCache.getIfPresent(email);
+  }
+
+  /**
+   * Insert or update the user with the email of the given profile.
+   *
+   * <p>The profile's admin flag can only promote a user: an existing admin stays an admin.
+   *
+   * @param profile the user as described by the OAuth2 provider (its id is ignored)
+   * @return the stored user, which is also cached
+   */
+  public User upsert(User profile) {
+    User cached = userCache.getIfPresent(profile.getEmail());
+    if (cached != null) {
+      profile.setId(cached.getId());
+      profile.setAdmin(cached.getAdmin() || profile.getAdmin());
+      if (profile.equals(cached)) {
+        return cached;
+      }
+    }
+    User user = store(profile);
+    userCache.put(user.getEmail(), user);
+    return user;
+  }
+
+  private User store(User profile) {
+    Optional<User> existing = userRepository.findByEmail(profile.getEmail());
+    if (existing.isEmpty()) {
+      try {
+        return userRepository.save(profile);
+      } catch (DataIntegrityViolationException e) {
+        // another request inserted this user first
+        existing = userRepository.findByEmail(profile.getEmail());
+        if (existing.isEmpty()) {
+          throw e;
+        }
+        log.debug("user {} was inserted concurrently", profile.getEmail());
+      }
+    }
+
+    User user = existing.get();
+    profile.setId(user.getId());
+    profile.setAdmin(user.getAdmin() || profile.getAdmin());
+    if (profile.equals(user)) {
+      return user;
+    }
+    User saved = userRepository.save(profile);
+    if (saved.getAdmin() != user.getAdmin()) {
+      adminService.evict(saved.getEmail());
+    }
+    return saved;
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * Thrown by JobContext.checkCancelled when the job has been cancelled or has run past its timeout.
+ * Jobs normally just let it propagate, so that JobService can record the final status.
+ */
+public class JobCancelledException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param status the status the job will end with, i.e. "cancelled" or "timeout"
+   */
+  public JobCancelledException(String status) {
+    super("Job %s".formatted(status));
+  }
+}
@@ -1,20 +1,291 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
+  /** Job.log only keeps (at most) this many characters from the end of the log */
+  public static final int MAX_LOG_TAIL_LENGTH = 4096;
+
+  /** Number of buffered lines that triggers a flush, unless configured otherwise */
+  public static final int DEFAULT_FLUSH_LINES = 50;
+
+  /** Job.resultSummary keeps at most this many characters */
+  public static final int MAX_RESULT_SUMMARY_LENGTH = 1024;
+
+  private JobLogLinesRepository jobLogLinesRepository;
   private Job job;
+  private int flushLines;
+  private Consumer<List<JobLogLine>> onFlush;
+  private long nextSeq = 0;
+  private List<JobLogLine> buffer = new ArrayList<>();
+
+  /** held while a batch is written and passed to onFlush, so that batches are written in order */
+  private final Object flushLock = new Object();
+
+  private long deadline = Long.MAX_VALUE; // in epoch millis
+  private Thread runner;
+  private volatile String cancelStatus;
+
+  private volatile Double progress;
+  private volatile boolean progressChanged = false;
+  private volatile String resultSummary;
+
+  public JobContext(JobLogLinesRepository jobLogLinesRepository, Job job) {
+    this(jobLogLinesRepository, job, DEFAULT_FLUSH_LINES);
+  }
+
+  public JobContext(JobLogLinesRepository jobLogLinesRepository, Job job, int flushLines) {
+    this(jobLogLinesRepository, job, flushLines, lines -> {});
+  }
+
+  /**
+   * Create a context for a job.
+   *
+   * @param jobLogLinesRepository where log lines are written (may be null)
+   * @param job the job
+   * @param flushLines number of buffered lines that triggers a flush
+   * @param onFlush called with each batch of lines once it has been written
+   */
+  public JobContext(
+      JobLogLinesRepository jobLogLinesRepository,
+      Job job,
+      int flushLines,
+      Consumer<List<JobLogLine>> onFlush) {
+    this.jobLogLinesRepository = jobLogLinesRepository;
+    this.job = job;
+    this.flushLines = flushLines;
+    this.onFlush = onFlush;
+  }
 
+  /**
+   * Append a line to the log of the job. The full log is stored one row per line; the job itself
+   * only keeps the tail of the log, which is saved along with the job status.
+   *
+   * <p>Lines are buffered and written in one batch once flushLines lines are waiting; JobService
+   * also flushes every context periodically and when the job ends.
+   *
+   * @param message the line to append
+   */
   public void log(String message) {
     log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    String line = String.valueOf(message);
+    boolean full;
+    synchronized (this) {
+      job.setLog(appendToTail(job.getLog(), line));
+      buffer.add(
+          JobLogLine.builder()
+              .jobId(job.getId())
+              .seq(nextSeq)
+              .loggedAt(ZonedDateTime.now())
+              .message(line)
+              .build());
+      nextSeq++;
+      full = buffer.size() >= flushLines;
+    }
+    if (full) {
+      flush();
+    }
+  }
+
+  /**
+   * Write all buffered lines to the database as a single batch, then pass them on to onFlush (e.g.
+   * for streaming to clients). If the write fails the lines go back to the front of the buffer, so
+   * that the next flush can retry them.
+   *
+   * <p>The buffer is only swapped for an empty one under this context's lock; the write and onFlush
+   * run without it, so the job can go on logging during the database round trip.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<JobLogLine> flushed;
+      synchronized (this) {
+        if (buffer.isEmpty()) {
+          return;
+        }
+        flushed = buffer;
+        buffer = new ArrayList<>();
+      }
+      if (jobLogLinesRepository != null) {
+        try {
+          jobLogLinesRepository.saveAll(flushed);
+        } catch (RuntimeException e) {
+          synchronized (this) {
+            flushed.addAll(buffer);
+            buffer = flushed;
+          }
+          throw e;
+        }
+      }
+      onFlush.accept(flushed);
+    }
+  }
+
+  /**
+   * Report how much of its work the job has done. This only records the value; JobService writes it
+   * to the database along with the periodic log flush, so jobs may call it as often as they like.
+   *
+   * @param fraction from 0 (nothing done yet) to 1 (all done); other values are clamped
+   */
+  public void setProgress(double fraction) {
+    progress = Math.max(0.0, Math.min(1.0, fraction));
+    progressChanged = true;
+  }
+
+  /**
+   * The progress last reported with setProgress.
+   *
+   * @return the fraction of the work done, or null if the job has not reported any
+   */
+  public Double getProgress() {
+    return progress;
+  }
+
+  /**
+   * Take the progress reported since the last call, if it has changed.
+   *
+   * @return the progress, or null if it has not changed since the last call
+   */
+  Double takeProgressUpdate() {
+    if (!progressChanged) {
+      return null;
+    }
+    progressChanged = false;
+    return progress;
+  }
+
+  /**
+   * Set a short, human-readable summary of what the job did (e.g. "imported 120 rows"), which is
+   * saved with the job when it ends.
+   *
+   * @param summary the summary; cut to MAX_RESULT_SUMMARY_LENGTH characters
+   */
+  public void setResultSummary(String summary) {
+    resultSummary =
+        summary != null && summary.length() > MAX_RESULT_SUMMARY_LENGTH
+            ? summary.substring(0, MAX_RESULT_SUMMARY_LENGTH)
+            : summary;
+  }
+
+  public String getResultSummary() {
+    return resultSummary;
+  }
+
+  /**
+   * Jobs that run for a long time should call this every so often (e.g. once per item they
+   * process), so that they stop promptly when cancelled.
+   *
+   * @return whether the job has been cancelled or has timed out
+   */
+  public boolean isCancelled() {
+    return cancelStatus != null;
+  }
+
+  /**
+   * Throw a JobCancelledException if the job has been cancelled or has timed out.
+   *
+   * @throws JobCancelledException if the job should stop
+   */
+  public void checkCancelled() {
+    String status = cancelStatus;
+    if (status != null) {
+      throw new JobCancelledException(status);
+    }
+  }
+
+  /**
+   * The status the job will end with, if it has been stopped.
+   *
+   * @return "cancelled" or "timeout" if the job has been stopped, null otherwise
+   */
+  public String getCancelStatus() {
+    return cancelStatus;
+  }
+
+  /**
+   * The id of the job, e.g. to name the files it writes.
+   *
+   * @return the id of the job
+   */
+  public long getJobId() {
+    return job.getId();
+  }
+
+  /**
+   * Number the next log line seq, e.g. to continue the log of a job that is run again.
+   *
+   * @param seq the sequence number for the next line
+   */
+  synchronized void setNextSeq(long seq) {
+    nextSeq = seq;
+  }
+
+  void setTimeoutMs(long timeoutMs) {
+    deadline = timeoutMs > 0 ? System.currentTimeMillis() + timeoutMs : Long.MAX_VALUE;
+  }
+
+  boolean isPastDeadline(long now) {
+    return now >= deadline;
+  }
+
+  /**
+   * Record the thread that runs the job, so that cancel can interrupt it.
+   *
+   * @param thread the thread running the job
+   */
+  synchronized void attach(Thread thread) {
+    runner = thread;
+  }
+
+  /**
+   * Forget the thread that ran the job, clearing any interrupt that cancel left on it so that it
+   * does not leak into the next job run by the same executor thread.
+   */
+  synchronized void detach() {
+    runner = null;
+    Thread.interrupted();
+  }
+
+  /**
+   * Ask the job to stop: sets the flag that isCancelled reports, and interrupts the job's thread so
+   * that a job which is sleeping or blocked wakes up.
+   *
+   * @param status the status the job should end with, i.e. "cancelled" or "timeout"
+   * @return false if the job is not running (anymore)
+   */
+  synchronized boolean cancel(String status) {
+    if (runner == null) {
+      return false;
+    }
+    if (cancelStatus == null) {
+      cancelStatus = status;
+    }
+    runner.interrupt();
+    return true;
+  }
+
+  /**
+   * Append a line to a log, dropping whole lines from the front so that the result is no longer
+   * than MAX_LOG_TAIL_LENGTH characters.
+   *
+   * @param previousLog the log so far (may be null)
+   * @param line the line to append
+   * @return the new (bounded) log
+   */
+  static String appendToTail(String previousLog, String line) {
+    String newLog = previousLog == null ? line : previousLog + "\n" + line;
+    if (newLog.length() <= MAX_LOG_TAIL_LENGTH) {
+      return newLog;
+    }
+    String tail = newLog.substring(newLog.length() - MAX_LOG_TAIL_LENGTH);
+    int firstNewline = tail.indexOf('\n');
+    return firstNewline >= 0 ? tail.substring(firstNewline + 1) : tail;
   }
 }
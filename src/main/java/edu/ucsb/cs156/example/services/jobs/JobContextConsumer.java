@@ -3,4 +3,13 @@ package edu.ucsb.cs156.example.services.jobs;
 @FunctionalInterface
 public interface JobContextConsumer {
   void accept(JobContext c) throws Exception;
+
+  /**
+   * Called instead of accept when the job ends without ever running on this worker, i.e. when it is
+   * rejected or cancelled while queued, so that it can release what it holds (e.g. a file it was
+   * going to read).
+   *
+   * @throws Exception if the resources cannot be released
+   */
+  default void onDiscard() throws Exception {}
 }
@@ -0,0 +1,219 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This service streams job log lines to clients as Server-Sent Events.
+ *
+ * <p>A client first gets the lines already in the database after the last sequence number it has
+ * seen, and then each new batch of lines as JobContext flushes it, so that it never has to reload
+ * the whole log. Each line is sent as a "log" event whose id is the line's sequence number; when
+ * the job ends an "end" event carries its final status and the stream is closed.
+ *
+ * <p>Lines and end events are sent on a thread of their own, in the order they were published, so
+ * that a job never waits for a slow client.
+ */
+@Service
+@Slf4j
+public class JobLogStreamService {
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Value("${app.jobs.log.streamTimeoutMs:1800000}")
+  private long streamTimeoutMs = 1800000;
+
+  private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+  /** sends published lines and end events to the clients, one at a time */
+  private ExecutorService sender =
+      Executors.newSingleThreadExecutor(
+          Thread.ofPlatform().name("job-log-stream").daemon().factory());
+
+  /**
+   * Open a stream of the log of a job.
+   *
+   * @param job the job
+   * @param lastSeenSeq sequence number of the last line the client already has (-1 for none)
+   * @return the emitter for the stream
+   */
+  public SseEmitter stream(Job job, long lastSeenSeq) {
+    long jobId = job.getId();
+    SseEmitter emitter = createEmitter();
+    Subscriber subscriber = new Subscriber(emitter, lastSeenSeq);
+
+    // subscribe before reading the database, so that no flushed batch falls in between; batches
+    // published meanwhile are held by the subscriber until the lines read have been sent
+    subscribers.computeIfAbsent(jobId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    emitter.onCompletion(() -> unsubscribe(jobId, subscriber));
+    emitter.onTimeout(() -> unsubscribe(jobId, subscriber));
+    emitter.onError(e -> unsubscribe(jobId, subscriber));
+
+    subscriber.replay(
+        jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(jobId, lastSeenSeq));
+
+    // JobService saves the final status before calling jobEnded, so if the job ended before we
+    // subscribed, the status we read now is already final; the end is sent after any lines that
+    // are still waiting to be sent
+    String status = jobsRepository.findById(jobId).map(Job::getStatus).orElse(job.getStatus());
+    if (!isActive(status)) {
+      sender.execute(() -> subscriber.end(status));
+    }
+    return emitter;
+  }
+
+  /**
+   * Send a batch of newly written lines to every client streaming the job's log.
+   *
+   * @param jobId id of the job
+   * @param lines the lines, in order
+   */
+  public void publish(long jobId, List<JobLogLine> lines) {
+    sender.execute(
+        () -> {
+          for (Subscriber subscriber : subscribers.getOrDefault(jobId, Set.of())) {
+            subscriber.publish(lines);
+          }
+        });
+  }
+
+  /**
+   * Tell every client streaming the job's log that the job has ended, and close their streams.
+   *
+   * @param jobId id of the job
+   * @param status the final status of the job
+   */
+  public void jobEnded(long jobId, String status) {
+    sender.execute(
+        () -> {
+          Set<Subscriber> jobSubscribers = subscribers.remove(jobId);
+          if (jobSubscribers != null) {
+            for (Subscriber subscriber : jobSubscribers) {
+              subscriber.end(status);
+            }
+          }
+        });
+  }
+
+  @PreDestroy
+  void shutdown() {
+    sender.shutdownNow();
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(streamTimeoutMs);
+  }
+
+  int getSubscriberCount(long jobId) {
+    return subscribers.getOrDefault(jobId, Set.of()).size();
+  }
+
+  static boolean isActive(String status) {
+    return "queued".equals(status) || "running".equals(status);
+  }
+
+  private void unsubscribe(long jobId, Subscriber subscriber) {
+    subscribers.computeIfPresent(
+        jobId,
+        (k, jobSubscribers) -> {
+          jobSubscribers.remove(subscriber);
+          return jobSubscribers.isEmpty() ? null : jobSubscribers;
+        });
+  }
+
+  /**
+   * One client's stream, remembering the last line sent so that lines both replayed and published
+   * are not repeated.
+   *
+   * <p>Until the lines read from the database have been sent, published batches and the end of the
+   * job are held back, since they may come after lines that have not been sent yet.
+   */
+  private static class Subscriber {
+    private final SseEmitter emitter;
+    private long lastSentSeq;
+    private boolean done = false;
+    private List<List<JobLogLine>> pending = new ArrayList<>();
+    private String pendingEnd;
+
+    Subscriber(SseEmitter emitter, long lastSentSeq) {
+      this.emitter = emitter;
+      this.lastSentSeq = lastSentSeq;
+    }
+
+    /** Send the lines read from the database, then whatever was held back meanwhile. */
+    synchronized void replay(List<JobLogLine> lines) {
+      send(lines);
+      for (List<JobLogLine> batch : pending) {
+        send(batch);
+      }
+      pending = null;
+      if (pendingEnd != null) {
+        end(pendingEnd);
+      }
+    }
+
+    synchronized void publish(List<JobLogLine> lines) {
+      if (pending != null) {
+        pending.add(lines);
+      } else {
+        send(lines);
+      }
+    }
+
+    private void send(List<JobLogLine> lines) {
+      try {
+        for (JobLogLine line : lines) {
+          if (done || line.getSeq() <= lastSentSeq) {
+            continue;
+          }
+          emitter.send(
+              SseEmitter.event()
+                  .id(String.valueOf(line.getSeq()))
+                  .name("log")
+                  .data(line.getMessage()));
+          lastSentSeq = line.getSeq();
+        }
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Job log stream closed by client", e);
+        done = true;
+        emitter.completeWithError(e);
+      }
+    }
+
+    synchronized void end(String status) {
+      if (pending != null) {
+        pendingEnd = status;
+        return;
+      }
+      if (done) {
+        return;
+      }
+      done = true;
+      try {
+        emitter.send(SseEmitter.event().name("end").data(String.valueOf(status)));
+        emitter.complete();
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Job log stream closed by client", e);
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
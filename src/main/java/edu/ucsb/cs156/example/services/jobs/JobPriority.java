@@ -0,0 +1,8 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/** Priority levels for jobs waiting in the JobScheduler; higher priorities start first. */
+public enum JobPriority {
+  LOW,
+  NORMAL,
+  HIGH
+}
@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This service keeps the jobs table usable as a queue shared by several workers (app instances).
+ *
+ * <p>Every job is claimed by one worker (Job.claimedBy), which runs it and sends a heartbeat for it
+ * every heartbeatIntervalMs. A worker claims queued jobs that nobody holds with a row lock (SELECT
+ * ... FOR UPDATE SKIP LOCKED), so two workers never claim the same job. When a worker stops (e.g.
+ * the app restarts), its jobs stop getting heartbeats; after staleAfterMs any worker puts them back
+ * in the queue if JobRegistry can recreate them and they have not yet been tried maxAttempts times,
+ * and ends them with status "error" otherwise. A job may therefore run more than once, but a job
+ * that was started is never silently forgotten.
+ */
+@Service
+@Slf4j
+public class JobQueueService {
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobRegistry jobRegistry;
+
+  @Autowired private JobScheduler jobScheduler;
+
+  @Value("${app.jobs.queue.staleAfterMs:60000}")
+  private long staleAfterMs = 60000;
+
+  @Value("${app.jobs.queue.maxAttempts:3}")
+  private int maxAttempts = 3;
+
+  private final String workerId = UUID.randomUUID().toString();
+
+  /**
+   * The id this worker claims jobs with; a new one is chosen every time the app starts.
+   *
+   * @return the worker id
+   */
+  public String getWorkerId() {
+    return workerId;
+  }
+
+  /**
+   * Claim up to limit queued jobs that no worker holds, highest priority first.
+   *
+   * @param limit the most jobs to claim
+   * @return the jobs claimed
+   */
+  @Transactional
+  public List<Job> claim(int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    List<Job> jobs = jobsRepository.findUnclaimedQueuedJobs(PageRequest.of(0, limit));
+    ZonedDateTime now = ZonedDateTime.now();
+    for (Job job : jobs) {
+      job.setClaimedBy(workerId);
+      job.setHeartbeatAt(now);
+    }
+    jobsRepository.saveAll(jobs);
+    return jobs;
+  }
+
+  /** Tell the other workers that this worker still holds its queued and running jobs. */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.heartbeatIntervalMs:10000}")
+  public void heartbeat() {
+    List<Long> ids = jobScheduler.getJobIds();
+    if (ids.isEmpty()) {
+      return;
+    }
+    try {
+      jobsRepository.heartbeat(ids, workerId, ZonedDateTime.now());
+    } catch (Exception e) {
+      log.warn("Could not send job heartbeat", e);
+    }
+  }
+
+  /**
+   * Requeue (or, if they cannot be run again, fail) the jobs whose worker has stopped. This runs
+   * when the app starts, and then every orphanCheckIntervalMs.
+   *
+   * @return the number of jobs requeued
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.orphanCheckIntervalMs:30000}")
+  public int recoverOrphanedJobs() {
+    int requeued = 0;
+    try {
+      ZonedDateTime now = ZonedDateTime.now();
+      ZonedDateTime staleBefore = now.minus(Duration.ofMillis(staleAfterMs));
+      for (Job job : jobsRepository.findOrphanedJobs(staleBefore)) {
+        if (!jobRegistry.canCreate(job)) {
+          if (jobsRepository.failIfOrphaned(
+                  job.getId(), staleBefore, now, "Job lost: its worker stopped before it finished")
+              > 0) {
+            log.warn("Job {} was lost when its worker stopped", job.getId());
+          }
+        } else if (job.getAttempts() >= maxAttempts) {
+          if (jobsRepository.failIfOrphaned(
+                  job.getId(),
+                  staleBefore,
+                  now,
+                  "Job gave up: its worker stopped %d times".formatted(job.getAttempts()))
+              > 0) {
+            log.warn("Job {} gave up after {} attempts", job.getId(), job.getAttempts());
+          }
+        } else if (jobsRepository.requeueIfOrphaned(job.getId(), staleBefore) > 0) {
+          log.info("Job {} requeued after its worker stopped", job.getId());
+          requeued++;
+        }
+      }
+    } catch (Exception e) {
+      log.warn("Could not recover orphaned jobs", e);
+    }
+    return requeued;
+  }
+}
@@ -0,0 +1,113 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * The JobRegistry knows the job classes (the JobContextConsumer implementations in the jobs
+ * package), so that a job can be stored as its type and parameters and run later by any worker.
+ *
+ * <p>A job's parameters are its fields, written as JSON with the application's ObjectMapper; a job
+ * class only needs to be (de)serializable by Jackson, e.g. with Lombok's {@code @Getter} and
+ * {@code @Jacksonized @Builder}. Jobs that are not registered (e.g. lambdas) still run, but only on
+ * the instance that created them.
+ */
+@Component
+@Slf4j
+public class JobRegistry {
+
+  /** The package that is scanned for job classes */
+  public static final String JOBS_PACKAGE = "edu.ucsb.cs156.example.jobs";
+
+  private final ObjectMapper mapper;
+
+  private final Map<String, Class<? extends JobContextConsumer>> jobClasses = new TreeMap<>();
+
+  @Autowired
+  public JobRegistry(ObjectMapper mapper) {
+    this(mapper, JOBS_PACKAGE);
+  }
+
+  JobRegistry(ObjectMapper mapper, String jobsPackage) {
+    this.mapper = mapper;
+    ClassPathScanningCandidateComponentProvider scanner =
+        new ClassPathScanningCandidateComponentProvider(false);
+    scanner.addIncludeFilter(new AssignableTypeFilter(JobContextConsumer.class));
+    scanner
+        .findCandidateComponents(jobsPackage)
+        .forEach(
+            candidate -> {
+              Class<?> jobClass = ClassUtils.resolveClassName(candidate.getBeanClassName(), null);
+              register(jobClass.asSubclass(JobContextConsumer.class));
+            });
+  }
+
+  /**
+   * Register a job class, under its simple name.
+   *
+   * @param jobClass the job class
+   */
+  void register(Class<? extends JobContextConsumer> jobClass) {
+    jobClasses.put(jobClass.getSimpleName(), jobClass);
+  }
+
+  /**
+   * The parameters to store for a job function, if its class is registered.
+   *
+   * @param jobFunction the job function
+   * @return the fields of the job function as JSON, or empty if it cannot be stored
+   */
+  public Optional<String> paramsOf(JobContextConsumer jobFunction) {
+    if (jobClasses.get(jobFunction.getClass().getSimpleName()) != jobFunction.getClass()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(mapper.writeValueAsString(jobFunction));
+    } catch (JsonProcessingException e) {
+      log.warn("Could not store the parameters of {}", jobFunction.getClass().getName(), e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Recreate the job function of a stored job.
+   *
+   * @param job the job
+   * @return the job function, or empty if the job's type is unknown or it has no parameters
+   */
+  public Optional<JobContextConsumer> create(Job job) {
+    if (job.getJobType() == null || job.getParams() == null) {
+      return Optional.empty();
+    }
+    Class<? extends JobContextConsumer> jobClass = jobClasses.get(job.getJobType());
+    if (jobClass == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(mapper.readValue(job.getParams(), jobClass));
+    } catch (JsonProcessingException e) {
+      log.warn("Could not recreate job {} of type {}", job.getId(), job.getJobType(), e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Whether a stored job can be recreated (and so run again by any worker).
+   *
+   * @param job the job
+   * @return true if create would return a job function
+   */
+  public boolean canCreate(Job job) {
+    return create(job).isPresent();
+  }
+}
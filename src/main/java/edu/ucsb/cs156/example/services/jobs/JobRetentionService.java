@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service periodically deletes old jobs, together with their log lines, so that the jobs
+ * tables do not grow without bound.
+ *
+ * <p>A finished job is deleted once it is older than maxAgeDays, or once there are more than
+ * maxJobs newer finished jobs. Queued and running jobs are never deleted. Jobs are deleted
+ * batchSize at a time, each batch in its own short statements, so that the sweep never holds locks
+ * on many rows at once.
+ */
+@Service
+@Slf4j
+public class JobRetentionService {
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Value("${app.jobs.retention.maxAgeDays:30}")
+  private int maxAgeDays = 30;
+
+  @Value("${app.jobs.retention.maxJobs:10000}")
+  private int maxJobs = 10000;
+
+  @Value("${app.jobs.retention.batchSize:500}")
+  private int batchSize = 500;
+
+  /** Delete the jobs that are past the retention limits; run by the scheduler. */
+  @Scheduled(
+      initialDelayString = "${app.jobs.retention.sweepIntervalMs:3600000}",
+      fixedDelayString = "${app.jobs.retention.sweepIntervalMs:3600000}")
+  public void scheduledSweep() {
+    try {
+      sweep();
+    } catch (Exception e) {
+      log.warn("Job retention sweep failed", e);
+    }
+  }
+
+  /**
+   * Delete the jobs that are past the retention limits.
+   *
+   * @return the number of jobs deleted
+   */
+  public int sweep() {
+    int deleted = 0;
+    if (maxAgeDays > 0) {
+      ZonedDateTime cutoff = ZonedDateTime.now().minusDays(maxAgeDays);
+      deleted +=
+          deleteInBatches(batch -> jobsRepository.findFinishedJobIdsCreatedBefore(cutoff, batch));
+    }
+    if (maxJobs > 0) {
+      // the newest maxJobs finished jobs are kept; everything from the next one down goes
+      List<Long> firstExcess =
+          jobsRepository.findFinishedJobIdsNewestFirst(PageRequest.of(maxJobs, 1));
+      if (!firstExcess.isEmpty()) {
+        long maxId = firstExcess.get(0);
+        deleted += deleteInBatches(batch -> jobsRepository.findFinishedJobIdsUpTo(maxId, batch));
+      }
+    }
+    if (deleted > 0) {
+      log.info("Job retention sweep deleted {} jobs", deleted);
+    }
+    return deleted;
+  }
+
+  private int deleteInBatches(Function<Pageable, List<Long>> findBatch) {
+    int deleted = 0;
+    while (true) {
+      List<Long> ids = findBatch.apply(PageRequest.of(0, batchSize));
+      if (ids.isEmpty()) {
+        return deleted;
+      }
+      jobLogLinesRepository.deleteByJobIdIn(ids);
+      deleted += jobsRepository.deleteByIdIn(ids);
+      if (ids.size() < batchSize) {
+        return deleted;
+      }
+    }
+  }
+}
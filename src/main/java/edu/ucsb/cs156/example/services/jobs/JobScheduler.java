@@ -0,0 +1,188 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The JobScheduler decides which queued jobs may start.
+ *
+ * <p>At most maxConcurrentJobs jobs run at once, and at most maxConcurrentJobsPerUser of them may
+ * belong to the same user (Job.createdBy). Among the jobs that are allowed to start, higher
+ * priority goes first; within a priority, the user with the fewest running jobs goes first, so that
+ * one heavy user cannot starve everyone else; ties are broken first come, first served.
+ *
+ * <p>The scheduler only keeps the bookkeeping; JobService saves the jobs and hands them to the
+ * executor.
+ */
+@Component
+public class JobScheduler {
+
+  /** A job waiting for (or holding) a slot in the scheduler */
+  record ScheduledJob(
+      Job job,
+      JobContextConsumer jobFunction,
+      JobPriority priority,
+      long timeoutMs,
+      long seq,
+      Long userId) {}
+
+  private final int maxConcurrentJobs;
+  private final int maxConcurrentJobsPerUser;
+  private final int maxQueuedJobs;
+
+  private final List<ScheduledJob> queue = new ArrayList<>();
+  private final Map<Job, ScheduledJob> running = new IdentityHashMap<>();
+  private final Map<Long, Integer> runningPerUser = new HashMap<>();
+  private long nextSeq = 0;
+
+  public JobScheduler(
+      @Value("${app.jobs.scheduler.maxConcurrentJobs:4}") int maxConcurrentJobs,
+      @Value("${app.jobs.scheduler.maxConcurrentJobsPerUser:2}") int maxConcurrentJobsPerUser,
+      @Value("${app.jobs.scheduler.maxQueuedJobs:1000}") int maxQueuedJobs) {
+    this.maxConcurrentJobs = maxConcurrentJobs;
+    this.maxConcurrentJobsPerUser = maxConcurrentJobsPerUser;
+    this.maxQueuedJobs = maxQueuedJobs;
+  }
+
+  /**
+   * Add a job to the queue.
+   *
+   * @param job the job, which should already be saved with status "queued"
+   * @param jobFunction the code the job runs
+   * @param priority the priority of the job
+   * @return false if the queue is full and the job was not added
+   */
+  public boolean enqueue(Job job, JobContextConsumer jobFunction, JobPriority priority) {
+    return enqueue(job, jobFunction, priority, 0);
+  }
+
+  /**
+   * Add a job to the queue.
+   *
+   * @param job the job, which should already be saved with status "queued"
+   * @param jobFunction the code the job runs
+   * @param priority the priority of the job
+   * @param timeoutMs how long the job may run once started (0 for no limit)
+   * @return false if the queue is full and the job was not added
+   */
+  public synchronized boolean enqueue(
+      Job job, JobContextConsumer jobFunction, JobPriority priority, long timeoutMs) {
+    if (queue.size() >= maxQueuedJobs) {
+      return false;
+    }
+    Long userId = job.getCreatedBy() == null ? null : job.getCreatedBy().getId();
+    queue.add(new ScheduledJob(job, jobFunction, priority, timeoutMs, nextSeq++, userId));
+    return true;
+  }
+
+  /**
+   * Remove a job that has not started yet from the queue.
+   *
+   * @param jobId id of the job
+   * @return the job and its code, or empty if no queued job has that id
+   */
+  public synchronized Optional<ScheduledJob> removeQueued(long jobId) {
+    for (ScheduledJob candidate : queue) {
+      if (candidate.job().getId() == jobId) {
+        queue.remove(candidate);
+        return Optional.of(candidate);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Remove from the queue every job that may start now, and count them as running.
+   *
+   * @return the jobs to start, in the order they should be started
+   */
+  public synchronized List<ScheduledJob> takeRunnable() {
+    List<ScheduledJob> started = new ArrayList<>();
+    while (running.size() < maxConcurrentJobs) {
+      ScheduledJob next = null;
+      for (ScheduledJob candidate : queue) {
+        if (runningCount(candidate.userId()) >= maxConcurrentJobsPerUser) {
+          continue;
+        }
+        if (next == null || goesBefore(candidate, next)) {
+          next = candidate;
+        }
+      }
+      if (next == null) {
+        break;
+      }
+      queue.remove(next);
+      running.put(next.job(), next);
+      runningPerUser.merge(next.userId(), 1, Integer::sum);
+      started.add(next);
+    }
+    return started;
+  }
+
+  /**
+   * Release the slot held by a job that has stopped running.
+   *
+   * @param job the job
+   * @return false if the job was not running under this scheduler
+   */
+  public synchronized boolean finished(Job job) {
+    ScheduledJob scheduledJob = running.remove(job);
+    if (scheduledJob == null) {
+      return false;
+    }
+    runningPerUser.computeIfPresent(scheduledJob.userId(), (k, n) -> n > 1 ? n - 1 : null);
+    return true;
+  }
+
+  public synchronized int getQueuedCount() {
+    return queue.size();
+  }
+
+  public synchronized int getRunningCount() {
+    return running.size();
+  }
+
+  /**
+   * How many more jobs this scheduler could start now, counting the jobs already queued.
+   *
+   * @return the number of free slots (never negative)
+   */
+  public synchronized int getFreeSlots() {
+    return Math.max(0, maxConcurrentJobs - running.size() - queue.size());
+  }
+
+  /**
+   * The ids of the jobs this scheduler holds, queued or running.
+   *
+   * @return the ids
+   */
+  public synchronized List<Long> getJobIds() {
+    List<Long> ids = new ArrayList<>();
+    queue.forEach(scheduledJob -> ids.add(scheduledJob.job().getId()));
+    running.keySet().forEach(job -> ids.add(job.getId()));
+    return ids;
+  }
+
+  private int runningCount(Long userId) {
+    return runningPerUser.getOrDefault(userId, 0);
+  }
+
+  boolean goesBefore(ScheduledJob a, ScheduledJob b) {
+    if (a.priority() != b.priority()) {
+      return a.priority().compareTo(b.priority()) > 0;
+    }
+    int aRunning = runningCount(a.userId());
+    int bRunning = runningCount(b.userId());
+    if (aRunning != bRunning) {
+      return aRunning < bRunning;
+    }
+    return a.seq() < b.seq();
+  }
+}
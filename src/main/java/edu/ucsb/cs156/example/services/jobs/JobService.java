@@ -1,53 +1,392 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 @Service
+@Slf4j
 public class JobService {
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
   @Autowired private CurrentUserService currentUserService;
 
   @Lazy @Autowired private JobService self;
 
+  @Autowired
+  @Qualifier(JobExecutorConfig.JOB_EXECUTOR)
+  private ThreadPoolTaskExecutor jobExecutor;
+
+  @Autowired private JobScheduler jobScheduler;
+
+  @Autowired private JobLogStreamService jobLogStreamService;
+
+  @Autowired private JobRegistry jobRegistry;
+
+  @Autowired private JobQueueService jobQueueService;
+
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  @Value("${app.jobs.log.flushLines:" + JobContext.DEFAULT_FLUSH_LINES + "}")
+  private int flushLines = JobContext.DEFAULT_FLUSH_LINES;
+
+  @Value("${app.jobs.defaultTimeoutSeconds:3600}")
+  private long defaultTimeoutSeconds = 3600;
+
+  /**
+   * contexts of the jobs currently running, whose buffered log lines need periodic flushing and
+   * whose timeouts need checking
+   */
+  private final Set<JobContext> activeContexts = ConcurrentHashMap.newKeySet();
+
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, JobPriority.NORMAL);
+  }
+
+  /**
+   * Queue a job for the current user. The job starts right away if the JobScheduler has a free slot
+   * for it; otherwise it waits with status "queued".
+   *
+   * @param jobFunction the code the job runs
+   * @param priority the priority of the job
+   * @return the job (status "running", "queued" or "rejected")
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, JobPriority priority) {
+    return runAsJob(jobFunction, priority, 0);
+  }
+
+  /**
+   * Queue a job for the current user. The job starts right away if the JobScheduler has a free slot
+   * for it; otherwise it waits with status "queued".
+   *
+   * <p>The job is claimed by this worker. If JobRegistry knows its class, its type and parameters
+   * are saved with it, so that another worker can run it should this one stop (see
+   * JobQueueService).
+   *
+   * @param jobFunction the code the job runs
+   * @param priority the priority of the job
+   * @param timeoutSeconds how long the job may run before it is cancelled with status "timeout"; 0
+   *     for the default (app.jobs.defaultTimeoutSeconds)
+   * @return the job (status "running", "queued" or "rejected")
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, JobPriority priority, long timeoutSeconds) {
+    long timeoutMs = 1000 * (timeoutSeconds > 0 ? timeoutSeconds : defaultTimeoutSeconds);
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .jobType(jobTypeOf(jobFunction))
+            .params(jobRegistry.paramsOf(jobFunction).orElse(null))
+            .priority(priority)
+            .timeoutMs(timeoutMs)
+            .claimedBy(jobQueueService.getWorkerId())
+            .heartbeatAt(ZonedDateTime.now())
+            .status("queued")
+            .build();
 
     jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    if (!jobScheduler.enqueue(job, jobFunction, priority, timeoutMs)) {
+      reject(job);
+      discard(job, jobFunction);
+      return job;
+    }
+    dispatchQueuedJobs();
 
     return job;
   }
 
-  @Async
+  /** Start every queued job that the JobScheduler allows to run now. */
+  void dispatchQueuedJobs() {
+    for (JobScheduler.ScheduledJob next : jobScheduler.takeRunnable()) {
+      Job job = next.job();
+      job.setStatus("running");
+      job.setAttempts(job.getAttempts() + 1);
+      // the heartbeat this job was created or claimed with may have gone stale while it waited
+      job.setHeartbeatAt(ZonedDateTime.now());
+      jobsRepository.markRunning(job.getId(), job.getAttempts(), job.getHeartbeatAt());
+      try {
+        self.runJobAsync(job, next.jobFunction(), next.timeoutMs());
+      } catch (TaskRejectedException e) {
+        jobScheduler.finished(job);
+        reject(job);
+        discard(job, next.jobFunction());
+      }
+    }
+  }
+
+  private void reject(Job job) {
+    rejectedCount.incrementAndGet();
+    job.setStatus("rejected");
+    job.setLog("Job rejected: too many jobs are already running or waiting to run");
+    jobsRepository.save(job);
+    jobLogStreamService.jobEnded(job.getId(), job.getStatus());
+  }
+
+  /** Let a job that will never run here release what it holds (see JobContextConsumer). */
+  private void discard(Job job, JobContextConsumer jobFunction) {
+    try {
+      jobFunction.onDiscard();
+    } catch (Exception e) {
+      log.warn("Could not discard job {}", job.getId(), e);
+    }
+  }
+
+  @Async(JobExecutorConfig.JOB_EXECUTOR)
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    runJobAsync(job, jobFunction, 0);
+  }
 
+  @Async(JobExecutorConfig.JOB_EXECUTOR)
+  public void runJobAsync(Job job, JobContextConsumer jobFunction, long timeoutMs) {
     try {
+      runJob(job, jobFunction, timeoutMs);
+    } finally {
+      if (jobScheduler.finished(job)) {
+        dispatchQueuedJobs();
+      }
+    }
+  }
+
+  private void runJob(Job job, JobContextConsumer jobFunction, long timeoutMs) {
+    JobContext context =
+        new JobContext(
+            jobLogLinesRepository,
+            job,
+            flushLines,
+            lines -> jobLogStreamService.publish(job.getId(), lines));
+    context.setTimeoutMs(timeoutMs);
+    context.attach(Thread.currentThread());
+    activeContexts.add(context);
+
+    ZonedDateTime startedAt = ZonedDateTime.now();
+    try {
+      if (job.getAttempts() > 1) {
+        // continue the log of the earlier attempts
+        context.setNextSeq(
+            jobLogLinesRepository
+                .findTopByJobIdOrderBySeqDesc(job.getId())
+                .map(line -> line.getSeq() + 1)
+                .orElse(0L));
+        context.log("Job restarted (attempt %d)".formatted(job.getAttempts()));
+      }
+
+      job.setStartedAt(startedAt);
+      if (job.getCreatedAt() != null) {
+        job.setQueueWaitMs(Duration.between(job.getCreatedAt(), startedAt).toMillis());
+      }
+      jobsRepository.markStarted(job.getId(), startedAt, job.getQueueWaitMs());
+
       jobFunction.accept(context);
+      job.setStatus("complete");
     } catch (Exception e) {
       job.setStatus("error");
-      context.log(e.getMessage());
-      return;
+      if (!context.isCancelled()) {
+        context.log(e.getMessage());
+      }
+    } finally {
+      context.detach();
+      activeContexts.remove(context);
+      if (context.isCancelled()) {
+        String status = context.getCancelStatus();
+        job.setStatus(status);
+        context.log(status.equals("timeout") ? "Job timed out" : "Job cancelled");
+      }
+      // the job has ended whether or not its last lines can be written
+      try {
+        context.flush();
+      } catch (Exception e) {
+        log.warn("Could not flush the log of job {}", job.getId(), e);
+      }
+      finish(job, context, startedAt);
     }
+  }
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+  /** Save the final status of a job, and tell the clients streaming its log that it has ended. */
+  private void finish(Job job, JobContext context, ZonedDateTime startedAt) {
+    ZonedDateTime endedAt = ZonedDateTime.now();
+    job.setEndedAt(endedAt);
+    job.setRunDurationMs(Duration.between(startedAt, endedAt).toMillis());
+    if (job.getStatus().equals("complete")) {
+      job.setProgress(1.0);
+    } else {
+      job.setProgress(context.getProgress());
+    }
+    job.setResultSummary(context.getResultSummary());
+    try {
+      jobsRepository.save(job);
+    } finally {
+      jobLogStreamService.jobEnded(job.getId(), job.getStatus());
+    }
+  }
+
+  /**
+   * The job type recorded for a job function: the simple name of its class, or for a lambda, of the
+   * class that defines it.
+   *
+   * @param jobFunction the job function
+   * @return the job type
+   */
+  static String jobTypeOf(JobContextConsumer jobFunction) {
+    String name = jobFunction.getClass().getSimpleName();
+    int lambda = name.indexOf("$$");
+    return lambda >= 0 ? name.substring(0, lambda) : name;
+  }
+
+  /**
+   * Cancel a job. A queued job is removed from the queue and discarded (see
+   * JobContextConsumer.onDiscard); a running job has its cancellation flag set and its thread
+   * interrupted, and ends with status "cancelled". Jobs held by another worker can only be
+   * cancelled while they are queued and unclaimed.
+   *
+   * @param jobId id of the job
+   * @return false if the job is neither queued nor running
+   */
+  public boolean cancelJob(long jobId) {
+    Optional<JobScheduler.ScheduledJob> queued = jobScheduler.removeQueued(jobId);
+    if (queued.isPresent()) {
+      Job job = queued.get().job();
+      job.setStatus("cancelled");
+      job.setLog(JobContext.appendToTail(job.getLog(), "Job cancelled before it started"));
+      jobsRepository.save(job);
+      jobLogStreamService.jobEnded(jobId, job.getStatus());
+      discard(job, queued.get().jobFunction());
+      return true;
+    }
+    for (JobContext context : activeContexts) {
+      if (context.getJobId() == jobId) {
+        return context.cancel("cancelled");
+      }
+    }
+    if (jobsRepository.cancelIfUnclaimed(jobId, ZonedDateTime.now()) > 0) {
+      jobLogStreamService.jobEnded(jobId, "cancelled");
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Claim queued jobs from the jobs table, as many as the JobScheduler has free slots for, and
+   * start them. These are jobs that were requeued after the worker that held them stopped.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.pollIntervalMs:2000}")
+  public void pollQueue() {
+    try {
+      for (Job job : jobQueueService.claim(jobScheduler.getFreeSlots())) {
+        Optional<JobContextConsumer> jobFunction = jobRegistry.create(job);
+        if (jobFunction.isEmpty()) {
+          job.setStatus("error");
+          job.setEndedAt(ZonedDateTime.now());
+          job.setResultSummary("Unknown job type: " + job.getJobType());
+          jobsRepository.save(job);
+          jobLogStreamService.jobEnded(job.getId(), job.getStatus());
+          continue;
+        }
+        JobPriority priority = job.getPriority() != null ? job.getPriority() : JobPriority.NORMAL;
+        long timeoutMs =
+            job.getTimeoutMs() != null ? job.getTimeoutMs() : 1000 * defaultTimeoutSeconds;
+        if (!jobScheduler.enqueue(job, jobFunction.get(), priority, timeoutMs)) {
+          // give the job back for another worker
+          job.setClaimedBy(null);
+          jobsRepository.save(job);
+        }
+      }
+      dispatchQueuedJobs();
+    } catch (Exception e) {
+      log.warn("Could not claim queued jobs", e);
+    }
   }
 
+  /** Cancel, with status "timeout", every running job that has run past its timeout. */
+  @Scheduled(fixedDelayString = "${app.jobs.timeoutCheckIntervalMs:1000}")
+  public void cancelTimedOutJobs() {
+    long now = System.currentTimeMillis();
+    for (JobContext context : activeContexts) {
+      if (context.isPastDeadline(now)) {
+        context.cancel("timeout");
+      }
+    }
+  }
+
+  /**
+   * Flush the buffered log lines of every running job, so that a crash loses at most one flush
+   * interval of output, and save the progress each job has reported since the last flush.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flushIntervalMs:1000}")
+  public void flushActiveJobLogs() {
+    for (JobContext context : activeContexts) {
+      try {
+        context.flush();
+        Double progress = context.takeProgressUpdate();
+        if (progress != null) {
+          jobsRepository.updateProgress(context.getJobId(), progress);
+        }
+      } catch (Exception e) {
+        log.warn("Could not flush job log lines", e);
+      }
+    }
+  }
+
+  /**
+   * Get a snapshot of the executor that runs jobs.
+   *
+   * @return pool size, active thread count, queue depth, etc.
+   */
+  public JobExecutorStats getExecutorStats() {
+    ThreadPoolExecutor executor = jobExecutor.getThreadPoolExecutor();
+    return JobExecutorStats.builder()
+        .poolSize(executor.getPoolSize())
+        .maxPoolSize(executor.getMaximumPoolSize())
+        .activeCount(executor.getActiveCount())
+        .queueDepth(executor.getQueue().size())
+        .queueCapacity(jobExecutor.getQueueCapacity())
+        .rejectedCount(rejectedCount.get())
+        .runningJobs(jobScheduler.getRunningCount())
+        .queuedJobs(jobScheduler.getQueuedCount())
+        .build();
+  }
+
+  /**
+   * Get the full log of a job, reassembled from its log lines.
+   *
+   * @param jobId id of the job
+   * @return the log, one line per log message
+   */
   public String getJobLogs(Long jobId) {
     Job job =
         jobsRepository
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    List<JobLogLine> lines = jobLogLinesRepository.findByJobIdOrderBySeqAsc(jobId);
+    if (lines.isEmpty()) {
+      // jobs that ran before log lines were stored separately only have Job.log
+      String log = job.getLog();
+      return log != null ? log : "";
+    }
+    return lines.stream().map(JobLogLine::getMessage).collect(Collectors.joining("\n"));
   }
 }
@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.models.JobTiming;
+import edu.ucsb.cs156.example.models.JobTypeStats;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/** This service computes statistics about recent jobs, per job type. */
+@Service
+public class JobStatsService {
+
+  /** Job type reported for jobs that were run before job types were recorded */
+  public static final String UNKNOWN_JOB_TYPE = "unknown";
+
+  @Autowired private JobsRepository jobsRepository;
+
+  /**
+   * Compute statistics for the jobs that ended after a given time.
+   *
+   * @param since only jobs that ended after this time are counted
+   * @return one entry per job type, ordered by job type
+   */
+  public List<JobTypeStats> getStats(ZonedDateTime since) {
+    Map<String, List<JobTiming>> byType = new TreeMap<>();
+    for (JobTiming timing : jobsRepository.findByEndedAtAfter(since)) {
+      String jobType = Objects.requireNonNullElse(timing.getJobType(), UNKNOWN_JOB_TYPE);
+      byType.computeIfAbsent(jobType, k -> new ArrayList<>()).add(timing);
+    }
+
+    List<JobTypeStats> stats = new ArrayList<>();
+    byType.forEach((jobType, timings) -> stats.add(statsFor(jobType, timings)));
+    return stats;
+  }
+
+  private static JobTypeStats statsFor(String jobType, List<JobTiming> timings) {
+    long completed = countStatus(timings, "complete");
+    long failed = countStatus(timings, "error") + countStatus(timings, "timeout");
+    long cancelled = countStatus(timings, "cancelled");
+    List<Long> durations = sorted(timings, JobTiming::getRunDurationMs);
+    List<Long> waits = sorted(timings, JobTiming::getQueueWaitMs);
+
+    return JobTypeStats.builder()
+        .jobType(jobType)
+        .count(timings.size())
+        .completed(completed)
+        .failed(failed)
+        .cancelled(cancelled)
+        .failureRate((double) failed / timings.size())
+        .p50RunDurationMs(percentile(durations, 50))
+        .p95RunDurationMs(percentile(durations, 95))
+        .maxRunDurationMs(percentile(durations, 100))
+        .p50QueueWaitMs(percentile(waits, 50))
+        .p95QueueWaitMs(percentile(waits, 95))
+        .build();
+  }
+
+  private static long countStatus(List<JobTiming> timings, String status) {
+    return timings.stream().filter(t -> status.equals(t.getStatus())).count();
+  }
+
+  private static List<Long> sorted(List<JobTiming> timings, Function<JobTiming, Long> value) {
+    return timings.stream().map(value).filter(Objects::nonNull).sorted().toList();
+  }
+
+  /**
+   * The nearest-rank percentile of a sorted list.
+   *
+   * @param sortedValues the values, in ascending order
+   * @param percent which percentile, from 1 to 100
+   * @return the smallest value that at least percent% of the values are less than or equal to, or
+   *     null if there are no values
+   */
+  static Long percentile(List<Long> sortedValues, int percent) {
+    if (sortedValues.isEmpty()) {
+      return null;
+    }
+    int rank = (int) Math.ceil(percent / 100.0 * sortedValues.size());
+    return sortedValues.get(Math.max(rank, 1) - 1);
+  }
+}
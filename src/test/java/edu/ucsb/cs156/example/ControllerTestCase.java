@@ -2,10 +2,14 @@ package edu.ucsb.cs156.example;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.services.BulkWriteService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.SecondLevelCacheService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +32,14 @@ public abstract class ControllerTestCase {
 
   @MockitoBean WiremockService mockWiremockService;
 
+  @MockitoBean EntityManager entityManager; // detaches rows written by JsonExportService
+
+  @MockitoBean public TableVersionService tableVersionService; // no ETags unless a test sets one
+
+  @MockitoBean public SecondLevelCacheService secondLevelCacheService;
+
+  @MockitoBean public BulkWriteService bulkWriteService;
+
   protected Map<String, Object> responseToJson(MvcResult result)
       throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
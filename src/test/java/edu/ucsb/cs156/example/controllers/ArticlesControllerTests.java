@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,12 +16,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -28,6 +31,12 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -303,7 +312,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
             .andReturn();
 
     verify(articlesRepository, times(1)).findById(15L);
-    verify(articlesRepository, times(1)).delete(any());
+    verify(articlesRepository, times(1)).delete(any(Articles.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Articles with id 15 deleted", json.get("message"));
@@ -326,4 +335,352 @@ public class ArticlesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Articles with id 15 not found", json.get("message"));
   }
+
+  // Tests for GET /api/articles/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/articles/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "title").and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<Articles> page = new PageImpl<>(List.of(Articles.builder().build()), expectedRequest, 101);
+    when(articlesRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/articles/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "title")
+                    .param("sortDirection", "ASC")
+                    .param("email", "abc")
+                    .param("title", "abc")
+                    .param("dateAddedAfter", "2022-01-03T00:00:00")
+                    .param("dateAddedBefore", "2022-01-03T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "id"));
+    when(articlesRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc.perform(get("/api/articles/paged").param("sortField", "id")).andExpect(status().isOk());
+
+    verify(articlesRepository, times(1)).findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/articles/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_needs_a_valid_sort_direction_page_and_page_size() throws Exception {
+    mockMvc
+        .perform(get("/api/articles/paged").param("sortDirection", "sideways"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/articles/paged").param("page", "-1"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/articles/paged").param("pageSize", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/articles/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/articles/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_articles() throws Exception {
+    // arrange
+    List<Articles> rows = List.of(Articles.builder().build(), Articles.builder().build());
+    when(articlesRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/articles/export")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/articles/all and GET /api/articles
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(Articles.class)).thenReturn("\"articles-1700000000000-3\"");
+    when(articlesRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/articles/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"articles-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(Articles.class)).thenReturn("\"articles-1700000000000-3\"");
+
+    mockMvc
+        .perform(get("/api/articles/all").header("If-None-Match", "\"articles-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(articlesRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_articles_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(Articles.class)).thenReturn("\"articles-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/articles")
+                .param("id", "7")
+                .header("If-None-Match", "\"articles-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(articlesRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_articles_in_bulk() throws Exception {
+    // arrange
+    List<Articles> items =
+        List.of(
+            Articles.builder()
+                .title("Bulk 1")
+                .url("https://ucsb.edu")
+                .explanation("an article")
+                .email("a@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build(),
+            Articles.builder()
+                .title("Bulk 2")
+                .url("https://ucsb.edu")
+                .explanation("an article")
+                .email("a@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build());
+    List<BulkItemResult<Articles>> results =
+        List.of(
+            BulkItemResult.<Articles>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(
+                    Articles.builder()
+                        .id(1L)
+                        .title("Bulk 1")
+                        .url("https://ucsb.edu")
+                        .explanation("an article")
+                        .email("a@ucsb.edu")
+                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<Articles>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(
+                    Articles.builder()
+                        .id(2L)
+                        .title("Bulk 2")
+                        .url("https://ucsb.edu")
+                        .explanation("an article")
+                        .email("a@ucsb.edu")
+                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(Articles.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(Articles.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_articles_in_bulk() throws Exception {
+    // arrange
+    List<Articles> items =
+        List.of(
+            Articles.builder()
+                .id(1L)
+                .title("Bulk 1")
+                .url("https://ucsb.edu")
+                .explanation("an article")
+                .email("a@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build(),
+            Articles.builder()
+                .id(2L)
+                .title("Bulk 2")
+                .url("https://ucsb.edu")
+                .explanation("an article")
+                .email("a@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build());
+    List<BulkItemResult<Articles>> results =
+        List.of(
+            BulkItemResult.<Articles>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(
+                    Articles.builder()
+                        .id(1L)
+                        .title("Bulk 1")
+                        .url("https://ucsb.edu")
+                        .explanation("an article")
+                        .email("a@ucsb.edu")
+                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<Articles>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(
+                    Articles.builder()
+                        .id(2L)
+                        .title("Bulk 2")
+                        .url("https://ucsb.edu")
+                        .explanation("an article")
+                        .email("a@ucsb.edu")
+                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(Articles.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(Articles.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_articles_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<Articles>> results =
+        List.of(
+            BulkItemResult.<Articles>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<Articles>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(Articles.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(Articles.class, ids);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.CacheRegionStats;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = CacheController.class)
+@Import(TestConfig.class)
+public class CacheControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @Test
+  public void logged_out_users_cannot_get_stats() throws Exception {
+    mockMvc.perform(get("/api/admin/cache")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_stats() throws Exception {
+    mockMvc.perform(get("/api/admin/cache")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_stats() throws Exception {
+    List<CacheRegionStats> stats =
+        List.of(
+            CacheRegionStats.builder()
+                .region("restaurants")
+                .hitCount(10)
+                .missCount(2)
+                .putCount(2)
+                .build());
+    when(secondLevelCacheService.getStatistics()).thenReturn(stats);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/cache")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(mapper.writeValueAsString(stats), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_clear_the_cache() throws Exception {
+    mockMvc.perform(delete("/api/admin/cache").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_clear_the_cache() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/admin/cache").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(secondLevelCacheService, times(1)).evictAll();
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Second-level cache cleared", json.get("message"));
+  }
+}
@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+// the files served here are in src/test/resources/public
+@WebMvcTest(controllers = FrontendController.class)
+@Import(TestConfig.class)
+public class FrontendControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @Test
+  public void pages_are_forwarded_to_index_html() throws Exception {
+    mockMvc
+        .perform(get("/restaurants/edit/7"))
+        .andExpect(status().isOk())
+        .andExpect(forwardedUrl("/index.html"));
+  }
+
+  @Test
+  public void fingerprinted_assets_are_cached_for_a_year() throws Exception {
+    mockMvc
+        .perform(get("/assets/frontend-test-Ab12Cd34.js"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andExpect(content().string("console.log(\"frontend test asset\");\n"));
+  }
+
+  @Test
+  public void brotli_copy_is_sent_when_accepted() throws Exception {
+    mockMvc
+        .perform(get("/assets/frontend-test-Ab12Cd34.js").header("Accept-Encoding", "gzip, br"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "br"))
+        .andExpect(header().string("Vary", "Accept-Encoding"))
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andExpect(content().contentType("text/javascript"));
+  }
+
+  @Test
+  public void gzip_copy_is_sent_when_accepted() throws Exception {
+    mockMvc
+        .perform(get("/assets/frontend-test-Ab12Cd34.js").header("Accept-Encoding", "gzip"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"));
+  }
+
+  @Test
+  public void other_files_are_revalidated_on_every_load() throws Exception {
+    mockMvc
+        .perform(get("/frontend-test-page.html"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andExpect(header().exists("Last-Modified"));
+  }
+
+  @Test
+  public void csrf_returns_not_found() throws Exception {
+    mockMvc.perform(get("/csrf")).andExpect(status().isNotFound());
+  }
+}
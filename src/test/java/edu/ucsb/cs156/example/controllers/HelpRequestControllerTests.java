@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -14,18 +16,28 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.KeysetCursor;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -320,4 +332,416 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/helprequest/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/helprequest/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "requesterEmail").and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<HelpRequest> page =
+        new PageImpl<>(List.of(HelpRequest.builder().build()), expectedRequest, 101);
+    when(helpRequestRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/helprequest/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "requesterEmail")
+                    .param("sortDirection", "ASC")
+                    .param("requesterEmail", "abc")
+                    .param("teamId", "abc")
+                    .param("solved", "true")
+                    .param("requestTimeAfter", "2022-01-03T00:00:00")
+                    .param("requestTimeBefore", "2022-01-03T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"));
+    when(helpRequestRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/helprequest/paged").param("sortField", "id"))
+        .andExpect(status().isOk());
+
+    verify(helpRequestRepository, times(1)).findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/helprequest/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/helprequest/cursor
+
+  @Test
+  public void logged_out_users_cannot_get_a_page_from_a_cursor() throws Exception {
+    mockMvc.perform(get("/api/helprequest/cursor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_first_page_from_a_cursor_ends_with_the_next_cursor() throws Exception {
+    // arrange
+    HelpRequest first =
+        HelpRequest.builder().id(3).requestTime(LocalDateTime.parse("2022-01-04T00:00:00")).build();
+    HelpRequest second =
+        HelpRequest.builder().id(2).requestTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+    HelpRequest third =
+        HelpRequest.builder().id(1).requestTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+    when(helpRequestRepository.findNewest(PageRequest.ofSize(3)))
+        .thenReturn(List.of(first, second, third));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/cursor").param("pageSize", "2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String nextCursor = new KeysetCursor<>(second.getRequestTime(), second.getId()).encode();
+    assertEquals(
+        mapper.writeValueAsString(new CursorPage<>(List.of(first, second), nextCursor)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_page_after_a_cursor_seeks_past_it() throws Exception {
+    // arrange
+    HelpRequest first =
+        HelpRequest.builder().id(3).requestTime(LocalDateTime.parse("2022-01-04T00:00:00")).build();
+    HelpRequest second =
+        HelpRequest.builder().id(2).requestTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+    HelpRequest third =
+        HelpRequest.builder().id(1).requestTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+    String cursor = new KeysetCursor<>(second.getRequestTime(), second.getId()).encode();
+    when(helpRequestRepository.findOlderThan(
+            second.getRequestTime(), second.getId(), PageRequest.ofSize(21)))
+        .thenReturn(List.of(third));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/cursor").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new CursorPage<>(List.of(third), null)),
+        response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/helprequest/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/helprequest/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_help_requests() throws Exception {
+    // arrange
+    List<HelpRequest> rows = List.of(HelpRequest.builder().build(), HelpRequest.builder().build());
+    when(helpRequestRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/helprequest/export")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/helprequest/all and GET /api/helprequest
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(HelpRequest.class))
+        .thenReturn("\"helprequests-1700000000000-3\"");
+    when(helpRequestRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/helprequest/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"helprequests-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(HelpRequest.class))
+        .thenReturn("\"helprequests-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/helprequest/all").header("If-None-Match", "\"helprequests-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(helpRequestRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_help_requests_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(HelpRequest.class))
+        .thenReturn("\"helprequests-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/helprequest")
+                .param("id", "7")
+                .header("If-None-Match", "\"helprequests-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(helpRequestRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_help_requests_in_bulk() throws Exception {
+    // arrange
+    List<HelpRequest> items =
+        List.of(
+            HelpRequest.builder()
+                .requesterEmail("a@ucsb.edu")
+                .teamId("team1")
+                .tableOrBreakoutRoom("7")
+                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .explanation("help")
+                .solved(false)
+                .build(),
+            HelpRequest.builder()
+                .requesterEmail("a@ucsb.edu")
+                .teamId("team2")
+                .tableOrBreakoutRoom("7")
+                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .explanation("help")
+                .solved(false)
+                .build());
+    List<BulkItemResult<HelpRequest>> results =
+        List.of(
+            BulkItemResult.<HelpRequest>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(
+                    HelpRequest.builder()
+                        .id(1L)
+                        .requesterEmail("a@ucsb.edu")
+                        .teamId("team1")
+                        .tableOrBreakoutRoom("7")
+                        .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .explanation("help")
+                        .solved(false)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<HelpRequest>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(
+                    HelpRequest.builder()
+                        .id(2L)
+                        .requesterEmail("a@ucsb.edu")
+                        .teamId("team2")
+                        .tableOrBreakoutRoom("7")
+                        .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .explanation("help")
+                        .solved(false)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(HelpRequest.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(HelpRequest.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_help_requests_in_bulk() throws Exception {
+    // arrange
+    List<HelpRequest> items =
+        List.of(
+            HelpRequest.builder()
+                .id(1L)
+                .requesterEmail("a@ucsb.edu")
+                .teamId("team1")
+                .tableOrBreakoutRoom("7")
+                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .explanation("help")
+                .solved(false)
+                .build(),
+            HelpRequest.builder()
+                .id(2L)
+                .requesterEmail("a@ucsb.edu")
+                .teamId("team2")
+                .tableOrBreakoutRoom("7")
+                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .explanation("help")
+                .solved(false)
+                .build());
+    List<BulkItemResult<HelpRequest>> results =
+        List.of(
+            BulkItemResult.<HelpRequest>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(
+                    HelpRequest.builder()
+                        .id(1L)
+                        .requesterEmail("a@ucsb.edu")
+                        .teamId("team1")
+                        .tableOrBreakoutRoom("7")
+                        .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .explanation("help")
+                        .solved(false)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<HelpRequest>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(
+                    HelpRequest.builder()
+                        .id(2L)
+                        .requesterEmail("a@ucsb.edu")
+                        .teamId("team2")
+                        .tableOrBreakoutRoom("7")
+                        .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .explanation("help")
+                        .solved(false)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(HelpRequest.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(HelpRequest.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_help_requests_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<HelpRequest>> results =
+        List.of(
+            BulkItemResult.<HelpRequest>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<HelpRequest>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(HelpRequest.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(HelpRequest.class, ids);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
@@ -3,49 +3,101 @@ package edu.ucsb.cs156.example.controllers;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobTiming;
+import edu.ucsb.cs156.example.models.KeysetCursor;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobQueueService;
+import edu.ucsb.cs156.example.services.jobs.JobRegistry;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.jobs.JobStatsService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Globals;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({
+  JobService.class,
+  JobScheduler.class,
+  JobLogStreamService.class,
+  JobStatsService.class,
+  JobRegistry.class,
+  JobQueueService.class,
+  JobExecutorConfig.class
+})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLinesRepository jobLogLinesRepository;
+
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean ImportService importService;
+
+  @MockitoBean ExportService exportService;
+
+  @TempDir Path tempDir;
+
   @Autowired JobService jobService;
 
+  @Autowired JobLogStreamService jobLogStreamService;
+
   @Autowired ObjectMapper objectMapper;
 
   @WithMockUser(roles = {"ADMIN"})
@@ -134,6 +186,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
+    verify(jobLogLinesRepository, times(1)).deleteAllLines();
     verify(jobsRepository, times(1)).deleteAll();
     String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted"));
     String responseString = response.getResponse().getContentAsString();
@@ -173,6 +226,180 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_the_log_of_a_finished_job() throws Exception {
+    Job job = Job.builder().id(3L).status("complete").build();
+    when(jobsRepository.findById(3L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(3L, -1L))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(3L).seq(0).message("Hello World!").build(),
+                JobLogLine.builder().jobId(3L).seq(1).message("Goodbye").build()));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 3L))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () ->
+                assertEquals(
+                    "id:0\nevent:log\ndata:Hello World!\n\n"
+                        + "id:1\nevent:log\ndata:Goodbye\n\n"
+                        + "event:end\ndata:complete\n\n",
+                    response.getResponse().getContentAsString()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_resume_a_stream_after_a_sequence_number() throws Exception {
+    Job job = Job.builder().id(3L).status("complete").build();
+    when(jobsRepository.findById(3L)).thenReturn(Optional.of(job));
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}/stream?after=4", 3L))
+        .andExpect(request().asyncStarted());
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}/stream?after=4", 3L).header("Last-Event-ID", "7"))
+        .andExpect(request().asyncStarted());
+
+    verify(jobLogLinesRepository, times(1)).findByJobIdAndSeqGreaterThanOrderBySeqAsc(3L, 4L);
+    verify(jobLogLinesRepository, times(1)).findByJobIdAndSeqGreaterThanOrderBySeqAsc(3L, 7L);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_a_running_job_pushes_new_lines_until_the_job_ends() throws Exception {
+    Job job = Job.builder().id(3L).status("running").build();
+    when(jobsRepository.findById(3L)).thenReturn(Optional.of(job));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 3L))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    assertEquals("", response.getResponse().getContentAsString());
+
+    jobLogStreamService.publish(
+        3L, List.of(JobLogLine.builder().jobId(3L).seq(0).message("working").build()));
+    jobLogStreamService.jobEnded(3L, "complete");
+
+    // the lines and the end are sent on the stream's own thread
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () ->
+                assertEquals(
+                    "id:0\nevent:log\ndata:working\n\nevent:end\ndata:complete\n\n",
+                    response.getResponse().getContentAsString()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_a_missing_job_returns_404() throws Exception {
+    when(jobsRepository.findById(42L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/api/jobs/logs/{id}/stream", 42L)).andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_stream_job_logs() throws Exception {
+    mockMvc.perform(get("/api/jobs/logs/{id}/stream", 3L)).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_a_page_of_job_summaries() throws Exception {
+    JobSummary summary =
+        JobSummary.builder()
+            .id(5L)
+            .status("complete")
+            .createdById(1L)
+            .createdByEmail("admin@ucsb.edu")
+            .logLines(2)
+            .logSize(11)
+            .build();
+    PageRequest expectedRequest =
+        PageRequest.of(
+            0,
+            20,
+            Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+    when(jobsRepository.findSummaries(null, null, null, null, expectedRequest))
+        .thenReturn(new PageImpl<>(List.of(summary), expectedRequest, 1));
+
+    MvcResult response = mockMvc.perform(get("/api/jobs")).andExpect(status().isOk()).andReturn();
+
+    String expectedJson =
+        mapper.writeValueAsString(
+            new PagedModel<>(new PageImpl<>(List.of(summary), expectedRequest, 1)));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+    verify(jobsRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_filter_and_sort_job_summaries() throws Exception {
+    ZonedDateTime after = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+    ZonedDateTime before = ZonedDateTime.parse("2025-02-01T00:00:00Z");
+    when(jobsRepository.findSummaries(any(), any(), any(), any(), any()))
+        .thenReturn(new PageImpl<>(List.of()));
+
+    mockMvc
+        .perform(
+            get("/api/jobs")
+                .param("page", "2")
+                .param("pageSize", "500")
+                .param("sortField", "status")
+                .param("sortDirection", "asc")
+                .param("status", "error")
+                .param("createdById", "7")
+                .param("createdAfter", "2025-01-01T00:00:00Z")
+                .param("createdBefore", "2025-02-01T00:00:00Z"))
+        .andExpect(status().isOk());
+
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(jobsRepository)
+        .findSummaries(eq("error"), eq(7L), eq(after), eq(before), pageable.capture());
+    assertEquals(2, pageable.getValue().getPageNumber());
+    assertEquals(JobsController.MAX_PAGE_SIZE, pageable.getValue().getPageSize());
+    assertEquals(
+        Sort.by(Sort.Direction.ASC, "status").and(Sort.by(Sort.Direction.ASC, "id")),
+        pageable.getValue().getSort());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void job_summaries_reject_an_unknown_sort_field() throws Exception {
+    mockMvc.perform(get("/api/jobs?sortField=log")).andExpect(status().isBadRequest());
+    verify(jobsRepository, never()).findSummaries(any(), any(), any(), any(), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void job_summaries_reject_an_unknown_sort_direction() throws Exception {
+    mockMvc.perform(get("/api/jobs?sortDirection=sideways")).andExpect(status().isBadRequest());
+    verify(jobsRepository, never()).findSummaries(any(), any(), any(), any(), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void job_summaries_reject_a_bad_page() throws Exception {
+    mockMvc.perform(get("/api/jobs?page=-1")).andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/jobs?pageSize=0")).andExpect(status().isBadRequest());
+    verify(jobsRepository, never()).findSummaries(any(), any(), any(), any(), any());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_job_summaries() throws Exception {
+    mockMvc.perform(get("/api/jobs")).andExpect(status().isForbidden());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
@@ -191,6 +418,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
+    verify(jobLogLinesRepository, times(1)).deleteByJobId(eq(1L));
     verify(jobsRepository, times(1)).deleteById(eq(1L));
     String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 1 deleted"));
     String responseString = response.getResponse().getContentAsString();
@@ -215,6 +443,7 @@ public class JobsControllerTests extends ControllerTestCase {
     // assert
 
     verify(jobsRepository, times(1)).existsById(eq(2L));
+    verify(jobLogLinesRepository, never()).deleteByJobId(anyLong());
     String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 2 not found"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -226,29 +455,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // arrange
 
-    User user = currentUserService.getUser();
-
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobCompleted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
-            .build();
-
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    when(jobsRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
     // act
     MvcResult response =
@@ -263,12 +470,25 @@ public class JobsControllerTests extends ControllerTestCase {
 
     assertEquals("running", jobReturned.getStatus());
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(() -> verify(jobsRepository, times(2)).save(jobCaptor.capture()));
+    verify(jobsRepository).markRunning(anyLong(), eq(1), any());
+    Job jobCompleted = jobCaptor.getValue();
+    assertEquals("complete", jobCompleted.getStatus());
+    assertEquals("Hello World! from test job!\nGoodbye from test job!", jobCompleted.getLog());
+    assertEquals("TestJob", jobCompleted.getJobType());
+    assertEquals(1.0, jobCompleted.getProgress());
+    assertEquals("Slept for 2000 ms", jobCompleted.getResultSummary());
+    assertTrue(jobCompleted.getRunDurationMs() >= 2000);
+
+    List<JobLogLine> lines = savedLogLines();
+    assertEquals(2, lines.size());
+    assertEquals("Hello World! from test job!", lines.get(0).getMessage());
+    assertEquals(0L, lines.get(0).getSeq());
+    assertEquals("Goodbye from test job!", lines.get(1).getMessage());
+    assertEquals(1L, lines.get(1).getSeq());
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -277,29 +497,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // arrange
 
-    User user = currentUserService.getUser();
-
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobFailed =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
-            .build();
-
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    when(jobsRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
     // act
     MvcResult response =
@@ -313,12 +511,391 @@ public class JobsControllerTests extends ControllerTestCase {
 
     assertEquals("running", jobReturned.getStatus());
 
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(() -> verify(jobsRepository, times(2)).save(jobCaptor.capture()));
+    verify(jobsRepository).markRunning(anyLong(), eq(1), any());
+    Job jobFailed = jobCaptor.getValue();
+    assertEquals("error", jobFailed.getStatus());
+    assertEquals("Hello World! from test job!\nFail!", jobFailed.getLog());
+    assertEquals(0.5, jobFailed.getProgress());
+    assertNull(jobFailed.getResultSummary());
+
+    List<JobLogLine> lines = savedLogLines();
+    assertEquals(2, lines.size());
+    assertEquals("Fail!", lines.get(1).getMessage());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_import_job() throws Exception {
+
+    // arrange
+
+    MockMultipartFile file =
+        new MockMultipartFile("file", "reviews.csv", "text/csv", "itemId\n7\n".getBytes());
+    Job queued = Job.builder().id(5L).status("queued").jobType("ImportJob").build();
+    when(importService.launch(
+            eq("menuitemreview"), eq(null), eq(file), eq(JobPriority.LOW), eq(30L)))
+        .thenReturn(queued);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/jobs/launch/import")
+                    .file(file)
+                    .param("type", "menuitemreview")
+                    .param("priority", "LOW")
+                    .param("timeoutSeconds", "30")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(importService, times(1))
+        .launch(eq("menuitemreview"), eq(null), eq(file), eq(JobPriority.LOW), eq(30L));
+    assertEquals(mapper.writeValueAsString(queued), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_launch_import_job() throws Exception {
+    MockMultipartFile file =
+        new MockMultipartFile("file", "reviews.csv", "text/csv", "itemId\n7\n".getBytes());
+
+    mockMvc
+        .perform(
+            multipart("/api/jobs/launch/import")
+                .file(file)
+                .param("type", "menuitemreview")
+                .with(csrf()))
+        .andExpect(status().isForbidden());
+
+    verify(importService, never()).launch(any(), any(), any(), any(), anyLong());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_export_job() throws Exception {
+
+    // arrange
+
+    Job queued = Job.builder().id(6L).status("queued").jobType("ExportJob").build();
+    when(exportService.launch("helprequest", JobPriority.LOW, 0L)).thenReturn(queued);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/export?table=helprequest").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(exportService, times(1)).launch("helprequest", JobPriority.LOW, 0L);
+    assertEquals(mapper.writeValueAsString(queued), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_launch_export_job() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/launch/export?table=helprequest").with(csrf()))
+        .andExpect(status().isForbidden());
+
+    verify(exportService, never()).launch(any(), any(), anyLong());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_download_export() throws Exception {
+
+    // arrange
+
+    Path file = Files.write(tempDir.resolve("helprequest-6.csv.gz"), new byte[] {1, 2, 3});
+    when(exportService.fileOf(6L)).thenReturn(Optional.of(file));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/export/6"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", "application/gzip"))
+            .andExpect(header().longValue("Content-Length", 3L))
+            .andExpect(
+                header()
+                    .string("Content-Disposition", "attachment; filename=\"helprequest-6.csv.gz\""))
+            .andReturn();
+
+    // assert
+    assertEquals(3, response.getResponse().getContentAsByteArray().length);
+    assertEquals(1, response.getResponse().getContentAsByteArray()[0]);
+    assertNull(response.getRequest().getAttribute(Globals.SENDFILE_FILENAME_ATTR));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void export_is_handed_to_the_connector_when_it_supports_sendfile() throws Exception {
+
+    // arrange
+
+    Path file = Files.write(tempDir.resolve("helprequest-6.csv.gz"), new byte[] {1, 2, 3});
+    when(exportService.fileOf(6L)).thenReturn(Optional.of(file));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/export/6").requestAttr(Globals.SENDFILE_SUPPORTED_ATTR, true))
+            .andExpect(status().isOk())
+            .andExpect(header().longValue("Content-Length", 3L))
+            .andReturn();
+
+    // assert
+    assertEquals(0, response.getResponse().getContentAsByteArray().length);
+    assertEquals(
+        file.toAbsolutePath().toString(),
+        response.getRequest().getAttribute(Globals.SENDFILE_FILENAME_ATTR));
+    assertEquals(0L, response.getRequest().getAttribute(Globals.SENDFILE_FILE_START_ATTR));
+    assertEquals(3L, response.getRequest().getAttribute(Globals.SENDFILE_FILE_END_ATTR));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void download_of_missing_export_is_not_found() throws Exception {
+    when(exportService.fileOf(6L)).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/export/6")).andExpect(status().isNotFound()).andReturn();
+
+    assertEquals("Job 6 has no export file", response.getResponse().getErrorMessage());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_download_export() throws Exception {
+    mockMvc.perform(get("/api/jobs/export/6")).andExpect(status().isForbidden());
+
+    verify(exportService, never()).fileOf(anyLong());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_executor_stats() throws Exception {
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isOk()).andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(4, json.get("maxPoolSize"));
+    assertEquals(100, json.get("queueCapacity"));
+    assertEquals(0, json.get("queueDepth"));
+    assertEquals(0, json.get("rejectedCount"));
+    assertEquals(0, json.get("queuedJobs"));
+  }
+
+  private static JobTiming timing(String jobType, String status, Long runDurationMs) {
+    return new JobTiming() {
+      public String getJobType() {
+        return jobType;
+      }
+
+      public String getStatus() {
+        return status;
+      }
+
+      public Long getQueueWaitMs() {
+        return 5L;
+      }
+
+      public Long getRunDurationMs() {
+        return runDurationMs;
+      }
+    };
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_stats() throws Exception {
+    when(jobsRepository.findByEndedAtAfter(any()))
+        .thenReturn(List.of(timing("TestJob", "complete", 100L), timing("TestJob", "error", 300L)));
+    ZonedDateTime before = ZonedDateTime.now().minusHours(24);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/stats?hours=24")).andExpect(status().isOk()).andReturn();
+
+    ArgumentCaptor<ZonedDateTime> since = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository).findByEndedAtAfter(since.capture());
+    assertFalse(since.getValue().isBefore(before));
+    assertFalse(since.getValue().isAfter(ZonedDateTime.now().minusHours(24)));
+
+    String expectedJson =
+        mapper.writeValueAsString(
+            List.of(
+                Map.ofEntries(
+                    Map.entry("jobType", "TestJob"),
+                    Map.entry("count", 2),
+                    Map.entry("completed", 1),
+                    Map.entry("failed", 1),
+                    Map.entry("cancelled", 0),
+                    Map.entry("failureRate", 0.5),
+                    Map.entry("p50RunDurationMs", 100),
+                    Map.entry("p95RunDurationMs", 300),
+                    Map.entry("maxRunDurationMs", 300),
+                    Map.entry("p50QueueWaitMs", 5),
+                    Map.entry("p95QueueWaitMs", 5))));
+    assertEquals(
+        mapper.readTree(expectedJson),
+        mapper.readTree(response.getResponse().getContentAsString()));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_job_stats() throws Exception {
+    mockMvc.perform(get("/api/jobs/stats")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_executor_stats() throws Exception {
+    mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_running_job() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=60000").with(csrf()))
+        .andExpect(status().isOk());
+
+    // act
+
     await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .atMost(5, SECONDS)
+        .pollInSameThread() // keeps the mock user's security context
+        .untilAsserted(
+            () -> {
+              MvcResult response =
+                  mockMvc
+                      .perform(post("/api/jobs/cancel?id=0").with(csrf()))
+                      .andExpect(status().isOk())
+                      .andReturn();
+              assertEquals("Job with id 0 cancelled", responseToJson(response).get("message"));
+            });
+
+    // assert
 
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
     await()
-        .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .atMost(5, SECONDS)
+        .untilAsserted(() -> verify(jobsRepository, times(2)).save(jobCaptor.capture()));
+    verify(jobsRepository).markRunning(anyLong(), eq(1), any());
+    Job jobCancelled = jobCaptor.getValue();
+    assertEquals("cancelled", jobCancelled.getStatus());
+    assertEquals("Hello World! from test job!\nJob cancelled", jobCancelled.getLog());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_job_that_is_not_running_returns_a_message() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=123").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        "Job with id 123 is not queued or running", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_cancel_jobs() throws Exception {
+    mockMvc.perform(post("/api/jobs/cancel?id=1").with(csrf())).andExpect(status().isForbidden());
+  }
+
+  /** Log lines are written in batches whose sizes depend on timing, so collect all batches */
+  private List<JobLogLine> savedLogLines() {
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, atLeastOnce()).saveAll(captor.capture());
+    return captor.getAllValues().stream().flatMap(List::stream).toList();
+  }
+
+  // Tests for GET /api/jobs/cursor
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_job_summaries_from_a_cursor() throws Exception {
+    mockMvc.perform(get("/api/jobs/cursor")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void the_first_page_from_a_cursor_ends_with_the_next_cursor() throws Exception {
+    // arrange
+    JobSummary first =
+        JobSummary.builder().id(3).createdAt(ZonedDateTime.parse("2025-01-04T00:00:00Z")).build();
+    JobSummary second =
+        JobSummary.builder()
+            .id(2)
+            .createdAt(ZonedDateTime.parse("2025-01-03T00:00:00-08:00[America/Los_Angeles]"))
+            .build();
+    JobSummary third =
+        JobSummary.builder()
+            .id(1)
+            .createdAt(ZonedDateTime.parse("2025-01-03T00:00:00-08:00[America/Los_Angeles]"))
+            .build();
+    when(jobsRepository.findNewestSummaries(PageRequest.ofSize(3)))
+        .thenReturn(List.of(first, second, third));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/cursor").param("pageSize", "2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String nextCursor = new KeysetCursor<>(second.getCreatedAt(), second.getId()).encode();
+    assertEquals(
+        mapper.writeValueAsString(new CursorPage<>(List.of(first, second), nextCursor)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void the_page_after_a_cursor_seeks_past_it() throws Exception {
+    // arrange
+    JobSummary first =
+        JobSummary.builder().id(3).createdAt(ZonedDateTime.parse("2025-01-04T00:00:00Z")).build();
+    JobSummary second =
+        JobSummary.builder()
+            .id(2)
+            .createdAt(ZonedDateTime.parse("2025-01-03T00:00:00-08:00[America/Los_Angeles]"))
+            .build();
+    JobSummary third =
+        JobSummary.builder()
+            .id(1)
+            .createdAt(ZonedDateTime.parse("2025-01-03T00:00:00-08:00[America/Los_Angeles]"))
+            .build();
+    String cursor = new KeysetCursor<>(second.getCreatedAt(), second.getId()).encode();
+    when(jobsRepository.findSummariesCreatedBefore(
+            second.getCreatedAt(), second.getId(), PageRequest.ofSize(21)))
+        .thenReturn(List.of(third));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/cursor").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new CursorPage<>(List.of(third), null)),
+        response.getResponse().getContentAsString());
   }
 }
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,18 +16,30 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.KeysetCursor;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -234,7 +247,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     // assert
     verify(menuItemReviewRepository, times(1)).findById(123L);
-    verify(menuItemReviewRepository, times(1)).delete(any());
+    verify(menuItemReviewRepository, times(1)).delete(any(MenuItemReview.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 123 deleted", json.get("message"));
@@ -348,4 +361,458 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 123 not found", json.get("message"));
   }
+
+  // Tests for GET /api/menuitemreview/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "itemId").and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<MenuItemReview> page =
+        new PageImpl<>(List.of(MenuItemReview.builder().build()), expectedRequest, 101);
+    when(menuItemReviewRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/menuitemreview/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "itemId")
+                    .param("sortDirection", "ASC")
+                    .param("itemId", "7")
+                    .param("reviewerEmail", "abc")
+                    .param("minStars", "3")
+                    .param("dateReviewedAfter", "2022-01-03T00:00:00")
+                    .param("dateReviewedBefore", "2022-01-03T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"));
+    when(menuItemReviewRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/menuitemreview/paged").param("sortField", "id"))
+        .andExpect(status().isOk());
+
+    verify(menuItemReviewRepository, times(1))
+        .findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/menuitemreview/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/menuitemreview/cursor
+
+  @Test
+  public void logged_out_users_cannot_get_a_page_from_a_cursor() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/cursor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_first_page_from_a_cursor_ends_with_the_next_cursor() throws Exception {
+    // arrange
+    MenuItemReview first =
+        MenuItemReview.builder()
+            .id(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-04T00:00:00"))
+            .build();
+    MenuItemReview second =
+        MenuItemReview.builder()
+            .id(2)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    MenuItemReview third =
+        MenuItemReview.builder()
+            .id(1)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    when(menuItemReviewRepository.findNewest(PageRequest.ofSize(3)))
+        .thenReturn(List.of(first, second, third));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/cursor").param("pageSize", "2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String nextCursor = new KeysetCursor<>(second.getDateReviewed(), second.getId()).encode();
+    assertEquals(
+        mapper.writeValueAsString(new CursorPage<>(List.of(first, second), nextCursor)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_page_after_a_cursor_seeks_past_it() throws Exception {
+    // arrange
+    MenuItemReview first =
+        MenuItemReview.builder()
+            .id(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-04T00:00:00"))
+            .build();
+    MenuItemReview second =
+        MenuItemReview.builder()
+            .id(2)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    MenuItemReview third =
+        MenuItemReview.builder()
+            .id(1)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    String cursor = new KeysetCursor<>(second.getDateReviewed(), second.getId()).encode();
+    when(menuItemReviewRepository.findOlderThan(
+            second.getDateReviewed(), second.getId(), PageRequest.ofSize(21)))
+        .thenReturn(List.of(third));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/cursor").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new CursorPage<>(List.of(third), null)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_from_a_cursor_is_at_most_100_reviews() throws Exception {
+    when(menuItemReviewRepository.findNewest(PageRequest.ofSize(101))).thenReturn(List.of());
+
+    mockMvc
+        .perform(get("/api/menuitemreview/cursor").param("pageSize", "500"))
+        .andExpect(status().isOk());
+
+    verify(menuItemReviewRepository, times(1)).findNewest(PageRequest.ofSize(101));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_from_a_cursor_needs_a_valid_cursor_and_page_size() throws Exception {
+    for (String text : List.of("no comma", "2022-01-03T00:00,x", "yesterday,1")) {
+      String cursor = Base64.getUrlEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+      mockMvc
+          .perform(get("/api/menuitemreview/cursor").param("cursor", cursor))
+          .andExpect(status().isBadRequest());
+    }
+    mockMvc
+        .perform(get("/api/menuitemreview/cursor").param("cursor", "not base64!"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/menuitemreview/cursor").param("pageSize", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/menuitemreview/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_menu_item_reviews() throws Exception {
+    // arrange
+    List<MenuItemReview> rows =
+        List.of(MenuItemReview.builder().build(), MenuItemReview.builder().build());
+    when(menuItemReviewRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/menuitemreview/export")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/menuitemreview/all and GET /api/menuitemreview
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(MenuItemReview.class))
+        .thenReturn("\"menuitemreview-1700000000000-3\"");
+    when(menuItemReviewRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/menuitemreview/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"menuitemreview-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(MenuItemReview.class))
+        .thenReturn("\"menuitemreview-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/menuitemreview/all")
+                .header("If-None-Match", "\"menuitemreview-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(menuItemReviewRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_menu_item_reviews_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(MenuItemReview.class))
+        .thenReturn("\"menuitemreview-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/menuitemreview")
+                .param("id", "7")
+                .header("If-None-Match", "\"menuitemreview-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(menuItemReviewRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_menu_item_reviews_in_bulk() throws Exception {
+    // arrange
+    List<MenuItemReview> items =
+        List.of(
+            MenuItemReview.builder()
+                .itemId(1)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good")
+                .build(),
+            MenuItemReview.builder()
+                .itemId(2)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good")
+                .build());
+    List<BulkItemResult<MenuItemReview>> results =
+        List.of(
+            BulkItemResult.<MenuItemReview>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(
+                    MenuItemReview.builder()
+                        .id(1L)
+                        .itemId(1)
+                        .reviewerEmail("a@ucsb.edu")
+                        .stars(5)
+                        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .comments("good")
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<MenuItemReview>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(
+                    MenuItemReview.builder()
+                        .id(2L)
+                        .itemId(2)
+                        .reviewerEmail("a@ucsb.edu")
+                        .stars(5)
+                        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .comments("good")
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(MenuItemReview.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(MenuItemReview.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_menu_item_reviews_in_bulk() throws Exception {
+    // arrange
+    List<MenuItemReview> items =
+        List.of(
+            MenuItemReview.builder()
+                .id(1L)
+                .itemId(1)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good")
+                .build(),
+            MenuItemReview.builder()
+                .id(2L)
+                .itemId(2)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good")
+                .build());
+    List<BulkItemResult<MenuItemReview>> results =
+        List.of(
+            BulkItemResult.<MenuItemReview>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(
+                    MenuItemReview.builder()
+                        .id(1L)
+                        .itemId(1)
+                        .reviewerEmail("a@ucsb.edu")
+                        .stars(5)
+                        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .comments("good")
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<MenuItemReview>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(
+                    MenuItemReview.builder()
+                        .id(2L)
+                        .itemId(2)
+                        .reviewerEmail("a@ucsb.edu")
+                        .stars(5)
+                        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .comments("good")
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(MenuItemReview.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(MenuItemReview.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_menu_item_reviews_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<MenuItemReview>> results =
+        List.of(
+            BulkItemResult.<MenuItemReview>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<MenuItemReview>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(MenuItemReview.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(MenuItemReview.class, ids);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,17 +16,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -326,7 +335,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
     // assert
     verify(recommendationrequestRepository, times(1)).findById(15L);
-    verify(recommendationrequestRepository, times(1)).delete(any());
+    verify(recommendationrequestRepository, times(1)).delete(any(RecommendationRequest.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("request with id 15 deleted", json.get("message"));
@@ -352,4 +361,362 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
   }
+
+  // Tests for GET /api/recommendationrequests/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "requesterEmail").and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<RecommendationRequest> page =
+        new PageImpl<>(List.of(RecommendationRequest.builder().build()), expectedRequest, 101);
+    when(recommendationrequestRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/recommendationrequests/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "requesterEmail")
+                    .param("sortDirection", "ASC")
+                    .param("requesterEmail", "abc")
+                    .param("professorEmail", "abc")
+                    .param("done", "true"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"));
+    when(recommendationrequestRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/recommendationrequests/paged").param("sortField", "id"))
+        .andExpect(status().isOk());
+
+    verify(recommendationrequestRepository, times(1))
+        .findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/recommendationrequests/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/recommendationrequests/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_recommendation_requests() throws Exception {
+    // arrange
+    List<RecommendationRequest> rows =
+        List.of(RecommendationRequest.builder().build(), RecommendationRequest.builder().build());
+    when(recommendationrequestRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/export"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/recommendationrequests/all and GET /api/recommendationrequests
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(RecommendationRequest.class))
+        .thenReturn("\"recommendationrequest-1700000000000-3\"");
+    when(recommendationrequestRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/all"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        "\"recommendationrequest-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(RecommendationRequest.class))
+        .thenReturn("\"recommendationrequest-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/recommendationrequests/all")
+                .header("If-None-Match", "\"recommendationrequest-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(recommendationrequestRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_recommendation_requests_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(RecommendationRequest.class))
+        .thenReturn("\"recommendationrequest-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/recommendationrequests")
+                .param("id", "7")
+                .header("If-None-Match", "\"recommendationrequest-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(recommendationrequestRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequests/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequests/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_recommendation_requests_in_bulk() throws Exception {
+    // arrange
+    List<RecommendationRequest> items =
+        List.of(
+            RecommendationRequest.builder()
+                .requesterEmail("a@ucsb.edu")
+                .professorEmail("p1@ucsb.edu")
+                .explanation("grad school")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .done(false)
+                .build(),
+            RecommendationRequest.builder()
+                .requesterEmail("a@ucsb.edu")
+                .professorEmail("p2@ucsb.edu")
+                .explanation("grad school")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .done(false)
+                .build());
+    List<BulkItemResult<RecommendationRequest>> results =
+        List.of(
+            BulkItemResult.<RecommendationRequest>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(
+                    RecommendationRequest.builder()
+                        .id(1L)
+                        .requesterEmail("a@ucsb.edu")
+                        .professorEmail("p1@ucsb.edu")
+                        .explanation("grad school")
+                        .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .done(false)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<RecommendationRequest>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(
+                    RecommendationRequest.builder()
+                        .id(2L)
+                        .requesterEmail("a@ucsb.edu")
+                        .professorEmail("p2@ucsb.edu")
+                        .explanation("grad school")
+                        .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .done(false)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(RecommendationRequest.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/recommendationrequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(RecommendationRequest.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_recommendation_requests_in_bulk() throws Exception {
+    // arrange
+    List<RecommendationRequest> items =
+        List.of(
+            RecommendationRequest.builder()
+                .id(1L)
+                .requesterEmail("a@ucsb.edu")
+                .professorEmail("p1@ucsb.edu")
+                .explanation("grad school")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .done(false)
+                .build(),
+            RecommendationRequest.builder()
+                .id(2L)
+                .requesterEmail("a@ucsb.edu")
+                .professorEmail("p2@ucsb.edu")
+                .explanation("grad school")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .done(false)
+                .build());
+    List<BulkItemResult<RecommendationRequest>> results =
+        List.of(
+            BulkItemResult.<RecommendationRequest>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(
+                    RecommendationRequest.builder()
+                        .id(1L)
+                        .requesterEmail("a@ucsb.edu")
+                        .professorEmail("p1@ucsb.edu")
+                        .explanation("grad school")
+                        .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .done(false)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<RecommendationRequest>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(
+                    RecommendationRequest.builder()
+                        .id(2L)
+                        .requesterEmail("a@ucsb.edu")
+                        .professorEmail("p2@ucsb.edu")
+                        .explanation("grad school")
+                        .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .done(false)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(RecommendationRequest.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/recommendationrequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(RecommendationRequest.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_recommendation_requests_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<RecommendationRequest>> results =
+        List.of(
+            BulkItemResult.<RecommendationRequest>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<RecommendationRequest>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(RecommendationRequest.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(RecommendationRequest.class, ids);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
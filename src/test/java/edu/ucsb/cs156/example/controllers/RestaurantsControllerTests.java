@@ -3,25 +3,36 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -163,6 +174,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
     verify(restaurantRepository, times(1)).save(restaurant1);
+    verify(secondLevelCacheService, times(1)).evict(Restaurant.class);
     String expectedJson = mapper.writeValueAsString(restaurant1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -186,7 +198,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
     verify(restaurantRepository, times(1)).findById(15L);
-    verify(restaurantRepository, times(1)).delete(any());
+    verify(restaurantRepository, times(1)).delete(any(Restaurant.class));
+    verify(secondLevelCacheService, times(1)).evict(Restaurant.class);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -244,6 +257,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     verify(restaurantRepository, times(1)).findById(67L);
     verify(restaurantRepository, times(1))
         .save(restaurantEdited); // should be saved with correct user
+    verify(secondLevelCacheService, times(1)).evict(Restaurant.class);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -277,4 +291,284 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/restaurants/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/restaurants/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "name").and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<Restaurant> page =
+        new PageImpl<>(List.of(Restaurant.builder().build()), expectedRequest, 101);
+    when(restaurantRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/restaurants/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "name")
+                    .param("sortDirection", "ASC")
+                    .param("name", "abc"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "id"));
+    when(restaurantRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/restaurants/paged").param("sortField", "id"))
+        .andExpect(status().isOk());
+
+    verify(restaurantRepository, times(1)).findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/restaurants/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/restaurants/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/restaurants/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_restaurants() throws Exception {
+    // arrange
+    List<Restaurant> rows = List.of(Restaurant.builder().build(), Restaurant.builder().build());
+    when(restaurantRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/restaurants/export")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/restaurants/all and GET /api/restaurants
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(Restaurant.class)).thenReturn("\"restaurants-1700000000000-3\"");
+    when(restaurantRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"restaurants-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(Restaurant.class)).thenReturn("\"restaurants-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/restaurants/all").header("If-None-Match", "\"restaurants-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(restaurantRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_restaurants_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(Restaurant.class)).thenReturn("\"restaurants-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/restaurants")
+                .param("id", "7")
+                .header("If-None-Match", "\"restaurants-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(restaurantRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_restaurants_in_bulk() throws Exception {
+    // arrange
+    List<Restaurant> items =
+        List.of(
+            Restaurant.builder().name("Restaurant 1").description("food").build(),
+            Restaurant.builder().name("Restaurant 2").description("food").build());
+    List<BulkItemResult<Restaurant>> results =
+        List.of(
+            BulkItemResult.<Restaurant>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(Restaurant.builder().id(1L).name("Restaurant 1").description("food").build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<Restaurant>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(Restaurant.builder().id(2L).name("Restaurant 2").description("food").build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(Restaurant.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(Restaurant.class, items);
+    verify(secondLevelCacheService, times(1)).evict(Restaurant.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_restaurants_in_bulk() throws Exception {
+    // arrange
+    List<Restaurant> items =
+        List.of(
+            Restaurant.builder().id(1L).name("Restaurant 1").description("food").build(),
+            Restaurant.builder().id(2L).name("Restaurant 2").description("food").build());
+    List<BulkItemResult<Restaurant>> results =
+        List.of(
+            BulkItemResult.<Restaurant>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(Restaurant.builder().id(1L).name("Restaurant 1").description("food").build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<Restaurant>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(Restaurant.builder().id(2L).name("Restaurant 2").description("food").build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(Restaurant.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(Restaurant.class, items);
+    verify(secondLevelCacheService, times(1)).evict(Restaurant.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_restaurants_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<Restaurant>> results =
+        List.of(
+            BulkItemResult.<Restaurant>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<Restaurant>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(Restaurant.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(Restaurant.class, ids);
+    verify(secondLevelCacheService, times(1)).evict(Restaurant.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
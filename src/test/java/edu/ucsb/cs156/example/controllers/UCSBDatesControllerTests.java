@@ -3,26 +3,37 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -191,6 +202,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDateRepository, times(1)).save(ucsbDate1);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDate.class);
     String expectedJson = mapper.writeValueAsString(ucsbDate1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -221,7 +233,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDateRepository, times(1)).findById(15L);
-    verify(ucsbDateRepository, times(1)).delete(any());
+    verify(ucsbDateRepository, times(1)).delete(any(UCSBDate.class));
+    verify(secondLevelCacheService, times(1)).evict(UCSBDate.class);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -289,6 +302,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbDateRepository, times(1)).findById(67L);
     verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+    verify(secondLevelCacheService, times(1)).evict(UCSBDate.class);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -328,4 +342,325 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdates/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "quarterYYYYQ").and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<UCSBDate> page = new PageImpl<>(List.of(UCSBDate.builder().build()), expectedRequest, 101);
+    when(ucsbDateRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsbdates/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "quarterYYYYQ")
+                    .param("sortDirection", "ASC")
+                    .param("quarterYYYYQ", "abc")
+                    .param("name", "abc"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "id"));
+    when(ucsbDateRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/ucsbdates/paged").param("sortField", "id"))
+        .andExpect(status().isOk());
+
+    verify(ucsbDateRepository, times(1)).findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdates/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/ucsbdates/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_dates() throws Exception {
+    // arrange
+    List<UCSBDate> rows = List.of(UCSBDate.builder().build(), UCSBDate.builder().build());
+    when(ucsbDateRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/export")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/ucsbdates/all and GET /api/ucsbdates
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(UCSBDate.class)).thenReturn("\"ucsbdates-1700000000000-3\"");
+    when(ucsbDateRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"ucsbdates-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBDate.class)).thenReturn("\"ucsbdates-1700000000000-3\"");
+
+    mockMvc
+        .perform(get("/api/ucsbdates/all").header("If-None-Match", "\"ucsbdates-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbDateRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_dates_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBDate.class)).thenReturn("\"ucsbdates-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsbdates")
+                .param("id", "7")
+                .header("If-None-Match", "\"ucsbdates-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbDateRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_ucsb_dates_in_bulk() throws Exception {
+    // arrange
+    List<UCSBDate> items =
+        List.of(
+            UCSBDate.builder()
+                .quarterYYYYQ("20221")
+                .name("day 1")
+                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build(),
+            UCSBDate.builder()
+                .quarterYYYYQ("20221")
+                .name("day 2")
+                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build());
+    List<BulkItemResult<UCSBDate>> results =
+        List.of(
+            BulkItemResult.<UCSBDate>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(
+                    UCSBDate.builder()
+                        .id(1L)
+                        .quarterYYYYQ("20221")
+                        .name("day 1")
+                        .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDate>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(
+                    UCSBDate.builder()
+                        .id(2L)
+                        .quarterYYYYQ("20221")
+                        .name("day 2")
+                        .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(UCSBDate.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(UCSBDate.class, items);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDate.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_ucsb_dates_in_bulk() throws Exception {
+    // arrange
+    List<UCSBDate> items =
+        List.of(
+            UCSBDate.builder()
+                .id(1L)
+                .quarterYYYYQ("20221")
+                .name("day 1")
+                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build(),
+            UCSBDate.builder()
+                .id(2L)
+                .quarterYYYYQ("20221")
+                .name("day 2")
+                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build());
+    List<BulkItemResult<UCSBDate>> results =
+        List.of(
+            BulkItemResult.<UCSBDate>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(
+                    UCSBDate.builder()
+                        .id(1L)
+                        .quarterYYYYQ("20221")
+                        .name("day 1")
+                        .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDate>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(
+                    UCSBDate.builder()
+                        .id(2L)
+                        .quarterYYYYQ("20221")
+                        .name("day 2")
+                        .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(UCSBDate.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(UCSBDate.class, items);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDate.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_ucsb_dates_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<UCSBDate>> results =
+        List.of(
+            BulkItemResult.<UCSBDate>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDate>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(UCSBDate.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(UCSBDate.class, ids);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDate.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
@@ -3,25 +3,36 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -206,6 +217,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDiningCommons.class);
     String expectedJson = mapper.writeValueAsString(ortega);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -238,7 +250,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-    verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+    verify(ucsbDiningCommonsRepository, times(1)).delete(any(UCSBDiningCommons.class));
+    verify(secondLevelCacheService, times(1)).evict(UCSBDiningCommons.class);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -313,6 +326,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
     verify(ucsbDiningCommonsRepository, times(1))
         .save(carrilloEdited); // should be saved with updated info
+    verify(secondLevelCacheService, times(1)).evict(UCSBDiningCommons.class);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -354,4 +368,364 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdiningcommons/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "name").and(Sort.by(Sort.Direction.ASC, "code")));
+    Page<UCSBDiningCommons> page =
+        new PageImpl<>(List.of(UCSBDiningCommons.builder().build()), expectedRequest, 101);
+    when(ucsbDiningCommonsRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsbdiningcommons/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "name")
+                    .param("sortDirection", "ASC")
+                    .param("name", "abc")
+                    .param("hasSackMeal", "true")
+                    .param("hasTakeOutMeal", "true")
+                    .param("hasDiningCam", "true"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_code_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "code"));
+    when(ucsbDiningCommonsRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/paged").param("sortField", "code"))
+        .andExpect(status().isOk());
+
+    verify(ucsbDiningCommonsRepository, times(1))
+        .findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/ucsbdiningcommons/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_dining_commons() throws Exception {
+    // arrange
+    List<UCSBDiningCommons> rows =
+        List.of(UCSBDiningCommons.builder().build(), UCSBDiningCommons.builder().build());
+    when(ucsbDiningCommonsRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/export"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/ucsbdiningcommons/all and GET /api/ucsbdiningcommons
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(UCSBDiningCommons.class))
+        .thenReturn("\"ucsbdiningcommons-1700000000000-3\"");
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"ucsbdiningcommons-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBDiningCommons.class))
+        .thenReturn("\"ucsbdiningcommons-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommons/all")
+                .header("If-None-Match", "\"ucsbdiningcommons-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbDiningCommonsRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_dining_commons_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBDiningCommons.class))
+        .thenReturn("\"ucsbdiningcommons-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommons")
+                .param("code", "de-la-guerra")
+                .header("If-None-Match", "\"ucsbdiningcommons-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbDiningCommonsRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_commons_in_bulk() throws Exception {
+    // arrange
+    List<UCSBDiningCommons> items =
+        List.of(
+            UCSBDiningCommons.builder()
+                .code("ortega")
+                .name("Commons 1")
+                .hasSackMeal(true)
+                .hasTakeOutMeal(false)
+                .hasDiningCam(true)
+                .latitude(34.4)
+                .longitude(-119.8)
+                .build(),
+            UCSBDiningCommons.builder()
+                .code("dlg")
+                .name("Commons 2")
+                .hasSackMeal(true)
+                .hasTakeOutMeal(false)
+                .hasDiningCam(true)
+                .latitude(34.4)
+                .longitude(-119.8)
+                .build());
+    List<BulkItemResult<UCSBDiningCommons>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommons>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id("ortega")
+                .item(
+                    UCSBDiningCommons.builder()
+                        .code("ortega")
+                        .name("Commons 1")
+                        .hasSackMeal(true)
+                        .hasTakeOutMeal(false)
+                        .hasDiningCam(true)
+                        .latitude(34.4)
+                        .longitude(-119.8)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommons>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id("dlg")
+                .item(
+                    UCSBDiningCommons.builder()
+                        .code("dlg")
+                        .name("Commons 2")
+                        .hasSackMeal(true)
+                        .hasTakeOutMeal(false)
+                        .hasDiningCam(true)
+                        .latitude(34.4)
+                        .longitude(-119.8)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(UCSBDiningCommons.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(UCSBDiningCommons.class, items);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDiningCommons.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_commons_in_bulk() throws Exception {
+    // arrange
+    List<UCSBDiningCommons> items =
+        List.of(
+            UCSBDiningCommons.builder()
+                .code("ortega")
+                .name("Commons 1")
+                .hasSackMeal(true)
+                .hasTakeOutMeal(false)
+                .hasDiningCam(true)
+                .latitude(34.4)
+                .longitude(-119.8)
+                .build(),
+            UCSBDiningCommons.builder()
+                .code("dlg")
+                .name("Commons 2")
+                .hasSackMeal(true)
+                .hasTakeOutMeal(false)
+                .hasDiningCam(true)
+                .latitude(34.4)
+                .longitude(-119.8)
+                .build());
+    List<BulkItemResult<UCSBDiningCommons>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommons>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id("ortega")
+                .item(
+                    UCSBDiningCommons.builder()
+                        .code("ortega")
+                        .name("Commons 1")
+                        .hasSackMeal(true)
+                        .hasTakeOutMeal(false)
+                        .hasDiningCam(true)
+                        .latitude(34.4)
+                        .longitude(-119.8)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommons>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id("dlg")
+                .item(
+                    UCSBDiningCommons.builder()
+                        .code("dlg")
+                        .name("Commons 2")
+                        .hasSackMeal(true)
+                        .hasTakeOutMeal(false)
+                        .hasDiningCam(true)
+                        .latitude(34.4)
+                        .longitude(-119.8)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(UCSBDiningCommons.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(UCSBDiningCommons.class, items);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDiningCommons.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_commons_in_bulk() throws Exception {
+    // arrange
+    List<String> ids = List.of("ortega", "dlg");
+    List<BulkItemResult<UCSBDiningCommons>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommons>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id("ortega")
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommons>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id("dlg")
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(UCSBDiningCommons.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(UCSBDiningCommons.class, ids);
+    verify(secondLevelCacheService, times(1)).evict(UCSBDiningCommons.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
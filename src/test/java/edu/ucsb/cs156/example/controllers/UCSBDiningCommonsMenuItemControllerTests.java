@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,17 +16,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -288,7 +297,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
     // assert
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
-    verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .delete(any(UCSBDiningCommonsMenuItem.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
@@ -314,4 +324,383 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdiningcommonsmenuitem/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "diningCommonsCode")
+                .and(Sort.by(Sort.Direction.ASC, "id")));
+    Page<UCSBDiningCommonsMenuItem> page =
+        new PageImpl<>(List.of(UCSBDiningCommonsMenuItem.builder().build()), expectedRequest, 101);
+    when(ucsbDiningCommonsMenuItemRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsbdiningcommonsmenuitem/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "diningCommonsCode")
+                    .param("sortDirection", "ASC")
+                    .param("diningCommonsCode", "abc")
+                    .param("station", "abc")
+                    .param("name", "abc"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_id_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "id"));
+    when(ucsbDiningCommonsMenuItemRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/ucsbdiningcommonsmenuitem/paged").param("sortField", "id"))
+        .andExpect(status().isOk());
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommonsmenuitem/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/ucsbdiningcommonsmenuitem/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_menu_items() throws Exception {
+    // arrange
+    List<UCSBDiningCommonsMenuItem> rows =
+        List.of(
+            UCSBDiningCommonsMenuItem.builder().build(),
+            UCSBDiningCommonsMenuItem.builder().build());
+    when(ucsbDiningCommonsMenuItemRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitem/export"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/ucsbdiningcommonsmenuitem/all and GET
+  // /api/ucsbdiningcommonsmenuitem
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(UCSBDiningCommonsMenuItem.class))
+        .thenReturn("\"ucsbdiningcommonsmenuitem-1700000000000-3\"");
+    when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitem/all"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        "\"ucsbdiningcommonsmenuitem-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBDiningCommonsMenuItem.class))
+        .thenReturn("\"ucsbdiningcommonsmenuitem-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommonsmenuitem/all")
+                .header("If-None-Match", "\"ucsbdiningcommonsmenuitem-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbDiningCommonsMenuItemRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_menu_items_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBDiningCommonsMenuItem.class))
+        .thenReturn("\"ucsbdiningcommonsmenuitem-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommonsmenuitem")
+                .param("id", "7")
+                .header("If-None-Match", "\"ucsbdiningcommonsmenuitem-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbDiningCommonsMenuItemRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommonsmenuitem/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommonsmenuitem/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_ucsb_dining_commons_menu_items_in_bulk() throws Exception {
+    // arrange
+    List<UCSBDiningCommonsMenuItem> items =
+        List.of(
+            UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("ortega")
+                .name("Item 1")
+                .station("Entrees")
+                .build(),
+            UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("ortega")
+                .name("Item 2")
+                .station("Entrees")
+                .build());
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id(1L)
+                .item(
+                    UCSBDiningCommonsMenuItem.builder()
+                        .id(1L)
+                        .diningCommonsCode("ortega")
+                        .name("Item 1")
+                        .station("Entrees")
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id(2L)
+                .item(
+                    UCSBDiningCommonsMenuItem.builder()
+                        .id(2L)
+                        .diningCommonsCode("ortega")
+                        .name("Item 2")
+                        .station("Entrees")
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(UCSBDiningCommonsMenuItem.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommonsmenuitem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(UCSBDiningCommonsMenuItem.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_ucsb_dining_commons_menu_items_in_bulk() throws Exception {
+    // arrange
+    List<UCSBDiningCommonsMenuItem> items =
+        List.of(
+            UCSBDiningCommonsMenuItem.builder()
+                .id(1L)
+                .diningCommonsCode("ortega")
+                .name("Item 1")
+                .station("Entrees")
+                .build(),
+            UCSBDiningCommonsMenuItem.builder()
+                .id(2L)
+                .diningCommonsCode("ortega")
+                .name("Item 2")
+                .station("Entrees")
+                .build());
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id(1L)
+                .item(
+                    UCSBDiningCommonsMenuItem.builder()
+                        .id(1L)
+                        .diningCommonsCode("ortega")
+                        .name("Item 1")
+                        .station("Entrees")
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id(2L)
+                .item(
+                    UCSBDiningCommonsMenuItem.builder()
+                        .id(2L)
+                        .diningCommonsCode("ortega")
+                        .name("Item 2")
+                        .station("Entrees")
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(UCSBDiningCommonsMenuItem.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommonsmenuitem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(UCSBDiningCommonsMenuItem.class, items);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_ucsb_dining_commons_menu_items_in_bulk() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id(1L)
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id(2L)
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(UCSBDiningCommonsMenuItem.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommonsmenuitem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(UCSBDiningCommonsMenuItem.class, ids);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_bulk_post_with_an_invalid_item_is_rejected() throws Exception {
+    // arrange
+    List<UCSBDiningCommonsMenuItem> items =
+        List.of(
+            UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("ortega")
+                .name("Item 1")
+                .station("Entrees")
+                .build(),
+            UCSBDiningCommonsMenuItem.builder().diningCommonsCode("ortega").name("Item 2").build());
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        List.of(
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(0)
+                .status(BulkItemResult.SKIPPED)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBDiningCommonsMenuItem>builder()
+                .index(1)
+                .status(BulkItemResult.INVALID)
+                .errors(List.of("station is required"))
+                .build());
+    when(bulkWriteService.create(UCSBDiningCommonsMenuItem.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommonsmenuitem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
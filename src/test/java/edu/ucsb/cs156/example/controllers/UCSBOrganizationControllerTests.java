@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,17 +16,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -128,6 +137,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbOrganizationRepository, times(1)).save(ZPR);
+    verify(secondLevelCacheService, times(1)).evict(UCSBOrganization.class);
     String expectedJson = mapper.writeValueAsString(ZPR);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -235,6 +245,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     verify(ucsbOrganizationRepository, times(1)).findById("ZPR");
     verify(ucsbOrganizationRepository, times(1))
         .save(ZPREdited); // should be saved with updated info
+    verify(secondLevelCacheService, times(1)).evict(UCSBOrganization.class);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -298,7 +309,8 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbOrganizationRepository, times(1)).findById("ZPR");
-    verify(ucsbOrganizationRepository, times(1)).delete(any());
+    verify(ucsbOrganizationRepository, times(1)).delete(any(UCSBOrganization.class));
+    verify(secondLevelCacheService, times(1)).evict(UCSBOrganization.class);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id ZPR deleted", json.get("message"));
@@ -324,4 +336,336 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id SKY not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsborganization/paged
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_sorted_and_filtered_page() throws Exception {
+    // arrange
+    PageRequest expectedRequest =
+        PageRequest.of(
+            1,
+            ApiController.MAX_PAGE_SIZE,
+            Sort.by(Sort.Direction.ASC, "orgTranslationShort")
+                .and(Sort.by(Sort.Direction.ASC, "orgCode")));
+    Page<UCSBOrganization> page =
+        new PageImpl<>(List.of(UCSBOrganization.builder().build()), expectedRequest, 101);
+    when(ucsbOrganizationRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsborganization/paged")
+                    .param("page", "1")
+                    .param("pageSize", "500")
+                    .param("sortField", "orgTranslationShort")
+                    .param("sortDirection", "ASC")
+                    .param("orgTranslationShort", "abc")
+                    .param("inactive", "true"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_sorted_by_orgCode_needs_no_tiebreak() throws Exception {
+    PageRequest expectedRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "orgCode"));
+    when(ucsbOrganizationRepository.findAll(any(Specification.class), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 0));
+
+    mockMvc
+        .perform(get("/api/ucsborganization/paged").param("sortField", "orgCode"))
+        .andExpect(status().isOk());
+
+    verify(ucsbOrganizationRepository, times(1))
+        .findAll(any(Specification.class), eq(expectedRequest));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_page_cannot_be_sorted_by_an_unknown_field() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsborganization/paged").param("sortField", "nosuchfield"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // Tests for GET /api/ucsborganization/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_all_organizations() throws Exception {
+    // arrange
+    List<UCSBOrganization> rows =
+        List.of(UCSBOrganization.builder().build(), UCSBOrganization.builder().build());
+    when(ucsbOrganizationRepository.streamAllBy()).thenReturn(rows.stream());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsborganization/export")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    assertEquals("application/json", response.getResponse().getContentType());
+  }
+
+  // Tests for ETags on GET /api/ucsborganization/all and GET /api/ucsborganization
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_list_is_sent_with_the_etag_of_the_table() throws Exception {
+    // arrange
+    when(tableVersionService.etag(UCSBOrganization.class))
+        .thenReturn("\"ucsborganizations-1700000000000-3\"");
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsborganization/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"ucsborganizations-1700000000000-3\"", response.getResponse().getHeader("ETag"));
+    assertEquals("private, no-cache", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBOrganization.class))
+        .thenReturn("\"ucsborganizations-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsborganization/all")
+                .header("If-None-Match", "\"ucsborganizations-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbOrganizationRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_organizations_detail_is_not_sent_again() throws Exception {
+    when(tableVersionService.etag(UCSBOrganization.class))
+        .thenReturn("\"ucsborganizations-1700000000000-3\"");
+
+    mockMvc
+        .perform(
+            get("/api/ucsborganization")
+                .param("orgCode", "ZPR")
+                .header("If-None-Match", "\"ucsborganizations-1700000000000-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(ucsbOrganizationRepository, never()).findById(any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_organizations_in_bulk() throws Exception {
+    // arrange
+    List<UCSBOrganization> items =
+        List.of(
+            UCSBOrganization.builder()
+                .orgCode("ZPR")
+                .orgTranslationShort("ORG 1")
+                .orgTranslation("ORGANIZATION 1")
+                .inactive(false)
+                .build(),
+            UCSBOrganization.builder()
+                .orgCode("SKY")
+                .orgTranslationShort("ORG 2")
+                .orgTranslation("ORGANIZATION 2")
+                .inactive(false)
+                .build());
+    List<BulkItemResult<UCSBOrganization>> results =
+        List.of(
+            BulkItemResult.<UCSBOrganization>builder()
+                .index(0)
+                .status(BulkItemResult.CREATED)
+                .id("ZPR")
+                .item(
+                    UCSBOrganization.builder()
+                        .orgCode("ZPR")
+                        .orgTranslationShort("ORG 1")
+                        .orgTranslation("ORGANIZATION 1")
+                        .inactive(false)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBOrganization>builder()
+                .index(1)
+                .status(BulkItemResult.CREATED)
+                .id("SKY")
+                .item(
+                    UCSBOrganization.builder()
+                        .orgCode("SKY")
+                        .orgTranslationShort("ORG 2")
+                        .orgTranslation("ORGANIZATION 2")
+                        .inactive(false)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.create(UCSBOrganization.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).create(UCSBOrganization.class, items);
+    verify(secondLevelCacheService, times(1)).evict(UCSBOrganization.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_organizations_in_bulk() throws Exception {
+    // arrange
+    List<UCSBOrganization> items =
+        List.of(
+            UCSBOrganization.builder()
+                .orgCode("ZPR")
+                .orgTranslationShort("ORG 1")
+                .orgTranslation("ORGANIZATION 1")
+                .inactive(false)
+                .build(),
+            UCSBOrganization.builder()
+                .orgCode("SKY")
+                .orgTranslationShort("ORG 2")
+                .orgTranslation("ORGANIZATION 2")
+                .inactive(false)
+                .build());
+    List<BulkItemResult<UCSBOrganization>> results =
+        List.of(
+            BulkItemResult.<UCSBOrganization>builder()
+                .index(0)
+                .status(BulkItemResult.UPDATED)
+                .id("ZPR")
+                .item(
+                    UCSBOrganization.builder()
+                        .orgCode("ZPR")
+                        .orgTranslationShort("ORG 1")
+                        .orgTranslation("ORGANIZATION 1")
+                        .inactive(false)
+                        .build())
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBOrganization>builder()
+                .index(1)
+                .status(BulkItemResult.UPDATED)
+                .id("SKY")
+                .item(
+                    UCSBOrganization.builder()
+                        .orgCode("SKY")
+                        .orgTranslationShort("ORG 2")
+                        .orgTranslation("ORGANIZATION 2")
+                        .inactive(false)
+                        .build())
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.update(UCSBOrganization.class, items)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).update(UCSBOrganization.class, items);
+    verify(secondLevelCacheService, times(1)).evict(UCSBOrganization.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_organizations_in_bulk() throws Exception {
+    // arrange
+    List<String> ids = List.of("ZPR", "SKY");
+    List<BulkItemResult<UCSBOrganization>> results =
+        List.of(
+            BulkItemResult.<UCSBOrganization>builder()
+                .index(0)
+                .status(BulkItemResult.DELETED)
+                .id("ZPR")
+                .item(null)
+                .errors(List.of())
+                .build(),
+            BulkItemResult.<UCSBOrganization>builder()
+                .index(1)
+                .status(BulkItemResult.DELETED)
+                .id("SKY")
+                .item(null)
+                .errors(List.of())
+                .build());
+    when(bulkWriteService.delete(UCSBOrganization.class, ids)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkWriteService, times(1)).delete(UCSBOrganization.class, ids);
+    verify(secondLevelCacheService, times(1)).evict(UCSBOrganization.class);
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
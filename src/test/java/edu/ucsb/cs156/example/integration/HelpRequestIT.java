@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -12,7 +13,12 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,6 +51,8 @@ public class HelpRequestIT {
 
   @Autowired public ObjectMapper mapper;
 
+  @Autowired EntityManagerFactory entityManagerFactory;
+
   @MockitoBean UserRepository userRepository;
 
   @WithMockUser(roles = {"USER"})
@@ -107,4 +115,42 @@ public class HelpRequestIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @Test
+  public void saving_many_help_requests_batches_the_inserts() throws Exception {
+    // arrange
+
+    List<HelpRequest> helpRequests = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      helpRequests.add(
+          HelpRequest.builder()
+              .requesterEmail("user%d@ucsb.edu".formatted(i))
+              .teamId("11")
+              .tableOrBreakoutRoom("Table")
+              .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+              .explanation("Batched")
+              .solved(false)
+              .build());
+    }
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    // act
+
+    helpRequestRepository.saveAll(helpRequests);
+
+    // assert
+
+    // ids are handed out 50 at a time, so they are still consecutive
+    for (int i = 0; i < 120; i++) {
+      assertEquals(i + 1, helpRequests.get(i).getId());
+    }
+    assertEquals(120, statistics.getEntityInsertCount());
+    // 3 calls to the sequence and 3 batches of inserts, rather than 120 inserts (other
+    // statements may run meanwhile, e.g. the job queue's polling)
+    assertTrue(
+        statistics.getPrepareStatementCount() < 20,
+        "prepared " + statistics.getPrepareStatementCount() + " statements");
+    assertEquals(120, helpRequestRepository.count());
+  }
 }
@@ -0,0 +1,479 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobQueueService;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class JobsIT {
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired JobRetentionService jobRetentionService;
+
+  @Autowired JobQueueService jobQueueService;
+
+  @Autowired JobService jobService;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired ExportService exportService;
+
+  @TempDir Path tempDir;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  private User alice;
+  private Job aliceComplete;
+  private Job aliceError;
+  private Job legacy;
+
+  @BeforeEach
+  public void setup() {
+    alice = userRepository.save(User.builder().email("alice@ucsb.edu").build());
+    User bob = userRepository.save(User.builder().email("bob@ucsb.edu").build());
+
+    aliceComplete = jobsRepository.save(Job.builder().createdBy(alice).status("complete").build());
+    aliceError = jobsRepository.save(Job.builder().createdBy(alice).status("error").build());
+    jobsRepository.save(Job.builder().createdBy(bob).status("complete").build());
+    legacy = jobsRepository.save(Job.builder().status("complete").log("old style log").build());
+
+    jobLogLinesRepository.saveAll(
+        List.of(
+            JobLogLine.builder().jobId(aliceComplete.getId()).seq(0).message("Hello").build(),
+            JobLogLine.builder().jobId(aliceComplete.getId()).seq(1).message("World!").build()));
+  }
+
+  private JsonNode getPage(String query) throws Exception {
+    String body =
+        mockMvc
+            .perform(get("/api/jobs" + query))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  private List<Long> ids(JsonNode page) {
+    return page.get("content").findValues("id").stream().map(JsonNode::asLong).toList();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_gets_summaries_without_logs() throws Exception {
+    JsonNode page = getPage("?sortField=id&sortDirection=ASC");
+
+    assertEquals(4, page.get("page").get("totalElements").asInt());
+    JsonNode first = page.get("content").get(0);
+    assertEquals(aliceComplete.getId(), first.get("id").asLong());
+    assertEquals("alice@ucsb.edu", first.get("createdByEmail").asText());
+    assertEquals(2, first.get("logLines").asLong());
+    assertEquals(11, first.get("logSize").asLong());
+    assertNotNull(first.get("createdAt").asText());
+    assertEquals(null, first.get("log"));
+
+    JsonNode last = page.get("content").get(3);
+    assertEquals(legacy.getId(), last.get("id").asLong());
+    assertEquals(0, last.get("logLines").asLong());
+    assertEquals("old style log".length(), last.get("logSize").asLong());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_filter_by_status_and_creator() throws Exception {
+    JsonNode page =
+        getPage(
+            "?status=complete&createdById=" + alice.getId() + "&sortField=id&sortDirection=ASC");
+
+    assertEquals(List.of(aliceComplete.getId()), ids(page));
+
+    page = getPage("?createdById=" + alice.getId() + "&sortField=status&sortDirection=DESC");
+    assertEquals(List.of(aliceError.getId(), aliceComplete.getId()), ids(page));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_filter_by_created_at_range() throws Exception {
+    String hourAgo = ZonedDateTime.now().minusHours(1).toOffsetDateTime().toString();
+    String inAnHour = ZonedDateTime.now().plusHours(1).toOffsetDateTime().toString();
+
+    assertEquals(
+        4,
+        getPage("?createdAfter=" + hourAgo + "&createdBefore=" + inAnHour)
+            .get("page")
+            .get("totalElements")
+            .asInt());
+    assertEquals(0, getPage("?createdBefore=" + hourAgo).get("page").get("totalElements").asInt());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_page_through_jobs() throws Exception {
+    JsonNode page = getPage("?pageSize=3&page=1&sortField=id&sortDirection=ASC");
+
+    assertEquals(List.of(legacy.getId()), ids(page));
+    assertEquals(2, page.get("page").get("totalPages").asInt());
+  }
+
+  @Test
+  public void retention_sweep_keeps_the_newest_finished_jobs_and_unfinished_ones() {
+    Job running = jobsRepository.save(Job.builder().status("running").build());
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 1);
+    ReflectionTestUtils.setField(jobRetentionService, "batchSize", 2);
+
+    assertEquals(3, jobRetentionService.sweep());
+
+    List<Long> remaining = new ArrayList<>();
+    jobsRepository.findAll().forEach(job -> remaining.add(job.getId()));
+    assertEquals(List.of(legacy.getId(), running.getId()), remaining);
+    assertEquals(List.of(), jobLogLinesRepository.findByJobIdOrderBySeqAsc(aliceComplete.getId()));
+  }
+
+  @Test
+  public void retention_sweep_deletes_jobs_older_than_maxAgeDays() {
+    jdbcTemplate.update(
+        "UPDATE jobs SET created_at = ? WHERE id = ?",
+        Timestamp.from(ZonedDateTime.now().minusDays(40).toInstant()),
+        aliceComplete.getId());
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 30);
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 0);
+
+    assertEquals(1, jobRetentionService.sweep());
+
+    assertEquals(3, jobsRepository.count());
+    assertFalse(jobsRepository.existsById(aliceComplete.getId()));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_gets_stats_of_recently_ended_jobs() throws Exception {
+    ZonedDateTime now = ZonedDateTime.now();
+    for (long duration : List.of(100L, 200L, 300L)) {
+      jobsRepository.save(
+          Job.builder()
+              .jobType("TestJob")
+              .status(duration == 300L ? "error" : "complete")
+              .endedAt(now)
+              .runDurationMs(duration)
+              .queueWaitMs(1L)
+              .build());
+    }
+    jobsRepository.save(
+        Job.builder().jobType("OldJob").status("complete").endedAt(now.minusDays(30)).build());
+
+    String body =
+        mockMvc
+            .perform(get("/api/jobs/stats?hours=1"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    JsonNode stats = mapper.readTree(body);
+
+    assertEquals(1, stats.size());
+    assertEquals("TestJob", stats.get(0).get("jobType").asText());
+    assertEquals(3, stats.get(0).get("count").asInt());
+    assertEquals(200, stats.get(0).get("p50RunDurationMs").asLong());
+    assertEquals(300, stats.get(0).get("p95RunDurationMs").asLong());
+  }
+
+  @Test
+  public void markStarted_and_updateProgress_write_only_their_columns() {
+    ZonedDateTime startedAt = ZonedDateTime.now();
+
+    jobsRepository.markStarted(aliceError.getId(), startedAt, 42L);
+    jobsRepository.updateProgress(aliceError.getId(), 0.25);
+
+    Job job = jobsRepository.findById(aliceError.getId()).get();
+    assertEquals(42L, job.getQueueWaitMs());
+    assertEquals(0.25, job.getProgress());
+    assertNotNull(job.getStartedAt());
+    assertEquals("error", job.getStatus());
+  }
+
+  private Job orphan(String params, int attempts) {
+    return jobsRepository.save(
+        Job.builder()
+            .createdBy(alice)
+            .jobType("TestJob")
+            .params(params)
+            .status("running")
+            .attempts(attempts)
+            .claimedBy("stopped-worker")
+            .heartbeatAt(ZonedDateTime.now().minusMinutes(10))
+            .build());
+  }
+
+  @Test
+  public void an_orphaned_job_is_requeued_and_run_again_by_this_worker() {
+    Job job = orphan("{\"fail\":false,\"sleepMs\":0}", 1);
+    jobLogLinesRepository.save(
+        JobLogLine.builder().jobId(job.getId()).seq(0).message("first try").build());
+
+    assertEquals(1, jobQueueService.recoverOrphanedJobs());
+    Job requeued = jobsRepository.findById(job.getId()).get();
+    assertEquals("queued", requeued.getStatus());
+    assertEquals(null, requeued.getClaimedBy());
+
+    jobService.pollQueue();
+
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "complete".equals(jobsRepository.findById(job.getId()).get().getStatus()));
+    Job rerun = jobsRepository.findById(job.getId()).get();
+    assertEquals(2, rerun.getAttempts());
+    assertEquals(jobQueueService.getWorkerId(), rerun.getClaimedBy());
+    assertEquals(
+        List.of(
+            "first try",
+            "Job restarted (attempt 2)",
+            "Hello World! from test job!",
+            "Goodbye from test job!"),
+        jobLogLinesRepository.findByJobIdOrderBySeqAsc(job.getId()).stream()
+            .map(JobLogLine::getMessage)
+            .toList());
+  }
+
+  @Test
+  public void orphaned_jobs_that_cannot_be_rerun_end_with_an_error() {
+    Job lambda = orphan(null, 1);
+    Job tired = orphan("{}", 3);
+    Job alive = orphan("{}", 1);
+    alive.setHeartbeatAt(ZonedDateTime.now());
+    jobsRepository.save(alive);
+
+    assertEquals(0, jobQueueService.recoverOrphanedJobs());
+
+    Job lost = jobsRepository.findById(lambda.getId()).get();
+    assertEquals("error", lost.getStatus());
+    assertEquals("Job lost: its worker stopped before it finished", lost.getResultSummary());
+    assertNotNull(lost.getEndedAt());
+    assertEquals(
+        "Job gave up: its worker stopped 3 times",
+        jobsRepository.findById(tired.getId()).get().getResultSummary());
+    assertEquals("running", jobsRepository.findById(alive.getId()).get().getStatus());
+  }
+
+  @Test
+  public void a_job_started_after_waiting_past_staleAfterMs_is_not_requeued() {
+    Job job =
+        jobsRepository.save(
+            Job.builder()
+                .createdBy(alice)
+                .jobType("TestJob")
+                .params("{}")
+                .status("queued")
+                .claimedBy(jobQueueService.getWorkerId())
+                .heartbeatAt(ZonedDateTime.now().minusMinutes(10))
+                .build());
+
+    jobsRepository.markRunning(job.getId(), 1, ZonedDateTime.now());
+
+    assertEquals(0, jobQueueService.recoverOrphanedJobs());
+    Job running = jobsRepository.findById(job.getId()).get();
+    assertEquals("running", running.getStatus());
+    assertEquals(1, running.getAttempts());
+    assertEquals(jobQueueService.getWorkerId(), running.getClaimedBy());
+    assertEquals("{}", running.getParams());
+  }
+
+  @Test
+  public void claim_takes_unclaimed_queued_jobs_highest_priority_first() {
+    Job low =
+        jobsRepository.save(
+            Job.builder().status("queued").params("{}").priority(JobPriority.LOW).build());
+    Job high =
+        jobsRepository.save(
+            Job.builder().status("queued").params("{}").priority(JobPriority.HIGH).build());
+    jobsRepository.save(
+        Job.builder().status("queued").params("{}").claimedBy("other-worker").build());
+    jobsRepository.save(Job.builder().status("queued").build());
+
+    List<Job> claimed = jobQueueService.claim(1);
+
+    assertEquals(List.of(high.getId()), claimed.stream().map(Job::getId).toList());
+    assertEquals(
+        jobQueueService.getWorkerId(), jobsRepository.findById(high.getId()).get().getClaimedBy());
+    assertEquals(null, jobsRepository.findById(low.getId()).get().getClaimedBy());
+  }
+
+  @Test
+  public void cancelIfUnclaimed_cancels_only_unclaimed_queued_jobs() {
+    Job unclaimed = jobsRepository.save(Job.builder().status("queued").params("{}").build());
+    Job claimed =
+        jobsRepository.save(Job.builder().status("queued").claimedBy("other-worker").build());
+
+    assertEquals(1, jobsRepository.cancelIfUnclaimed(unclaimed.getId(), ZonedDateTime.now()));
+    assertEquals(0, jobsRepository.cancelIfUnclaimed(claimed.getId(), ZonedDateTime.now()));
+    assertEquals(0, jobsRepository.cancelIfUnclaimed(aliceComplete.getId(), ZonedDateTime.now()));
+
+    assertEquals("cancelled", jobsRepository.findById(unclaimed.getId()).get().getStatus());
+    assertEquals("queued", jobsRepository.findById(claimed.getId()).get().getStatus());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_uploaded_csv_file_is_imported_by_a_job() throws Exception {
+    StringBuilder csv = new StringBuilder("diningCommonsCode,name,station\n");
+    for (int i = 0; i < 1200; i++) {
+      csv.append("ortega,Item %d,Entrees\n".formatted(i));
+    }
+    csv.append("ortega,,Entrees\n");
+    MockMultipartFile file =
+        new MockMultipartFile(
+            "file", "items.csv", "text/csv", csv.toString().getBytes(StandardCharsets.UTF_8));
+
+    String body =
+        mockMvc
+            .perform(
+                multipart("/api/jobs/launch/import")
+                    .file(file)
+                    .param("type", "ucsbdiningcommonsmenuitem")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    long id = mapper.readValue(body, Job.class).getId();
+
+    await()
+        .atMost(30, SECONDS)
+        .until(() -> "complete".equals(jobsRepository.findById(id).get().getStatus()));
+    Job job = jobsRepository.findById(id).get();
+    assertEquals("ImportJob", job.getJobType());
+    assertEquals(null, job.getParams());
+    assertEquals("Imported 1200 rows, skipped 1", job.getResultSummary());
+    assertEquals(1200, menuItemRepository.count());
+    List<String> log =
+        jobLogLinesRepository.findByJobIdOrderBySeqAsc(id).stream()
+            .map(JobLogLine::getMessage)
+            .toList();
+    assertEquals(
+        List.of(
+            "Imported 500 rows (up to row 500)",
+            "Imported 1000 rows (up to row 1000)",
+            "Skipped row 1201: name is required",
+            "Imported 1200 rows (up to row 1201)",
+            "Imported 1200 rows, skipped 1"),
+        log.subList(1, log.size()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void a_table_is_exported_by_a_job_and_downloaded() throws Exception {
+    ExportService target = AopTestUtils.getTargetObject(exportService);
+    ReflectionTestUtils.setField(target, "directory", tempDir);
+    List<UCSBDiningCommonsMenuItem> items = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      items.add(
+          UCSBDiningCommonsMenuItem.builder()
+              .diningCommonsCode("ortega")
+              .name("Item %d".formatted(i))
+              .station("Entrees")
+              .build());
+    }
+    menuItemRepository.saveAll(items);
+
+    String body =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/export")
+                    .param("table", "ucsbdiningcommonsmenuitem")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    long id = mapper.readValue(body, Job.class).getId();
+
+    await()
+        .atMost(30, SECONDS)
+        .until(() -> "complete".equals(jobsRepository.findById(id).get().getStatus()));
+    Job job = jobsRepository.findById(id).get();
+    assertEquals("ExportJob", job.getJobType());
+    assertEquals(null, job.getParams());
+
+    byte[] file =
+        mockMvc
+            .perform(get("/api/jobs/export/%d".formatted(id)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    List<String> lines;
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(file))) {
+      lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+    }
+    assertEquals(1201, lines.size());
+    assertEquals("id,diningCommonsCode,name,station", lines.get(0));
+    assertEquals("%d,ortega,\"Item 0\",Entrees".formatted(items.get(0).getId()), lines.get(1));
+    assertEquals(
+        "Exported 1200 rows to ucsbdiningcommonsmenuitem-%d.csv.gz (%d bytes)"
+            .formatted(id, file.length),
+        job.getResultSummary());
+  }
+}
@@ -5,6 +5,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
@@ -13,6 +14,8 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +30,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -102,4 +106,78 @@ public class MenuItemReviewIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_page_through_filtered_reviews() throws Exception {
+    // arrange
+    for (int i = 1; i <= 5; i++) {
+      menuItemReviewRepository.save(
+          MenuItemReview.builder()
+              .itemId(i % 2 == 0 ? 27 : 28)
+              .reviewerEmail(i == 4 ? "Picky_%Eater@ucsb.edu" : "test@gmail.com")
+              .stars(i)
+              .dateReviewed(LocalDateTime.parse("2022-01-0%dT00:00:00".formatted(i)))
+              .comments("Review " + i)
+              .build());
+    }
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/menuitemreview/paged")
+                    .param("pageSize", "1")
+                    .param("itemId", "27")
+                    .param("minStars", "2")
+                    .param("dateReviewedBefore", "2022-01-05T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(2, page.get("page").get("totalElements").asInt());
+    assertEquals(2, page.get("page").get("totalPages").asInt());
+    assertEquals(4, page.get("content").get(0).get("stars").asInt());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_scroll_through_all_reviews_with_a_cursor() throws Exception {
+    // arrange: reviews 1 and 2 share a date, and review 3 has none
+    for (int i = 1; i <= 5; i++) {
+      menuItemReviewRepository.save(
+          MenuItemReview.builder()
+              .itemId(27)
+              .reviewerEmail("test@gmail.com")
+              .stars(i)
+              .dateReviewed(
+                  i == 3
+                      ? null
+                      : LocalDateTime.parse("2022-01-0%dT00:00:00".formatted((i + 1) / 2)))
+              .comments("Review " + i)
+              .build());
+    }
+
+    // act
+    List<Integer> stars = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      MockHttpServletRequestBuilder request =
+          get("/api/menuitemreview/cursor").param("pageSize", "2");
+      if (cursor != null) {
+        request.param("cursor", cursor);
+      }
+      MvcResult response = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+      JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+      page.get("content").forEach(review -> stars.add(review.get("stars").asInt()));
+      cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+      pages++;
+    } while (cursor != null);
+
+    // assert: newest first, ties broken by id, and no review twice
+    assertEquals(List.of(5, 4, 2, 1), stars);
+    assertEquals(2, pages);
+  }
 }
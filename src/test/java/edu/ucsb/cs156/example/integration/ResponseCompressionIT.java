@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * These tests go through the real server (rather than MockMvc), since responses are compressed by
+ * Tomcat.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@Import({TestConfig.class, ResponseCompressionIT.TestUserConfig.class})
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ResponseCompressionIT {
+
+  /** Logs in requests that have an X-Test-User header as that user, with role USER */
+  @TestConfiguration
+  static class TestUserConfig {
+    @Bean
+    FilterRegistrationBean<Filter> testUserFilter() {
+      FilterRegistrationBean<Filter> registration =
+          new FilterRegistrationBean<>(
+              (request, response, chain) -> {
+                String user = ((HttpServletRequest) request).getHeader("X-Test-User");
+                if (user != null) {
+                  SecurityContextHolder.setContext(
+                      new SecurityContextImpl(
+                          new TestingAuthenticationToken(user, null, "ROLE_USER")));
+                }
+                chain.doFilter(request, response);
+              });
+      // after Spring Security's filters, which would replace the authentication
+      registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+      return registration;
+    }
+  }
+
+  @LocalServerPort private int port;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired ObjectMapper mapper;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  private HttpResponse<byte[]> getAllRestaurants(String ifNoneMatch) throws Exception {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(
+                URI.create("http://localhost:%d/api/restaurants/all".formatted(port)))
+            .header("X-Test-User", "cgaucho@ucsb.edu")
+            .header("Accept-Encoding", "gzip");
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  @Test
+  public void a_large_list_with_an_etag_is_gzipped() throws Exception {
+    restaurantRepository.saveAll(
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    Restaurant.builder()
+                        .name("Restaurant " + i)
+                        .description("A place to eat on campus")
+                        .build())
+            .toList());
+
+    HttpResponse<byte[]> response = getAllRestaurants(null);
+
+    assertEquals(200, response.statusCode());
+    assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+    String etag = response.headers().firstValue("ETag").orElseThrow();
+    assertTrue(etag.startsWith("W/\""), etag);
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+      JsonNode restaurants = mapper.readTree(in);
+      assertEquals(100, restaurants.size());
+    }
+
+    // the weak ETag still gets a 304 when the table has not changed
+    assertEquals(304, getAllRestaurants(etag).statusCode());
+  }
+}
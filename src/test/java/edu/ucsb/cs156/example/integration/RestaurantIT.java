@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -18,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -85,4 +87,53 @@ public class RestaurantIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  private String etagOfAllRestaurants() throws Exception {
+    return mockMvc
+        .perform(get("/api/restaurants/all"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getHeader("ETag");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void the_etag_changes_when_and_only_when_a_restaurant_is_written() throws Exception {
+    // an unchanged table is not sent again
+    String before = etagOfAllRestaurants();
+    mockMvc
+        .perform(get("/api/restaurants/all").header("If-None-Match", before))
+        .andExpect(status().isNotModified());
+
+    // insert
+    mockMvc
+        .perform(post("/api/restaurants/post?name=Chipotle&description=Mexican").with(csrf()))
+        .andExpect(status().isOk());
+    String created = etagOfAllRestaurants();
+    assertNotEquals(before, created);
+    long id = restaurantRepository.findAll().iterator().next().getId();
+    mockMvc
+        .perform(get("/api/restaurants?id=" + id).header("If-None-Match", created))
+        .andExpect(status().isNotModified());
+    mockMvc
+        .perform(get("/api/restaurants?id=" + id).header("If-None-Match", before))
+        .andExpect(status().isOk());
+
+    // update
+    Restaurant edited = Restaurant.builder().name("Chipotle").description("Tex-Mex").build();
+    mockMvc
+        .perform(
+            put("/api/restaurants?id=" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    String updated = etagOfAllRestaurants();
+    assertNotEquals(created, updated);
+
+    // delete
+    mockMvc.perform(delete("/api/restaurants?id=" + id).with(csrf())).andExpect(status().isOk());
+    assertNotEquals(updated, etagOfAllRestaurants());
+  }
 }
@@ -12,12 +12,16 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -100,4 +104,65 @@ public class UCSBDiningCommonsMenuItemIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_menu_items_in_bulk() throws Exception {
+    // arrange
+
+    List<UCSBDiningCommonsMenuItem> items = new ArrayList<>();
+    for (int i = 1; i <= 120; i++) {
+      items.add(
+          UCSBDiningCommonsMenuItem.builder()
+              .name("Item " + i)
+              .diningCommonsCode("ortega")
+              .station("Entrees")
+              .build());
+    }
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommonsmenuitem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(items))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<Map<String, Object>> results =
+        mapper.readValue(response.getResponse().getContentAsString(), List.class);
+    assertEquals(120, results.size());
+    assertEquals("created", results.get(119).get("status"));
+    assertEquals(120, results.get(119).get("id"));
+    assertEquals("Item 120", ucsbDiningCommonsMenuItemRepository.findById(120L).get().getName());
+    assertEquals(120, ucsbDiningCommonsMenuItemRepository.count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_bulk_post_with_an_invalid_item_writes_nothing() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommonsmenuitem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        "[{\"name\": \"Pizza\", \"diningCommonsCode\": \"ortega\", \"station\": \"Entrees\"},"
+                            + " {\"name\": \"Soup\", \"diningCommonsCode\": \"ortega\"}]")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    List<Map<String, Object>> results =
+        mapper.readValue(response.getResponse().getContentAsString(), List.class);
+    assertEquals("skipped", results.get(0).get("status"));
+    assertEquals("invalid", results.get(1).get("status"));
+    assertEquals(List.of("station is required"), results.get(1).get("errors"));
+    assertEquals(0, ucsbDiningCommonsMenuItemRepository.count());
+  }
 }
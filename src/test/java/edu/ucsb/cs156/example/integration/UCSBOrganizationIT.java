@@ -1,10 +1,12 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
@@ -12,12 +14,17 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -101,4 +108,96 @@ public class UCSBOrganizationIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  private List<String> orgCodes(String query) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get(URI.create("/api/ucsborganization/paged" + query)))
+            .andExpect(status().isOk())
+            .andReturn();
+    return mapper
+        .readTree(response.getResponse().getContentAsString())
+        .get("content")
+        .findValues("orgCode")
+        .stream()
+        .map(JsonNode::asText)
+        .toList();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_search_organizations_by_name() throws Exception {
+    // arrange
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgCode("SKY")
+            .orgTranslationShort("SKYDIVING CLUB")
+            .orgTranslation("SKYDIVING CLUB AT UCSB")
+            .inactive(false)
+            .build());
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgCode("OLD")
+            .orgTranslationShort("Chess Club")
+            .orgTranslation("CHESS CLUB AT UCSB")
+            .inactive(true)
+            .build());
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgCode("PCT")
+            .orgTranslationShort("100% CLIMBERS")
+            .orgTranslation("ROCK CLIMBING CLUB")
+            .inactive(false)
+            .build());
+
+    // act and assert
+    assertEquals(List.of("OLD", "SKY"), orgCodes("?orgTranslationShort=club"));
+    assertEquals(List.of("SKY"), orgCodes("?orgTranslationShort=club&inactive=false"));
+    assertEquals(List.of("PCT"), orgCodes("?orgTranslationShort=0%25"));
+    assertEquals(List.of("SKY", "PCT", "OLD"), orgCodes("?sortDirection=DESC"));
+  }
+
+  private Map<String, JsonNode> cacheStats() throws Exception {
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/cache")).andExpect(status().isOk()).andReturn();
+    Map<String, JsonNode> stats = new HashMap<>();
+    mapper
+        .readTree(response.getResponse().getContentAsString())
+        .forEach(region -> stats.put(region.get("region").asText(), region));
+    return stats;
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void repeated_reads_are_served_from_the_second_level_cache() throws Exception {
+    // arrange
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/post?orgCode=SKY&orgTranslationShort=SKYDIVING&orgTranslation=SKYDIVING%20CLUB&inactive=false")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // act
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(get("/api/ucsborganization?orgCode=SKY")).andExpect(status().isOk());
+      mockMvc.perform(get("/api/ucsborganization/all")).andExpect(status().isOk());
+    }
+    Map<String, JsonNode> before = cacheStats();
+
+    mockMvc
+        .perform(
+            put("/api/ucsborganization?orgCode=SKY")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"orgCode\":\"SKY\",\"orgTranslationShort\":\"SKYDIVERS\",\"orgTranslation\":\"SKYDIVING CLUB\",\"inactive\":false}")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    MvcResult afterUpdate =
+        mockMvc.perform(get("/api/ucsborganization/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertTrue(before.get("ucsborganizations").get("hitCount").asLong() >= 2);
+    assertTrue(before.get("default-query-results-region").get("hitCount").asLong() >= 2);
+    assertTrue(afterUpdate.getResponse().getContentAsString().contains("SKYDIVERS"));
+  }
 }
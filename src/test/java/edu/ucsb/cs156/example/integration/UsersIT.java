@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonExportService;
+import edu.ucsb.cs156.example.services.UserUpsertService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UsersIT {
+  @Autowired UserRepository userRepository;
+
+  @Autowired UserUpsertService userUpsertService;
+
+  @Autowired JsonExportService jsonExportService;
+
+  @Autowired ObjectMapper mapper;
+
+  private static User profile(String fullName) {
+    return User.builder().email("cgaucho@ucsb.edu").fullName(fullName).build();
+  }
+
+  @Test
+  public void email_is_unique() {
+    userRepository.save(profile("Chris Gaucho"));
+
+    assertThrows(DataIntegrityViolationException.class, () -> userRepository.save(profile("Copy")));
+  }
+
+  @Test
+  public void concurrent_first_logins_create_one_user() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Callable<User>> logins = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      logins.add(() -> userUpsertService.upsert(profile("Chris Gaucho")));
+    }
+
+    List<Long> ids = new ArrayList<>();
+    for (Future<User> login : executor.invokeAll(logins)) {
+      ids.add(login.get().getId());
+    }
+    executor.shutdown();
+
+    assertEquals(1, userRepository.count());
+    assertEquals(1, ids.stream().distinct().count());
+  }
+
+  @Test
+  public void a_changed_profile_updates_the_user() {
+    long id = userUpsertService.upsert(profile("Chris Gaucho")).getId();
+
+    userUpsertService.upsert(profile("Christine Gaucho"));
+
+    assertEquals("Christine Gaucho", userRepository.findById(id).get().getFullName());
+  }
+
+  @Test
+  public void users_are_exported_straight_from_the_database() throws Exception {
+    userRepository.save(profile("Chris Gaucho"));
+    userRepository.save(User.builder().email("pgaucho@ucsb.edu").fullName("Pat Gaucho").build());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    jsonExportService.writeJsonArray(userRepository::streamAllBy, out);
+
+    List<String> emails =
+        mapper.readTree(out.toByteArray()).findValuesAsText("email").stream().sorted().toList();
+    assertEquals(List.of("cgaucho@ucsb.edu", "pgaucho@ucsb.edu"), emails);
+  }
+}
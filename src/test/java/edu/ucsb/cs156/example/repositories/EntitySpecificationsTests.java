@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+public class EntitySpecificationsTests {
+
+  private Root<MenuItemReview> root;
+  private CriteriaQuery<?> query;
+  private CriteriaBuilder cb;
+  private Path<Object> path;
+  private final Predicate predicate = mock(Predicate.class);
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setup() {
+    root = mock(Root.class);
+    query = mock(CriteriaQuery.class);
+    cb = mock(CriteriaBuilder.class);
+    path = mock(Path.class);
+    when(root.get("field")).thenReturn(path);
+  }
+
+  private Predicate apply(Specification<MenuItemReview> spec) {
+    return spec.toPredicate(root, query, cb);
+  }
+
+  @Test
+  void equalTo_compares_the_field_with_the_value() {
+    when(cb.equal(path, 7L)).thenReturn(predicate);
+
+    assertSame(predicate, apply(EntitySpecifications.equalTo("field", 7L)));
+    assertNull(EntitySpecifications.equalTo("field", null));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void containsIgnoringCase_escapes_like_wildcards() {
+    Expression<String> lower = mock(Expression.class);
+    when(cb.lower((Expression<String>) (Expression<?>) path)).thenReturn(lower);
+    when(cb.like(lower, "%50\\%\\_off\\\\%", '\\')).thenReturn(predicate);
+
+    assertSame(predicate, apply(EntitySpecifications.containsIgnoringCase("field", "50%_OFF\\")));
+    assertNull(EntitySpecifications.containsIgnoringCase("field", null));
+    assertNull(EntitySpecifications.containsIgnoringCase("field", " "));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void atLeast_and_lessThan_bound_the_field() {
+    Path<Integer> stars = (Path<Integer>) (Path<?>) path;
+    when(cb.greaterThanOrEqualTo(stars, 3)).thenReturn(predicate);
+    Predicate below = mock(Predicate.class);
+    when(cb.lessThan(stars, 5)).thenReturn(below);
+
+    assertSame(predicate, apply(EntitySpecifications.atLeast("field", 3)));
+    assertSame(below, apply(EntitySpecifications.lessThan("field", 5)));
+    assertNull(EntitySpecifications.atLeast("field", (Integer) null));
+    assertNull(EntitySpecifications.lessThan("field", (Integer) null));
+  }
+}
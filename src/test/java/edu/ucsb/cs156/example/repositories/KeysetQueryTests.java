@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.services.TableVersionListener;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Checks that the keyset queries behind the cursor listings, which compare (timestamp, id) as a row
+ * value, page through rows in order, including rows that share a timestamp.
+ */
+@DataJpaTest
+@Import({TableVersionService.class, TableVersionListener.class})
+public class KeysetQueryTests {
+
+  @MockitoBean WiremockService wiremockService;
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired JobsRepository jobsRepository;
+
+  private static final LocalDateTime NOON = LocalDateTime.parse("2025-10-01T12:00:00");
+
+  private long helpRequest(LocalDateTime requestTime) {
+    return helpRequestRepository
+        .save(
+            HelpRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .teamId("s25-5pm-3")
+                .tableOrBreakoutRoom("7")
+                .requestTime(requestTime)
+                .explanation("help")
+                .build())
+        .getId();
+  }
+
+  private long review(LocalDateTime dateReviewed) {
+    return menuItemReviewRepository
+        .save(
+            MenuItemReview.builder()
+                .itemId(1)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(dateReviewed)
+                .comments("ok")
+                .build())
+        .getId();
+  }
+
+  @Test
+  public void help_requests_older_than_a_cursor_are_found_in_order() {
+    long oldest = helpRequest(NOON.minusHours(1));
+    long tiedFirst = helpRequest(NOON);
+    long tiedSecond = helpRequest(NOON);
+    long newest = helpRequest(NOON.plusHours(1));
+    PageRequest limit = PageRequest.of(0, 10);
+
+    assertEquals(
+        List.of(newest, tiedSecond, tiedFirst, oldest),
+        helpRequestRepository.findNewest(limit).stream().map(HelpRequest::getId).toList());
+    assertEquals(
+        List.of(tiedFirst, oldest),
+        helpRequestRepository.findOlderThan(NOON, tiedSecond, limit).stream()
+            .map(HelpRequest::getId)
+            .toList());
+    assertEquals(
+        List.of(tiedSecond, tiedFirst),
+        helpRequestRepository
+            .findOlderThan(NOON.plusHours(1), newest, PageRequest.of(0, 2))
+            .stream()
+            .map(HelpRequest::getId)
+            .toList());
+    assertEquals(
+        List.of(),
+        helpRequestRepository.findOlderThan(NOON.minusHours(1), oldest, limit).stream()
+            .map(HelpRequest::getId)
+            .toList());
+  }
+
+  @Test
+  public void reviews_older_than_a_cursor_are_found_in_order() {
+    long oldest = review(NOON.minusHours(1));
+    long tiedFirst = review(NOON);
+    long tiedSecond = review(NOON);
+
+    assertEquals(
+        List.of(tiedFirst, oldest),
+        menuItemReviewRepository.findOlderThan(NOON, tiedSecond, PageRequest.of(0, 10)).stream()
+            .map(MenuItemReview::getId)
+            .toList());
+  }
+
+  @Test
+  public void jobs_created_before_a_cursor_are_found_in_order() {
+    ZonedDateTime noon = ZonedDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    long oldest = jobsRepository.save(Job.builder().createdAt(noon.minusHours(1)).build()).getId();
+    long tiedFirst = jobsRepository.save(Job.builder().createdAt(noon).build()).getId();
+    long tiedSecond = jobsRepository.save(Job.builder().createdAt(noon).build()).getId();
+
+    assertEquals(
+        List.of(tiedFirst, oldest),
+        jobsRepository.findSummariesCreatedBefore(noon, tiedSecond, PageRequest.of(0, 10)).stream()
+            .map(JobSummary::getId)
+            .toList());
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Checks, against the schema that the Liquibase changelogs create, that the lookups the application
+ * does by something other than the primary key can use an index.
+ */
+@DataJpaTest
+public class RepositoryIndexTests {
+
+  @MockitoBean WiremockService wiremockService;
+
+  @Autowired ApplicationContext applicationContext;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @Autowired DataSource dataSource;
+
+  @Test
+  public void every_derived_query_is_backed_by_an_index() throws Exception {
+    Repositories repositories = new Repositories(applicationContext);
+    List<String> unindexed = new ArrayList<>();
+    int checked = 0;
+
+    for (Class<?> domainType : repositories) {
+      RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+      for (Method method : information.getQueryMethods()) {
+        if (method.isAnnotationPresent(Query.class)) {
+          continue;
+        }
+        PartTree tree = new PartTree(method.getName(), domainType);
+        if (!tree.getParts().iterator().hasNext()) {
+          continue; // e.g. streamAllBy, which reads the whole table anyway
+        }
+        // an index can only be used when it leads with the first property of the criteria
+        Part first = tree.getParts().iterator().next();
+        String column = columnOf(domainType, first.getProperty().getSegment());
+        checked++;
+        if (!leadingIndexColumns(domainType).contains(column)) {
+          unindexed.add(
+              "%s.%s (%s.%s)"
+                  .formatted(
+                      information.getRepositoryInterface().getSimpleName(),
+                      method.getName(),
+                      tableOf(domainType),
+                      column));
+        }
+      }
+    }
+
+    assertTrue(checked > 0);
+    assertEquals(List.of(), unindexed, "derived queries without an index on their first column");
+  }
+
+  @Test
+  public void natural_lookups_are_backed_by_an_index() throws Exception {
+    assertIndexed(MenuItemReview.class, "itemId");
+    assertIndexed(UCSBDiningCommonsMenuItem.class, "diningCommonsCode");
+    assertIndexed(HelpRequest.class, "requesterEmail");
+    assertIndexed(HelpRequest.class, "solved");
+    assertIndexed(Job.class, "createdBy");
+    assertIndexed(Job.class, "status");
+  }
+
+  private void assertIndexed(Class<?> domainType, String property) throws Exception {
+    String column = columnOf(domainType, property);
+    assertTrue(
+        leadingIndexColumns(domainType).contains(column),
+        "no index on " + tableOf(domainType) + "." + column);
+  }
+
+  private AbstractEntityPersister persister(Class<?> domainType) {
+    return (AbstractEntityPersister)
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(domainType);
+  }
+
+  private String tableOf(Class<?> domainType) {
+    return persister(domainType).getTableName();
+  }
+
+  private String columnOf(Class<?> domainType, String property) {
+    AbstractEntityPersister persister = persister(domainType);
+    String column =
+        property.equals(persister.getIdentifierPropertyName())
+            ? persister.getIdentifierColumnNames()[0]
+            : persister.getPropertyColumnNames(property)[0];
+    return column.toUpperCase(Locale.ROOT);
+  }
+
+  /** The columns that some index (or the primary key) of the entity's table starts with. */
+  private Set<String> leadingIndexColumns(Class<?> domainType) throws Exception {
+    Set<String> columns = new HashSet<>();
+    try (Connection connection = dataSource.getConnection()) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      String table = tableOf(domainType);
+      table =
+          metaData.storesUpperCaseIdentifiers()
+              ? table.toUpperCase(Locale.ROOT)
+              : table.toLowerCase(Locale.ROOT);
+      try (ResultSet indexes = metaData.getIndexInfo(null, null, table, false, false)) {
+        while (indexes.next()) {
+          if (indexes.getShort("ORDINAL_POSITION") == 1) {
+            columns.add(indexes.getString("COLUMN_NAME").toUpperCase(Locale.ROOT));
+          }
+        }
+      }
+      try (ResultSet primaryKey = metaData.getPrimaryKeys(null, null, table)) {
+        while (primaryKey.next()) {
+          if (primaryKey.getShort("KEY_SEQ") == 1) {
+            columns.add(primaryKey.getString("COLUMN_NAME").toUpperCase(Locale.ROOT));
+          }
+        }
+      }
+    }
+    return columns;
+  }
+}
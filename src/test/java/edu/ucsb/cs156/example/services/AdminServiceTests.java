@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class AdminServiceTests {
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+
+  private final AdminService adminService =
+      new AdminService(userRepository, List.of("phtcon@ucsb.edu"), 100, 300);
+
+  @Test
+  void configured_admins_are_admins_without_a_database_query() {
+    assertTrue(adminService.isConfiguredAdmin("phtcon@ucsb.edu"));
+    assertTrue(adminService.isAdmin("phtcon@ucsb.edu"));
+
+    verify(userRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  void the_admin_flag_from_the_database_is_cached_until_evicted() {
+    User user = User.builder().email("cgaucho@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+
+    assertFalse(adminService.isConfiguredAdmin("cgaucho@ucsb.edu"));
+    assertTrue(adminService.isAdmin("cgaucho@ucsb.edu"));
+    user.setAdmin(false);
+    assertTrue(adminService.isAdmin("cgaucho@ucsb.edu"));
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+
+    adminService.evict("cgaucho@ucsb.edu");
+
+    assertFalse(adminService.isAdmin("cgaucho@ucsb.edu"));
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void unknown_users_are_not_admins() {
+    when(userRepository.findByEmail("nobody@ucsb.edu")).thenReturn(Optional.empty());
+
+    assertFalse(adminService.isAdmin("nobody@ucsb.edu"));
+  }
+}
@@ -0,0 +1,241 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+@DataJpaTest
+@Import({BulkWriteService.class, TableVersionService.class, TableVersionListener.class})
+@TestPropertySource(properties = "app.bulk.maxItems=5")
+public class BulkWriteServiceTests {
+
+  @MockitoBean WiremockService wiremockService;
+
+  @Autowired BulkWriteService bulkWriteService;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired UCSBOrganizationRepository organizationRepository;
+
+  private static UCSBDiningCommonsMenuItem menuItem(String name) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode("ortega")
+        .name(name)
+        .station("Entrees")
+        .build();
+  }
+
+  private static UCSBOrganization organization(String orgCode) {
+    return UCSBOrganization.builder()
+        .orgCode(orgCode)
+        .orgTranslationShort(orgCode + " SHORT")
+        .orgTranslation(orgCode + " LONG")
+        .inactive(false)
+        .build();
+  }
+
+  private static List<String> statuses(List<? extends BulkItemResult<?>> results) {
+    return results.stream().map(BulkItemResult::getStatus).toList();
+  }
+
+  private static List<List<String>> errors(List<? extends BulkItemResult<?>> results) {
+    return results.stream().map(BulkItemResult::getErrors).toList();
+  }
+
+  @Test
+  public void items_with_generated_ids_are_created() {
+    List<UCSBDiningCommonsMenuItem> items = List.of(menuItem("Pizza"), menuItem("Salad"));
+
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        bulkWriteService.create(UCSBDiningCommonsMenuItem.class, items);
+
+    assertEquals(List.of("created", "created"), statuses(results));
+    assertEquals(List.of(0, 1), results.stream().map(BulkItemResult::getIndex).toList());
+    assertSame(items.get(0), results.get(0).getItem());
+    assertEquals(items.get(1).getId(), results.get(1).getId());
+    assertEquals(List.of(List.of(), List.of()), errors(results));
+    assertEquals(items, menuItemRepository.findAll());
+  }
+
+  @Test
+  public void nothing_is_created_if_an_item_is_invalid() {
+    UCSBDiningCommonsMenuItem withId = menuItem("Pizza");
+    withId.setId(7);
+    UCSBDiningCommonsMenuItem withoutStation = menuItem("Soup");
+    withoutStation.setStation(null);
+    withoutStation.setName(null);
+
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        bulkWriteService.create(
+            UCSBDiningCommonsMenuItem.class,
+            Arrays.asList(menuItem("Salad"), withId, null, withoutStation));
+
+    assertEquals(List.of("skipped", "invalid", "invalid", "invalid"), statuses(results));
+    assertEquals(
+        List.of(
+            List.of(),
+            List.of("id is assigned by the database and must not be given"),
+            List.of("item is missing"),
+            List.of("name is required", "station is required")),
+        errors(results));
+    assertNull(results.get(0).getId());
+    assertEquals(7L, results.get(1).getId());
+    assertNull(results.get(0).getItem());
+    assertEquals(0, menuItemRepository.count());
+  }
+
+  @Test
+  public void items_with_given_ids_are_created() {
+    List<BulkItemResult<UCSBOrganization>> results =
+        bulkWriteService.create(
+            UCSBOrganization.class, List.of(organization("ZPR"), organization("SKY")));
+
+    assertEquals(List.of("created", "created"), statuses(results));
+    assertEquals(List.of("ZPR", "SKY"), results.stream().map(BulkItemResult::getId).toList());
+    assertEquals(organization("SKY"), organizationRepository.findById("SKY").get());
+  }
+
+  @Test
+  public void given_ids_must_be_new_and_distinct() {
+    organizationRepository.save(organization("OLD"));
+
+    List<BulkItemResult<UCSBOrganization>> results =
+        bulkWriteService.create(
+            UCSBOrganization.class,
+            List.of(
+                organization("ZPR"), organization("ZPR"), organization("OLD"), organization(null)));
+
+    assertEquals(List.of("skipped", "invalid", "invalid", "invalid"), statuses(results));
+    assertEquals(
+        List.of(
+            List.of(),
+            List.of("orgCode ZPR appears more than once"),
+            List.of("UCSBOrganization with id OLD already exists"),
+            List.of("orgCode is required")),
+        errors(results));
+    assertEquals(1, organizationRepository.count());
+  }
+
+  @Test
+  public void items_are_updated() {
+    UCSBDiningCommonsMenuItem pizza = menuItemRepository.save(menuItem("Pizza"));
+    UCSBDiningCommonsMenuItem salad = menuItemRepository.save(menuItem("Salad"));
+    UCSBDiningCommonsMenuItem newPizza = menuItem("Cheese Pizza");
+    newPizza.setId(pizza.getId());
+    UCSBDiningCommonsMenuItem newSalad = menuItem("Green Salad");
+    newSalad.setId(salad.getId());
+    newSalad.setStation("Greens");
+
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        bulkWriteService.update(UCSBDiningCommonsMenuItem.class, List.of(newPizza, newSalad));
+
+    assertEquals(List.of("updated", "updated"), statuses(results));
+    assertEquals(
+        List.of(pizza.getId(), salad.getId()), results.stream().map(r -> r.getId()).toList());
+    assertEquals(newSalad, results.get(1).getItem());
+    assertEquals(List.of(newPizza, newSalad), menuItemRepository.findAll());
+  }
+
+  @Test
+  public void nothing_is_updated_if_an_item_is_invalid() {
+    UCSBDiningCommonsMenuItem pizza = menuItemRepository.save(menuItem("Pizza"));
+    UCSBDiningCommonsMenuItem newPizza = menuItem("Cheese Pizza");
+    newPizza.setId(pizza.getId());
+    UCSBDiningCommonsMenuItem unknown = menuItem("Unknown");
+    unknown.setId(pizza.getId() + 100);
+    UCSBDiningCommonsMenuItem withoutName = menuItem(null);
+    withoutName.setId(pizza.getId());
+
+    List<UCSBDiningCommonsMenuItem> items = new ArrayList<>();
+    items.add(newPizza);
+    items.add(unknown);
+    items.add(menuItem("No id"));
+    items.add(null);
+    items.add(withoutName);
+    List<BulkItemResult<UCSBDiningCommonsMenuItem>> results =
+        bulkWriteService.update(UCSBDiningCommonsMenuItem.class, items);
+
+    assertEquals(List.of("skipped", "invalid", "invalid", "invalid", "invalid"), statuses(results));
+    assertEquals(
+        List.of(
+            List.of(),
+            List.of(
+                "UCSBDiningCommonsMenuItem with id %d not found".formatted(pizza.getId() + 100)),
+            List.of("id is required"),
+            List.of("item is missing"),
+            List.of("id %d appears more than once".formatted(pizza.getId()), "name is required")),
+        errors(results));
+    assertEquals("Pizza", menuItemRepository.findById(pizza.getId()).get().getName());
+  }
+
+  @Test
+  public void items_are_deleted() {
+    organizationRepository.save(organization("ZPR"));
+    organizationRepository.save(organization("SKY"));
+    organizationRepository.save(organization("KEEP"));
+
+    List<BulkItemResult<UCSBOrganization>> results =
+        bulkWriteService.delete(UCSBOrganization.class, List.of("ZPR", "SKY"));
+
+    assertEquals(List.of("deleted", "deleted"), statuses(results));
+    assertEquals(List.of("ZPR", "SKY"), results.stream().map(BulkItemResult::getId).toList());
+    assertNull(results.get(0).getItem());
+    assertEquals(List.of(organization("KEEP")), organizationRepository.findAll());
+  }
+
+  @Test
+  public void nothing_is_deleted_if_an_id_is_invalid() {
+    organizationRepository.save(organization("ZPR"));
+
+    List<BulkItemResult<UCSBOrganization>> results =
+        bulkWriteService.delete(UCSBOrganization.class, Arrays.asList("ZPR", "NONE", null, "ZPR"));
+
+    assertEquals(List.of("skipped", "invalid", "invalid", "invalid"), statuses(results));
+    assertEquals(
+        List.of(
+            List.of(),
+            List.of("UCSBOrganization with id NONE not found"),
+            List.of("orgCode is required"),
+            List.of("orgCode ZPR appears more than once")),
+        errors(results));
+    assertEquals(1, organizationRepository.count());
+  }
+
+  @Test
+  public void an_empty_request_writes_nothing() {
+    assertEquals(List.of(), bulkWriteService.create(UCSBOrganization.class, List.of()));
+    assertEquals(List.of(), bulkWriteService.update(UCSBOrganization.class, List.of()));
+    assertEquals(List.of(), bulkWriteService.delete(UCSBOrganization.class, List.of()));
+  }
+
+  @Test
+  public void at_most_max_items_can_be_written_at_once() {
+    List<String> ids = List.of("A", "B", "C", "D", "E", "F");
+
+    ResponseStatusException e =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> bulkWriteService.delete(UCSBOrganization.class, ids));
+
+    assertEquals(400, e.getStatusCode().value());
+    assertEquals("at most 5 items can be written at once", e.getReason());
+  }
+}
@@ -1,14 +1,35 @@
 package edu.ucsb.cs156.example.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.MockCurrentUserServiceImpl;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Answers;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 class CurrentUserServiceTests extends ControllerTestCase {
 
@@ -27,4 +48,135 @@ class CurrentUserServiceTests extends ControllerTestCase {
     when(currentUserService.getUser()).thenReturn(User.builder().build());
     assertTrue(currentUserService.isLoggedIn());
   }
+
+  @AfterEach
+  void clearContexts() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private CurrentUserService loggedInAs(String username) {
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new UsernamePasswordAuthenticationToken(
+                new org.springframework.security.core.userdetails.User(
+                    username, "password", List.of()),
+                null,
+                List.of()));
+    CurrentUserService currentUserService = new MockCurrentUserServiceImpl();
+    ReflectionTestUtils.setField(
+        currentUserService, "grantedAuthoritiesService", new GrantedAuthoritiesService());
+    return currentUserService;
+  }
+
+  @Test
+  void test_getCurrentUser_is_computed_once_per_request() {
+    CurrentUserService currentUserService = loggedInAs("user");
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+
+    CurrentUser first = currentUserService.getCurrentUser();
+
+    assertSame(first, currentUserService.getCurrentUser());
+    assertEquals("user@example.org", first.getUser().getEmail());
+
+    // a new request works it out again
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    assertNotSame(first, currentUserService.getCurrentUser());
+  }
+
+  @Test
+  void test_getCurrentUser_is_computed_again_when_the_authentication_changes() {
+    CurrentUserService currentUserService = loggedInAs("user");
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    CurrentUser first = currentUserService.getCurrentUser();
+
+    loggedInAs("admin");
+
+    assertEquals("admin@example.org", currentUserService.getCurrentUser().getUser().getEmail());
+    assertNotSame(first, currentUserService.getCurrentUser());
+  }
+
+  @Test
+  void test_getCurrentUser_outside_a_request_is_not_memoized() {
+    CurrentUserService currentUserService = loggedInAs("user");
+
+    assertNotSame(currentUserService.getCurrentUser(), currentUserService.getCurrentUser());
+  }
+
+  @Test
+  void test_oauth2_user_is_taken_from_the_cache_until_it_changes() {
+    UserRepository userRepository = mock(UserRepository.class);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    AdminService adminService = new AdminService(userRepository, List.of(), 10, 300);
+    UserUpsertService userUpsertService = new UserUpsertService();
+    ReflectionTestUtils.setField(userUpsertService, "userRepository", userRepository);
+    ReflectionTestUtils.setField(userUpsertService, "adminService", adminService);
+    ReflectionTestUtils.setField(userUpsertService, "userCacheMaxSize", 10L);
+    ReflectionTestUtils.setField(userUpsertService, "userCacheTtlSeconds", 300L);
+    userUpsertService.createUserCache();
+    CurrentUserServiceImpl currentUserService = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(currentUserService, "userUpsertService", userUpsertService);
+    ReflectionTestUtils.setField(currentUserService, "adminService", adminService);
+    OAuth2AuthenticationToken token =
+        new OAuth2AuthenticationToken(
+            new DefaultOAuth2User(
+                List.of(),
+                Map.of(
+                    "email", "cgaucho@ucsb.edu",
+                    "sub", "115856948234298493496",
+                    "name", "Chris Gaucho",
+                    "email_verified", true),
+                "email"),
+            List.of(),
+            "google");
+
+    // a miss stores the user, and the next login is a hit
+    User first = currentUserService.getOAuth2AuthenticatedUser(null, token);
+    assertSame(first, currentUserService.getOAuth2AuthenticatedUser(null, token));
+    verify(userRepository, times(1)).save(any(User.class));
+    assertFalse(first.getAdmin());
+
+    // a change to the user replaces the cached user at once
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(first));
+    User promoted =
+        userUpsertService.upsert(
+            User.builder()
+                .email("cgaucho@ucsb.edu")
+                .googleSub("115856948234298493496")
+                .fullName("Chris Gaucho")
+                .emailVerified(true)
+                .admin(true)
+                .build());
+
+    assertSame(promoted, currentUserService.getOAuth2AuthenticatedUser(null, token));
+    assertTrue(currentUserService.getOAuth2AuthenticatedUser(null, token).getAdmin());
+
+    // a changed profile from the provider is stored although the user is cached
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(promoted));
+    OAuth2AuthenticationToken renamedToken =
+        new OAuth2AuthenticationToken(
+            new DefaultOAuth2User(
+                List.of(),
+                Map.of(
+                    "email", "cgaucho@ucsb.edu",
+                    "sub", "115856948234298493496",
+                    "name", "Christopher Gaucho",
+                    "picture", "https://example.org/cgaucho.png",
+                    "email_verified", true),
+                "email"),
+            List.of(),
+            "google");
+
+    User renamed = currentUserService.getOAuth2AuthenticatedUser(null, renamedToken);
+
+    assertEquals("Christopher Gaucho", renamed.getFullName());
+    assertEquals("https://example.org/cgaucho.png", renamed.getPictureUrl());
+    assertTrue(renamed.getAdmin());
+    verify(userRepository).save(renamed);
+    assertSame(renamed, currentUserService.getOAuth2AuthenticatedUser(null, renamedToken));
+  }
 }
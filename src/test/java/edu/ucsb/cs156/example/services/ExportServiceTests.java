@@ -0,0 +1,305 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.jobs.JobCancelledException;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+@DataJpaTest
+@Import({ExportService.class, TableVersionService.class, TableVersionListener.class})
+@TestPropertySource(properties = {"app.export.logEveryRows=2", "app.export.maxAgeDays=7"})
+public class ExportServiceTests {
+
+  @MockitoBean WiremockService wiremockService;
+
+  @MockitoBean JobService jobService;
+
+  @Autowired ExportService exportService;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired JobLogLinesRepository jobLogLinesRepository;
+
+  @TempDir Path tempDir;
+
+  private Path directory;
+
+  private Path importDirectory;
+
+  private final List<String> logged = new ArrayList<>();
+
+  private final JobContext ctx =
+      new JobContext(
+          null,
+          Job.builder().id(7L).build(),
+          1,
+          lines -> lines.stream().map(JobLogLine::getMessage).forEach(logged::add));
+
+  @BeforeEach
+  public void setup() {
+    directory = tempDir.resolve("exports");
+    ExportService target = AopTestUtils.getTargetObject(exportService);
+    ReflectionTestUtils.setField(target, "directory", directory);
+    importDirectory = tempDir.resolve("imports");
+    ReflectionTestUtils.setField(target, "importDirectory", importDirectory);
+  }
+
+  private static String gunzip(Path file) throws Exception {
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static UCSBDiningCommonsMenuItem menuItem(String name) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode("ortega")
+        .name(name)
+        .station("Entrees")
+        .build();
+  }
+
+  @Test
+  public void a_table_is_exported_to_a_compressed_csv_file() throws Exception {
+    long pizza = menuItemRepository.save(menuItem("Pizza")).getId();
+    long salad = menuItemRepository.save(menuItem("Salad, Green")).getId();
+    long soup = menuItemRepository.save(menuItem("Soup")).getId();
+
+    exportService.export(ctx, "ucsbdiningcommonsmenuitem");
+
+    Path file = directory.resolve("ucsbdiningcommonsmenuitem-7.csv.gz");
+    assertEquals(
+        """
+        id,diningCommonsCode,name,station
+        %d,ortega,Pizza,Entrees
+        %d,ortega,"Salad, Green",Entrees
+        %d,ortega,Soup,Entrees
+        """
+            .formatted(pizza, salad, soup),
+        gunzip(file));
+    assertEquals(List.of(file), Files.list(directory).toList());
+    assertEquals(Optional.of(file), exportService.fileOf(7L));
+    String summary =
+        "Exported 3 rows to ucsbdiningcommonsmenuitem-7.csv.gz (%d bytes)"
+            .formatted(Files.size(file));
+    assertEquals(
+        List.of("Exporting 3 rows of ucsbdiningcommonsmenuitem", "Exported 2 rows", summary),
+        logged);
+    assertEquals(1.0, ctx.getProgress());
+    assertEquals(summary, ctx.getResultSummary());
+  }
+
+  @Test
+  public void dates_are_exported_in_iso_format() throws Exception {
+    MenuItemReview review =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(3)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2025-10-01T12:30:00"))
+                .comments("Great")
+                .build());
+
+    exportService.export(ctx, "menuitemreview");
+
+    assertEquals(
+        """
+        id,itemId,reviewerEmail,stars,dateReviewed,comments
+        %d,3,a@ucsb.edu,5,2025-10-01T12:30:00,Great
+        """
+            .formatted(review.getId()),
+        gunzip(directory.resolve("menuitemreview-7.csv.gz")));
+  }
+
+  @Test
+  public void an_empty_table_is_exported_with_just_a_header() throws Exception {
+    exportService.export(ctx, "ucsborganization");
+
+    assertEquals(
+        "orgCode,orgTranslationShort,orgTranslation,inactive\n",
+        gunzip(directory.resolve("ucsborganization-7.csv.gz")));
+    assertEquals("Exporting 0 rows of ucsborganization", logged.get(0));
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void lines_logged_during_the_read_only_export_are_written() throws Exception {
+    // every line is flushed by the export itself, from within its read-only transaction
+    JobContext flushing =
+        new JobContext(jobLogLinesRepository, Job.builder().id(9L).build(), 1, lines -> {});
+    try {
+      exportService.export(flushing, "ucsborganization");
+
+      assertEquals(
+          List.of("Exporting 0 rows of ucsborganization", flushing.getResultSummary()),
+          jobLogLinesRepository.findByJobIdOrderBySeqAsc(9L).stream()
+              .map(JobLogLine::getMessage)
+              .toList());
+    } finally {
+      jobLogLinesRepository.deleteByJobId(9L);
+    }
+  }
+
+  @Test
+  public void a_cancelled_export_leaves_no_file() throws Exception {
+    menuItemRepository.save(menuItem("Pizza"));
+    JobContext cancelled = mock(JobContext.class);
+    when(cancelled.getJobId()).thenReturn(8L);
+    doThrow(new JobCancelledException("cancelled")).when(cancelled).checkCancelled();
+
+    assertThrows(
+        JobCancelledException.class,
+        () -> exportService.export(cancelled, "ucsbdiningcommonsmenuitem"));
+
+    assertEquals(List.of(), Files.list(directory).toList());
+    assertEquals(Optional.empty(), exportService.fileOf(8L));
+  }
+
+  @Test
+  public void there_is_no_file_for_other_jobs() throws Exception {
+    assertEquals(Optional.empty(), exportService.fileOf(7L));
+
+    exportService.export(ctx, "restaurants");
+
+    assertTrue(exportService.fileOf(7L).isPresent());
+    assertEquals(Optional.empty(), exportService.fileOf(17L));
+  }
+
+  @Test
+  public void launch_queues_a_job_that_exports_the_table() throws Exception {
+    Job queued = Job.builder().id(7L).status("queued").build();
+    when(jobService.runAsJob(any(), eq(JobPriority.LOW), eq(0L))).thenReturn(queued);
+
+    assertSame(queued, exportService.launch("helprequest", JobPriority.LOW, 0));
+
+    ArgumentCaptor<ExportJob> exportJob = ArgumentCaptor.forClass(ExportJob.class);
+    verify(jobService).runAsJob(exportJob.capture(), eq(JobPriority.LOW), eq(0L));
+    exportJob.getValue().accept(ctx);
+    assertTrue(Files.exists(directory.resolve("helprequest-7.csv.gz")));
+  }
+
+  @Test
+  public void launch_rejects_unknown_tables() {
+    ResponseStatusException e =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> exportService.launch("users", JobPriority.NORMAL, 0));
+
+    assertEquals(400, e.getStatusCode().value());
+    assertEquals(
+        "table must be one of articles, helprequest, menuitemreview, recommendationrequests,"
+            + " restaurants, ucsbdates, ucsbdiningcommons, ucsbdiningcommonsmenuitem,"
+            + " ucsborganization",
+        e.getReason());
+  }
+
+  @Test
+  public void sweep_deletes_exports_older_than_maxAgeDays() throws Exception {
+    assertEquals(0, exportService.sweep());
+
+    Files.createDirectories(directory);
+    Path old = Files.writeString(directory.resolve("helprequest-1.csv.gz"), "old");
+    Path oldPart = Files.writeString(directory.resolve("helprequest-2.csv.gz.part"), "old");
+    Path recent = Files.writeString(directory.resolve("helprequest-3.csv.gz"), "recent");
+    Path other = Files.writeString(directory.resolve("notes.txt"), "other");
+    FileTime eightDaysAgo = FileTime.from(Instant.now().minus(8, ChronoUnit.DAYS));
+    for (Path file : List.of(old, oldPart, other)) {
+      Files.setLastModifiedTime(file, eightDaysAgo);
+    }
+
+    assertEquals(2, exportService.sweep());
+
+    assertFalse(Files.exists(old));
+    assertFalse(Files.exists(oldPart));
+    assertTrue(Files.exists(recent));
+    assertTrue(Files.exists(other));
+    assertEquals(0, exportService.sweep());
+  }
+
+  @Test
+  public void sweep_deletes_uploads_older_than_maxAgeDays() throws Exception {
+    Files.createDirectories(importDirectory);
+    Path old = Files.writeString(importDirectory.resolve("import-1.csv"), "old");
+    Path recent = Files.writeString(importDirectory.resolve("import-2.csv"), "recent");
+    Path other = Files.writeString(importDirectory.resolve("notes.txt"), "other");
+    FileTime eightDaysAgo = FileTime.from(Instant.now().minus(8, ChronoUnit.DAYS));
+    Files.setLastModifiedTime(old, eightDaysAgo);
+    Files.setLastModifiedTime(other, eightDaysAgo);
+
+    assertEquals(1, exportService.sweep());
+
+    assertFalse(Files.exists(old));
+    assertTrue(Files.exists(recent));
+    assertTrue(Files.exists(other));
+  }
+
+  @Test
+  public void scheduled_sweep_deletes_old_exports() throws Exception {
+    Files.createDirectories(directory);
+    Path old = Files.writeString(directory.resolve("helprequest-1.csv.gz"), "old");
+    Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(8, ChronoUnit.DAYS)));
+
+    exportService.scheduledSweep();
+
+    assertFalse(Files.exists(old));
+  }
+
+  @Test
+  public void scheduled_sweep_does_not_throw_if_the_sweep_fails() throws Exception {
+    Files.createDirectories(directory);
+    // a link to nowhere has no modification time
+    Files.createSymbolicLink(directory.resolve("helprequest-1.csv.gz"), tempDir.resolve("none"));
+
+    exportService.scheduledSweep();
+
+    assertThrows(Exception.class, () -> exportService.sweep());
+  }
+}
@@ -0,0 +1,316 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+@DataJpaTest
+@Import({
+  ImportService.class,
+  BulkWriteService.class,
+  TableVersionService.class,
+  TableVersionListener.class
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = {"app.import.batchSize=2", "app.bulk.maxItems=5"})
+public class ImportServiceTests {
+
+  @MockitoBean WiremockService wiremockService;
+
+  @MockitoBean JobService jobService;
+
+  @Autowired ImportService importService;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @TempDir Path tempDir;
+
+  private final Job job = Job.builder().id(1L).build();
+
+  private final List<String> logged = new ArrayList<>();
+
+  private final JobContext ctx =
+      new JobContext(
+          null, job, 1, lines -> lines.stream().map(JobLogLine::getMessage).forEach(logged::add));
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(importService, "directory", tempDir.resolve("imports"));
+  }
+
+  private Path file(String name, String contents) throws Exception {
+    return Files.writeString(tempDir.resolve(name), contents, StandardCharsets.UTF_8);
+  }
+
+  private static UCSBDiningCommonsMenuItem menuItem(String name, String station) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode("ortega")
+        .name(name)
+        .station(station)
+        .build();
+  }
+
+  private List<UCSBDiningCommonsMenuItem> savedMenuItems() {
+    List<UCSBDiningCommonsMenuItem> items = new ArrayList<>();
+    menuItemRepository
+        .findAll()
+        .forEach(item -> items.add(menuItem(item.getName(), item.getStation())));
+    return items;
+  }
+
+  @Test
+  public void csv_rows_are_imported_in_batches() throws Exception {
+    String csv =
+        """
+        diningCommonsCode,name,station
+        ortega,Pizza,Entrees
+        ortega,"Salad, Green",Greens
+
+        ortega,"Soup ""of the day\""",Entrees
+        ortega,Tacos,Entrees
+        ortega,Pie,Desserts
+        """;
+    Path path = file("items.csv", csv);
+
+    importService.importFile(ctx, UCSBDiningCommonsMenuItem.class, "csv", path);
+
+    assertEquals(
+        List.of(
+            menuItem("Pizza", "Entrees"),
+            menuItem("Salad, Green", "Greens"),
+            menuItem("Soup \"of the day\"", "Entrees"),
+            menuItem("Tacos", "Entrees"),
+            menuItem("Pie", "Desserts")),
+        savedMenuItems());
+    assertEquals(
+        List.of(
+            "Importing UCSBDiningCommonsMenuItem rows from a csv file of %d bytes"
+                .formatted(csv.length()),
+            "Imported 2 rows (up to row 2)",
+            "Imported 4 rows (up to row 4)",
+            "Imported 5 rows (up to row 5)",
+            "Imported 5 rows, skipped 0"),
+        logged);
+    assertEquals(1.0, ctx.getProgress());
+    assertEquals("Imported 5 rows, skipped 0", ctx.getResultSummary());
+  }
+
+  @Test
+  public void csv_rows_that_cannot_be_read_or_are_invalid_are_skipped() throws Exception {
+    Path path =
+        file(
+            "reviews.csv",
+            """
+            itemId,reviewerEmail,stars,dateReviewed,comments
+            7,a@ucsb.edu,5,2025-10-01T12:00:00,Great
+            7,b@ucsb.edu,4,2025-10-02T12:00:00,Good,extra
+            7,c@ucsb.edu,many,2025-10-03T12:00:00,Odd
+            8,,3,2025-10-04T12:00:00,No reviewer
+            8,e@ucsb.edu,2,2025-10-05T12:00:00,Meh
+            """);
+
+    importService.importFile(ctx, MenuItemReview.class, "csv", path);
+
+    List<MenuItemReview> reviews = new ArrayList<>();
+    menuItemReviewRepository.findAll().forEach(reviews::add);
+    assertEquals(
+        List.of("a@ucsb.edu", "e@ucsb.edu"),
+        reviews.stream().map(MenuItemReview::getReviewerEmail).toList());
+    assertEquals(LocalDateTime.parse("2025-10-05T12:00"), reviews.get(1).getDateReviewed());
+    assertEquals(8L, reviews.get(1).getItemId());
+    assertEquals(2, reviews.get(1).getStars());
+
+    assertTrue(logged.get(1).startsWith("Skipped row 2: Too many entries"), logged.get(1));
+    assertTrue(
+        logged.get(2).startsWith("Skipped row 3: Cannot deserialize value of type `int`"),
+        logged.get(2));
+    assertEquals(
+        List.of(
+            "Skipped row 4: reviewerEmail is required",
+            "Imported 1 rows (up to row 4)",
+            "Imported 2 rows (up to row 5)",
+            "Imported 2 rows, skipped 3"),
+        logged.subList(3, logged.size()));
+  }
+
+  @Test
+  public void ndjson_rows_are_imported_and_bad_lines_skipped() throws Exception {
+    Path path =
+        file(
+            "items.ndjson",
+            """
+            {"diningCommonsCode":"ortega","name":"Pizza","station":"Entrees"}
+
+            {"diningCommonsCode":"ortega","name":
+            {"diningCommonsCode":"ortega","name":"Pie","station":"Desserts"}
+            {"id":5,"diningCommonsCode":"ortega","name":"Tacos","station":"Entrees"}
+            """);
+
+    importService.importFile(ctx, UCSBDiningCommonsMenuItem.class, "ndjson", path);
+
+    assertEquals(
+        List.of(menuItem("Pizza", "Entrees"), menuItem("Pie", "Desserts")), savedMenuItems());
+    assertTrue(logged.get(1).startsWith("Skipped row 2: Unexpected end-of-input"), logged.get(1));
+    assertEquals(
+        List.of(
+            "Imported 2 rows (up to row 3)",
+            "Skipped row 4: id is assigned by the database and must not be given",
+            "Imported 2 rows (up to row 4)",
+            "Imported 2 rows, skipped 2"),
+        logged.subList(2, logged.size()));
+  }
+
+  @Test
+  public void an_empty_file_imports_nothing() throws Exception {
+    Path path = file("empty.ndjson", "");
+
+    importService.importFile(ctx, UCSBDiningCommonsMenuItem.class, "ndjson", path);
+
+    assertEquals(
+        List.of(
+            "Importing UCSBDiningCommonsMenuItem rows from a ndjson file of 0 bytes",
+            "Imported 0 rows, skipped 0"),
+        logged);
+    assertNull(ctx.getProgress());
+    assertEquals(0, menuItemRepository.count());
+  }
+
+  @Test
+  public void only_the_first_skipped_rows_are_logged() throws Exception {
+    Path path = file("bad.ndjson", "not json\n".repeat(ImportService.MAX_LOGGED_ERRORS + 5));
+
+    importService.importFile(ctx, UCSBDiningCommonsMenuItem.class, "ndjson", path);
+
+    assertEquals(ImportService.MAX_LOGGED_ERRORS + 3, logged.size());
+    assertEquals("Further skipped rows are not logged", logged.get(logged.size() - 2));
+    assertEquals(
+        "Imported 0 rows, skipped %d".formatted(ImportService.MAX_LOGGED_ERRORS + 5),
+        logged.getLast());
+  }
+
+  @Test
+  public void launch_queues_a_job_that_imports_the_upload_and_deletes_it() throws Exception {
+    Job queued = Job.builder().id(2L).status("queued").build();
+    when(jobService.runAsJob(any(), eq(JobPriority.HIGH), eq(60L))).thenReturn(queued);
+    MockMultipartFile upload =
+        new MockMultipartFile(
+            "file",
+            "items.JSONL",
+            "application/x-ndjson",
+            "{\"diningCommonsCode\":\"ortega\",\"name\":\"Pizza\",\"station\":\"Entrees\"}\n"
+                .getBytes(StandardCharsets.UTF_8));
+
+    Job launched =
+        importService.launch("ucsbdiningcommonsmenuitem", null, upload, JobPriority.HIGH, 60);
+
+    assertSame(queued, launched);
+    ArgumentCaptor<ImportJob> importJob = ArgumentCaptor.forClass(ImportJob.class);
+    verify(jobService).runAsJob(importJob.capture(), eq(JobPriority.HIGH), eq(60L));
+    try (Stream<Path> uploads = Files.list(tempDir.resolve("imports"))) {
+      assertTrue(uploads.allMatch(f -> f.getFileName().toString().startsWith("import-")));
+    }
+
+    importJob.getValue().accept(ctx);
+
+    assertEquals(List.of(menuItem("Pizza", "Entrees")), savedMenuItems());
+    assertEquals("Imported 1 rows, skipped 0", ctx.getResultSummary());
+    // the file was deleted once imported
+    assertThrows(NoSuchFileException.class, () -> importJob.getValue().accept(ctx));
+  }
+
+  @Test
+  public void the_upload_of_a_discarded_job_is_deleted() throws Exception {
+    when(jobService.runAsJob(any(), any(), eq(0L)))
+        .thenReturn(Job.builder().status("queued").build());
+    MockMultipartFile upload =
+        new MockMultipartFile("file", "upload", "text/plain", "itemId\n".getBytes());
+
+    importService.launch("menuitemreview", "csv", upload, JobPriority.NORMAL, 0);
+
+    ArgumentCaptor<ImportJob> importJob = ArgumentCaptor.forClass(ImportJob.class);
+    verify(jobService).runAsJob(importJob.capture(), eq(JobPriority.NORMAL), eq(0L));
+    assertEquals(1, tempDir.resolve("imports").toFile().list().length);
+
+    // e.g. the job was rejected, or cancelled while queued
+    importJob.getValue().onDiscard();
+
+    assertEquals(0, tempDir.resolve("imports").toFile().list().length);
+  }
+
+  @Test
+  public void launch_rejects_unknown_types_and_formats() {
+    MockMultipartFile upload =
+        new MockMultipartFile("file", "items.txt", "text/plain", new byte[0]);
+
+    ResponseStatusException badType =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> importService.launch("users", "csv", upload, JobPriority.NORMAL, 0));
+    ResponseStatusException badFormat =
+        assertThrows(
+            ResponseStatusException.class,
+            () ->
+                importService.launch(
+                    "ucsbdiningcommonsmenuitem", null, upload, JobPriority.NORMAL, 0));
+
+    assertEquals(400, badType.getStatusCode().value());
+    assertEquals(
+        "type must be one of menuitemreview, ucsbdiningcommonsmenuitem", badType.getReason());
+    assertEquals(400, badFormat.getStatusCode().value());
+    assertEquals("format must be csv or ndjson", badFormat.getReason());
+    assertThrows(
+        ResponseStatusException.class,
+        () -> importService.launch("menuitemreview", "xml", upload, JobPriority.NORMAL, 0));
+  }
+
+  @Test
+  public void the_format_comes_from_the_file_name() {
+    assertEquals("csv", ImportService.formatOf("items.CSV"));
+    assertEquals("ndjson", ImportService.formatOf("items.ndjson"));
+    assertEquals("ndjson", ImportService.formatOf("items.jsonl"));
+    assertNull(ImportService.formatOf("items.json"));
+    assertNull(ImportService.formatOf(null));
+    assertNull(ImportService.formatOf("items"));
+  }
+}
@@ -2,11 +2,19 @@ package edu.ucsb.cs156.example.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
+import edu.ucsb.cs156.example.services.jobs.JobQueueService;
+import edu.ucsb.cs156.example.services.jobs.JobRegistry;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +24,16 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobScheduler jobScheduler;
+
+  @Mock private JobLogStreamService jobLogStreamService;
+
+  @Mock private JobRegistry jobRegistry;
+
+  @Mock private JobQueueService jobQueueService;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -62,4 +80,64 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void test_getJobLogs_reassembles_log_lines() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().id(jobId).build();
+    job.setLog("only the tail");
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findByJobIdOrderBySeqAsc(jobId))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("line one").build(),
+                JobLogLine.builder().jobId(jobId).seq(1).message("line two").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line one\nline two", result);
+  }
+
+  @Test
+  void test_runJobAsync_flushes_log_lines_when_job_ends() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(5L).build();
+
+    // Act
+    jobService.runJobAsync(job, ctx -> ctx.log("only line"));
+
+    // Assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(1)).saveAll(captor.capture());
+    assertEquals("only line", captor.getValue().get(0).getMessage());
+    assertEquals("complete", job.getStatus());
+    verify(jobRepository, times(1)).save(job);
+  }
+
+  @Test
+  void test_flushActiveJobLogs_flushes_running_jobs_and_survives_errors() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(6L).build();
+    when(jobLogLinesRepository.saveAll(any()))
+        .thenThrow(new RuntimeException("database is down"))
+        .thenReturn(List.of());
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("while running");
+          jobService.flushActiveJobLogs();
+          jobService.flushActiveJobLogs();
+          verify(jobLogLinesRepository, times(2)).saveAll(any());
+        });
+    jobService.flushActiveJobLogs();
+
+    // Assert
+    assertEquals("complete", job.getStatus());
+    verify(jobLogLinesRepository, times(2)).saveAll(any());
+  }
 }
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+class JsonExportServiceTests {
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Mock private EntityManager entityManager;
+
+  @InjectMocks private JsonExportService jsonExportService;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void rows_are_written_as_an_array_and_detached() throws Exception {
+    User u1 = User.builder().id(1L).email("a@ucsb.edu").build();
+    User u2 = User.builder().id(2L).email("b@ucsb.edu").build();
+    AtomicBoolean closed = new AtomicBoolean();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    jsonExportService.writeJsonArray(() -> Stream.of(u1, u2).onClose(() -> closed.set(true)), out);
+
+    assertEquals(mapper.writeValueAsString(List.of(u1, u2)), out.toString(StandardCharsets.UTF_8));
+    assertTrue(closed.get());
+    verify(entityManager).detach(u1);
+    verify(entityManager).detach(u2);
+  }
+
+  @Test
+  void no_rows_are_written_as_an_empty_array() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    jsonExportService.writeJsonArray(Stream::empty, out);
+
+    assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void a_failed_write_stops_the_export() {
+    User u1 = User.builder().id(1L).build();
+    AtomicBoolean closed = new AtomicBoolean();
+    OutputStream broken =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("connection reset");
+          }
+        };
+
+    // rows are buffered by the generator, so there must be enough of them to reach the stream
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                jsonExportService.writeJsonArray(
+                    () -> Stream.generate(() -> u1).limit(10000).onClose(() -> closed.set(true)),
+                    broken));
+
+    assertEquals("connection reset", e.getMessage());
+    assertTrue(closed.get());
+  }
+}
@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class SecondLevelCacheServiceTests {
+
+  @Mock private EntityManagerFactory entityManagerFactory;
+
+  @Mock private SessionFactory sessionFactory;
+
+  @Mock private Cache cache;
+
+  @Mock private Statistics statistics;
+
+  @InjectMocks private SecondLevelCacheService secondLevelCacheService;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getCache()).thenReturn(cache);
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+  }
+
+  @Test
+  void evict_drops_the_entities_of_the_type_and_all_query_results() {
+    secondLevelCacheService.evict(Restaurant.class);
+
+    verify(cache).evictEntityData(Restaurant.class);
+    verify(cache).evictQueryRegions();
+  }
+
+  @Test
+  void evictAll_drops_everything() {
+    secondLevelCacheService.evictAll();
+
+    verify(cache).evictAll();
+  }
+
+  @Test
+  void statistics_list_entity_regions_by_name_then_the_query_cache() {
+    CacheRegionStatistics restaurants = mock(CacheRegionStatistics.class);
+    when(restaurants.getHitCount()).thenReturn(10L);
+    when(restaurants.getMissCount()).thenReturn(2L);
+    when(restaurants.getPutCount()).thenReturn(3L);
+    CacheRegionStatistics ucsbdates = mock(CacheRegionStatistics.class);
+    when(ucsbdates.getHitCount()).thenReturn(1L);
+    when(statistics.getSecondLevelCacheRegionNames())
+        .thenReturn(new String[] {"ucsbdates", "restaurants"});
+    when(statistics.getDomainDataRegionStatistics("restaurants")).thenReturn(restaurants);
+    when(statistics.getDomainDataRegionStatistics("ucsbdates")).thenReturn(ucsbdates);
+    when(statistics.getQueryCacheHitCount()).thenReturn(7L);
+    when(statistics.getQueryCacheMissCount()).thenReturn(1L);
+    when(statistics.getQueryCachePutCount()).thenReturn(1L);
+
+    List<CacheRegionStats> stats = secondLevelCacheService.getStatistics();
+
+    assertEquals(
+        List.of(
+            new CacheRegionStats("restaurants", 10, 2, 3),
+            new CacheRegionStats("ucsbdates", 1, 0, 0),
+            new CacheRegionStats("default-query-results-region", 7, 1, 1)),
+        stats);
+  }
+}
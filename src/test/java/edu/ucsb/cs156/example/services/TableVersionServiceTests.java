@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TableVersionServiceTests {
+
+  private static final String UPDATE =
+      "UPDATE TABLE_VERSIONS SET VERSION = VERSION + 1 WHERE TABLE_NAME = ?";
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks private TableVersionService tableVersionService;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void tables_are_named_as_their_entities() {
+    assertEquals("menuitemreview", TableVersionService.tableOf(MenuItemReview.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void the_etag_has_the_table_its_creation_time_and_its_version() throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getTimestamp("CREATED_AT")).thenReturn(new Timestamp(1700000000000L));
+    when(rs.getLong("VERSION")).thenReturn(3L);
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("restaurants")))
+        .thenAnswer(
+            invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(rs, 0)));
+
+    assertEquals("W/\"restaurants-1700000000000-3\"", tableVersionService.etag(Restaurant.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void a_table_without_a_version_has_no_etag() {
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("restaurants")))
+        .thenReturn(List.of());
+
+    assertNull(tableVersionService.etag(Restaurant.class));
+  }
+
+  @Test
+  void bump_increments_the_version() {
+    when(jdbcTemplate.update(UPDATE, "restaurants")).thenReturn(1);
+
+    tableVersionService.bump("restaurants");
+
+    verify(jdbcTemplate).update(UPDATE, "restaurants");
+    verify(jdbcTemplate, never()).update(anyString(), eq("restaurants"), any(Timestamp.class));
+  }
+
+  @Test
+  void bump_adds_a_table_that_has_no_version() {
+    when(jdbcTemplate.update(UPDATE, "newtable")).thenReturn(0);
+
+    tableVersionService.bump("newtable");
+
+    verify(jdbcTemplate)
+        .update(
+            eq("INSERT INTO TABLE_VERSIONS (TABLE_NAME, VERSION, CREATED_AT) VALUES (?, 1, ?)"),
+            eq("newtable"),
+            any(Timestamp.class));
+  }
+
+  @Test
+  void bump_writes_once_per_table_in_a_transaction() {
+    when(jdbcTemplate.update(eq(UPDATE), anyString())).thenReturn(1);
+    TransactionSynchronizationManager.initSynchronization();
+
+    tableVersionService.bump("restaurants");
+    tableVersionService.bump("restaurants");
+    tableVersionService.bump("ucsbdates");
+
+    verify(jdbcTemplate, times(1)).update(UPDATE, "restaurants");
+    verify(jdbcTemplate, times(1)).update(UPDATE, "ucsbdates");
+
+    // the next transaction writes again
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    assertFalse(TransactionSynchronizationManager.hasResource(tableVersionService));
+    tableVersionService.bump("restaurants");
+    verify(jdbcTemplate, times(2)).update(UPDATE, "restaurants");
+  }
+
+  @Test
+  void the_listener_bumps_the_table_of_the_entity() {
+    TableVersionListener listener = new TableVersionListener();
+    TableVersionService service = mock(TableVersionService.class);
+    ReflectionTestUtils.setField(listener, "tableVersionService", service);
+
+    listener.tableChanged(Restaurant.builder().build());
+
+    ArgumentCaptor<String> table = ArgumentCaptor.forClass(String.class);
+    verify(service).bump(table.capture());
+    assertEquals("restaurants", table.getValue());
+  }
+}
@@ -0,0 +1,211 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class UserUpsertServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private AdminService adminService;
+
+  @InjectMocks private UserUpsertService userUpsertService;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ReflectionTestUtils.setField(userUpsertService, "userCacheMaxSize", 10L);
+    ReflectionTestUtils.setField(userUpsertService, "userCacheTtlSeconds", 300L);
+    userUpsertService.createUserCache();
+  }
+
+  private static User profile(String fullName, boolean admin) {
+    return User.builder()
+        .email("cgaucho@ucsb.edu")
+        .googleSub("115856948234298493496")
+        .fullName(fullName)
+        .emailVerified(true)
+        .admin(admin)
+        .build();
+  }
+
+  private static User stored(String fullName, boolean admin) {
+    User user = profile(fullName, admin);
+    user.setId(7L);
+    return user;
+  }
+
+  @Test
+  void a_new_user_is_inserted() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    User profile = profile("Chris Gaucho", false);
+
+    assertSame(profile, userUpsertService.upsert(profile));
+
+    verify(userRepository).save(profile);
+  }
+
+  @Test
+  void a_user_inserted_concurrently_is_read_back() {
+    User winner = stored("Chris Gaucho", false);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(winner));
+    when(userRepository.save(any(User.class)))
+        .thenThrow(new DataIntegrityViolationException("USERS_EMAIL_UK"));
+
+    assertSame(winner, userUpsertService.upsert(profile("Chris Gaucho", false)));
+  }
+
+  @Test
+  void other_integrity_violations_are_thrown() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.save(any(User.class)))
+        .thenThrow(new DataIntegrityViolationException("not null"));
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userUpsertService.upsert(profile("Chris Gaucho", false)));
+  }
+
+  @Test
+  void an_unchanged_user_is_not_written() {
+    User user = stored("Chris Gaucho", true);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+
+    // a configured admin who was removed from app.admin.emails stays an admin
+    assertSame(user, userUpsertService.upsert(profile("Chris Gaucho", false)));
+
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  void a_changed_profile_is_written() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.of(stored("Chris Gaucho", false)));
+
+    User saved = userUpsertService.upsert(profile("Christine Gaucho", false));
+
+    assertEquals(7L, saved.getId());
+    assertEquals("Christine Gaucho", saved.getFullName());
+    verify(userRepository).save(saved);
+    verify(adminService, never()).evict(any());
+  }
+
+  @Test
+  void a_promoted_admin_is_written_and_their_cached_admin_flag_evicted() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.of(stored("Chris Gaucho", false)));
+
+    User saved = userUpsertService.upsert(profile("Chris Gaucho", true));
+
+    assertTrue(saved.getAdmin());
+    verify(adminService).evict("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void a_user_that_was_never_stored_is_not_cached() {
+    assertNull(userUpsertService.getCachedUser("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  void a_stored_user_is_cached() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+
+    User user = userUpsertService.upsert(profile("Chris Gaucho", false));
+
+    assertSame(user, userUpsertService.getCachedUser("cgaucho@ucsb.edu"));
+    assertNull(userUpsertService.getCachedUser("other@ucsb.edu"));
+  }
+
+  @Test
+  void an_unchanged_user_is_cached_as_read() {
+    User existing = stored("Chris Gaucho", false);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    userUpsertService.upsert(profile("Chris Gaucho", false));
+
+    assertSame(existing, userUpsertService.getCachedUser("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  void a_changed_user_replaces_the_cached_one() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(stored("Chris Gaucho", false)));
+    userUpsertService.upsert(profile("Chris Gaucho", false));
+
+    User promoted = userUpsertService.upsert(profile("Chris Gaucho", true));
+
+    assertSame(promoted, userUpsertService.getCachedUser("cgaucho@ucsb.edu"));
+    assertTrue(userUpsertService.getCachedUser("cgaucho@ucsb.edu").getAdmin());
+  }
+
+  @Test
+  void an_unchanged_profile_of_a_cached_user_is_not_read_again() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    User user = userUpsertService.upsert(profile("Chris Gaucho", false));
+
+    assertSame(user, userUpsertService.upsert(profile("Chris Gaucho", false)));
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+    verify(userRepository, times(1)).save(any(User.class));
+  }
+
+  @Test
+  void a_cached_admin_stays_an_admin() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    User admin = userUpsertService.upsert(profile("Chris Gaucho", true));
+
+    assertSame(admin, userUpsertService.upsert(profile("Chris Gaucho", false)));
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void a_changed_profile_of_a_cached_user_is_stored_at_once() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(stored("Chris Gaucho", false)));
+    userUpsertService.upsert(profile("Chris Gaucho", false));
+
+    User renamed = userUpsertService.upsert(profile("Christopher Gaucho", false));
+
+    assertEquals("Christopher Gaucho", renamed.getFullName());
+    verify(userRepository).save(renamed);
+    assertSame(renamed, userUpsertService.getCachedUser("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  void a_user_whose_write_fails_is_not_cached() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.save(any(User.class)))
+        .thenThrow(new DataIntegrityViolationException("not null"));
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userUpsertService.upsert(profile("Chris Gaucho", false)));
+
+    assertNull(userUpsertService.getCachedUser("cgaucho@ucsb.edu"));
+  }
+}
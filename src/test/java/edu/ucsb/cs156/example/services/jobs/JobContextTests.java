@@ -1,13 +1,28 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class JobContextTests {
   @Test
-  public void when_jobs_repository_is_null_does_not_save() throws Exception {
+  public void when_log_lines_repository_is_null_does_not_save() throws Exception {
 
     // arrange
 
@@ -16,8 +31,326 @@ public class JobContextTests {
 
     // act
     ctx.log("This is a log message");
+    ctx.flush();
 
     // assert
     assertEquals("This is a log message", job1.getLog());
   }
+
+  @Test
+  public void log_buffers_lines_and_writes_them_in_batches() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogLinesRepository, job1, 2);
+
+    // act
+    ctx.log("first");
+    verify(jobLogLinesRepository, never()).saveAll(any());
+    ctx.log("second");
+    ctx.log("third");
+
+    // assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(1)).saveAll(captor.capture());
+    List<JobLogLine> lines = captor.getValue();
+    assertEquals(2, lines.size());
+    assertEquals(17L, lines.get(0).getJobId());
+    assertEquals(0L, lines.get(0).getSeq());
+    assertEquals("first", lines.get(0).getMessage());
+    assertEquals(1L, lines.get(1).getSeq());
+    assertEquals("second", lines.get(1).getMessage());
+    assertTrue(lines.get(1).getLoggedAt() != null);
+    assertEquals("first\nsecond\nthird", job1.getLog());
+
+    // act
+    ctx.flush();
+
+    // assert
+    verify(jobLogLinesRepository, times(2)).saveAll(captor.capture());
+    assertEquals(1, captor.getValue().size());
+    assertEquals(2L, captor.getValue().get(0).getSeq());
+    assertEquals("third", captor.getValue().get(0).getMessage());
+  }
+
+  @Test
+  public void flush_passes_written_lines_to_onFlush() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    List<List<JobLogLine>> flushed = new ArrayList<>();
+    JobContext ctx =
+        new JobContext(jobLogLinesRepository, Job.builder().id(3L).build(), 2, flushed::add);
+
+    ctx.log("first");
+    ctx.log("second");
+    ctx.log("third");
+    ctx.flush();
+    ctx.flush();
+
+    assertEquals(2, flushed.size());
+    assertEquals(List.of(0L, 1L), flushed.get(0).stream().map(JobLogLine::getSeq).toList());
+    assertEquals("third", flushed.get(1).get(0).getMessage());
+  }
+
+  @Test
+  public void other_threads_can_log_while_onFlush_runs() throws Exception {
+    Job job = Job.builder().id(3L).build();
+    List<String> logged = new ArrayList<>();
+    JobContext[] ctx = new JobContext[1];
+    ctx[0] =
+        new JobContext(
+            null,
+            job,
+            10,
+            lines -> {
+              Thread other = new Thread(() -> ctx[0].log("while publishing"));
+              other.start();
+              try {
+                other.join(5_000);
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+              logged.add(other.isAlive() ? "blocked" : "not blocked");
+            });
+
+    ctx[0].log("first");
+    ctx[0].flush();
+
+    assertEquals(List.of("not blocked"), logged);
+    assertEquals("first\nwhile publishing", job.getLog());
+  }
+
+  @Test
+  public void the_job_can_log_while_a_batch_is_written() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job = Job.builder().id(3L).build();
+    JobContext ctx = new JobContext(jobLogLinesRepository, job, 10);
+    List<String> logged = new ArrayList<>();
+    when(jobLogLinesRepository.saveAll(any()))
+        .thenAnswer(
+            invocation -> {
+              Thread other = new Thread(() -> ctx.log("while writing"));
+              other.start();
+              other.join(5_000);
+              logged.add(other.isAlive() ? "blocked" : "not blocked");
+              return invocation.getArgument(0);
+            });
+
+    ctx.log("first");
+    ctx.flush();
+
+    assertEquals(List.of("not blocked"), logged);
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository).saveAll(captor.capture());
+    assertEquals(List.of("first"), captor.getValue().stream().map(JobLogLine::getMessage).toList());
+    ctx.flush();
+    verify(jobLogLinesRepository, times(2)).saveAll(captor.capture());
+    assertEquals(
+        List.of("while writing"), captor.getValue().stream().map(JobLogLine::getMessage).toList());
+  }
+
+  @Test
+  public void lines_logged_during_a_failed_write_stay_behind_the_failed_batch() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    JobContext ctx = new JobContext(jobLogLinesRepository, Job.builder().id(3L).build(), 10);
+    List<List<String>> written = new ArrayList<>();
+    when(jobLogLinesRepository.saveAll(any()))
+        .thenAnswer(
+            invocation -> {
+              ctx.log("during the write");
+              throw new RuntimeException("db down");
+            })
+        .thenAnswer(
+            invocation -> {
+              List<JobLogLine> lines = invocation.getArgument(0);
+              written.add(lines.stream().map(JobLogLine::getMessage).toList());
+              return lines;
+            });
+
+    ctx.log("first");
+    assertThrows(RuntimeException.class, ctx::flush);
+    ctx.flush();
+
+    assertEquals(List.of(List.of("first", "during the write")), written);
+  }
+
+  @Test
+  public void flush_that_fails_to_write_does_not_call_onFlush() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    when(jobLogLinesRepository.saveAll(any())).thenThrow(new RuntimeException("db down"));
+    List<List<JobLogLine>> flushed = new ArrayList<>();
+    JobContext ctx =
+        new JobContext(jobLogLinesRepository, Job.builder().id(3L).build(), 10, flushed::add);
+
+    ctx.log("first");
+    assertThrows(RuntimeException.class, ctx::flush);
+
+    assertTrue(flushed.isEmpty());
+  }
+
+  @Test
+  public void setProgress_clamps_and_reports_each_change_once() throws Exception {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+    assertNull(ctx.getProgress());
+    assertNull(ctx.takeProgressUpdate());
+
+    ctx.setProgress(0.25);
+    assertEquals(0.25, ctx.takeProgressUpdate());
+    assertNull(ctx.takeProgressUpdate());
+    assertEquals(0.25, ctx.getProgress());
+
+    ctx.setProgress(1.5);
+    assertEquals(1.0, ctx.getProgress());
+    ctx.setProgress(-1);
+    assertEquals(0.0, ctx.takeProgressUpdate());
+  }
+
+  @Test
+  public void setResultSummary_cuts_long_summaries() throws Exception {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+
+    ctx.setResultSummary("done");
+    assertEquals("done", ctx.getResultSummary());
+
+    ctx.setResultSummary("x".repeat(JobContext.MAX_RESULT_SUMMARY_LENGTH));
+    assertEquals(JobContext.MAX_RESULT_SUMMARY_LENGTH, ctx.getResultSummary().length());
+    ctx.setResultSummary("y".repeat(JobContext.MAX_RESULT_SUMMARY_LENGTH + 1));
+    assertEquals("y".repeat(JobContext.MAX_RESULT_SUMMARY_LENGTH), ctx.getResultSummary());
+
+    ctx.setResultSummary(null);
+    assertNull(ctx.getResultSummary());
+  }
+
+  @Test
+  public void flush_with_nothing_buffered_does_not_write() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    JobContext ctx = new JobContext(jobLogLinesRepository, Job.builder().build());
+
+    ctx.flush();
+
+    verify(jobLogLinesRepository, never()).saveAll(any());
+  }
+
+  @Test
+  public void failed_flush_keeps_lines_for_the_next_flush() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    when(jobLogLinesRepository.saveAll(any()))
+        .thenThrow(new RuntimeException("database is down"))
+        .thenReturn(List.of());
+    JobContext ctx = new JobContext(jobLogLinesRepository, Job.builder().build());
+    ctx.log("precious");
+
+    assertThrows(RuntimeException.class, () -> ctx.flush());
+    ctx.flush();
+
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(2)).saveAll(captor.capture());
+    assertEquals("precious", captor.getValue().get(0).getMessage());
+  }
+
+  @Test
+  public void null_messages_are_logged_as_null() throws Exception {
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(null, job1);
+
+    ctx.log(null);
+
+    assertEquals("null", job1.getLog());
+  }
+
+  @Test
+  public void appendToTail_keeps_short_logs_intact() {
+    assertEquals("a", JobContext.appendToTail(null, "a"));
+    assertEquals("a\nb", JobContext.appendToTail("a", "b"));
+  }
+
+  @Test
+  public void appendToTail_drops_whole_lines_from_the_front() {
+    String first = "x".repeat(JobContext.MAX_LOG_TAIL_LENGTH - 10);
+    String second = "y".repeat(20);
+
+    String result = JobContext.appendToTail(first, second);
+
+    assertEquals(second, result);
+  }
+
+  @Test
+  public void appendToTail_truncates_a_single_line_that_is_too_long() {
+    String line = "a" + "z".repeat(JobContext.MAX_LOG_TAIL_LENGTH);
+
+    String result = JobContext.appendToTail(null, line);
+
+    assertEquals(JobContext.MAX_LOG_TAIL_LENGTH, result.length());
+    assertEquals("z".repeat(JobContext.MAX_LOG_TAIL_LENGTH), result);
+  }
+
+  @Test
+  public void appendToTail_at_exact_limit_is_unchanged() {
+    String line = "q".repeat(JobContext.MAX_LOG_TAIL_LENGTH);
+
+    assertEquals(line, JobContext.appendToTail(null, line));
+  }
+
+  @Test
+  public void a_new_context_is_not_cancelled() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+
+    assertFalse(ctx.isCancelled());
+    assertNull(ctx.getCancelStatus());
+    ctx.checkCancelled();
+  }
+
+  @Test
+  public void cancel_sets_the_flag_and_interrupts_the_runner() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+    ctx.attach(Thread.currentThread());
+
+    assertTrue(ctx.cancel("timeout"));
+    assertTrue(ctx.cancel("cancelled"));
+
+    assertTrue(ctx.isCancelled());
+    assertEquals("timeout", ctx.getCancelStatus());
+    JobCancelledException e = assertThrows(JobCancelledException.class, () -> ctx.checkCancelled());
+    assertEquals("Job timeout", e.getMessage());
+
+    ctx.detach();
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void cancel_does_nothing_when_the_job_is_not_running() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+
+    assertFalse(ctx.cancel("cancelled"));
+    assertFalse(ctx.isCancelled());
+  }
+
+  @Test
+  public void deadline_is_only_set_for_positive_timeouts() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+    assertFalse(ctx.isPastDeadline(Long.MAX_VALUE - 1));
+
+    ctx.setTimeoutMs(0);
+    assertFalse(ctx.isPastDeadline(Long.MAX_VALUE - 1));
+
+    long before = System.currentTimeMillis();
+    ctx.setTimeoutMs(1000);
+    assertFalse(ctx.isPastDeadline(before + 999));
+    assertTrue(ctx.isPastDeadline(System.currentTimeMillis() + 1000));
+  }
+
+  @Test
+  public void setNextSeq_continues_the_numbering_of_an_earlier_log() throws Exception {
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    JobContext ctx = new JobContext(jobLogLinesRepository, Job.builder().id(3L).build(), 10);
+
+    ctx.setNextSeq(7L);
+    ctx.log("again");
+    ctx.flush();
+
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository).saveAll(captor.capture());
+    assertEquals(7L, captor.getValue().get(0).getSeq());
+  }
 }
@@ -0,0 +1,287 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+public class JobLogStreamServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @InjectMocks private JobLogStreamService service;
+
+  private SseEmitter emitter;
+
+  private final Job job = Job.builder().id(5L).status("running").build();
+
+  @AfterEach
+  public void teardown() {
+    service.shutdown();
+  }
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    service = spy(service);
+    emitter = mock(SseEmitter.class);
+    doReturn(emitter).when(service).createEmitter();
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+  }
+
+  private static JobLogLine line(long seq, String message) {
+    return JobLogLine.builder().jobId(5L).seq(seq).message(message).build();
+  }
+
+  private static String text(SseEventBuilder event) {
+    return event.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+  }
+
+  /** Wait until the sender has sent everything published so far. */
+  private void drain() throws Exception {
+    ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(service, "sender");
+    sender.submit(() -> {}).get(5, TimeUnit.SECONDS);
+  }
+
+  private List<String> sentEvents(int count) throws Exception {
+    drain();
+    ArgumentCaptor<SseEventBuilder> captor = ArgumentCaptor.forClass(SseEventBuilder.class);
+    verify(emitter, times(count)).send(captor.capture());
+    return captor.getAllValues().stream().map(JobLogStreamServiceTests::text).toList();
+  }
+
+  @Test
+  void stream_replays_lines_after_the_last_seen_one_and_stays_open_for_a_running_job()
+      throws Exception {
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, 0L))
+        .thenReturn(List.of(line(1, "second"), line(2, "third")));
+
+    assertEquals(emitter, service.stream(job, 0L));
+
+    assertEquals(
+        List.of("id:1\nevent:log\ndata:second\n\n", "id:2\nevent:log\ndata:third\n\n"),
+        sentEvents(2));
+    verify(emitter, never()).complete();
+    assertEquals(1, service.getSubscriberCount(5L));
+  }
+
+  @Test
+  void stream_of_a_finished_job_sends_the_end_event_and_completes() throws Exception {
+    job.setStatus("complete");
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, -1L))
+        .thenReturn(List.of(line(0, "only")));
+
+    service.stream(job, -1L);
+
+    assertEquals(
+        List.of("id:0\nevent:log\ndata:only\n\n", "event:end\ndata:complete\n\n"), sentEvents(2));
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void stream_uses_the_given_job_when_it_has_since_been_deleted() throws Exception {
+    when(jobsRepository.findById(5L)).thenReturn(Optional.empty());
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, -1L))
+        .thenReturn(List.of());
+
+    service.stream(job, -1L);
+
+    drain();
+    verify(emitter, never()).complete();
+  }
+
+  @Test
+  void publish_sends_only_lines_the_client_has_not_seen() throws Exception {
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, -1L))
+        .thenReturn(List.of(line(0, "a"), line(1, "b")));
+    service.stream(job, -1L);
+
+    service.publish(5L, List.of(line(1, "b"), line(2, "c")));
+    service.publish(6L, List.of(line(0, "other job")));
+
+    assertEquals(
+        List.of(
+            "id:0\nevent:log\ndata:a\n\n",
+            "id:1\nevent:log\ndata:b\n\n",
+            "id:2\nevent:log\ndata:c\n\n"),
+        sentEvents(3));
+  }
+
+  @Test
+  void lines_published_while_the_backlog_is_read_are_sent_after_it() throws Exception {
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, -1L))
+        .thenAnswer(
+            invocation -> {
+              // flushed after the client subscribed, but before its backlog was read
+              service.publish(5L, List.of(line(2, "c"), line(3, "d")));
+              service.publish(5L, List.of(line(4, "e")));
+              drain();
+              return List.of(line(0, "a"), line(1, "b"), line(2, "c"));
+            });
+
+    service.stream(job, -1L);
+    service.publish(5L, List.of(line(5, "f")));
+
+    assertEquals(
+        List.of(
+            "id:0\nevent:log\ndata:a\n\n",
+            "id:1\nevent:log\ndata:b\n\n",
+            "id:2\nevent:log\ndata:c\n\n",
+            "id:3\nevent:log\ndata:d\n\n",
+            "id:4\nevent:log\ndata:e\n\n",
+            "id:5\nevent:log\ndata:f\n\n"),
+        sentEvents(6));
+  }
+
+  @Test
+  void a_job_that_ends_while_the_backlog_is_read_ends_the_stream_after_it() throws Exception {
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, -1L))
+        .thenAnswer(
+            invocation -> {
+              service.publish(5L, List.of(line(1, "b")));
+              service.jobEnded(5L, "complete");
+              drain();
+              return List.of(line(0, "a"));
+            });
+
+    service.stream(job, -1L);
+
+    assertEquals(
+        List.of(
+            "id:0\nevent:log\ndata:a\n\n",
+            "id:1\nevent:log\ndata:b\n\n",
+            "event:end\ndata:complete\n\n"),
+        sentEvents(3));
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void shutdown_stops_the_sender() {
+    service.shutdown();
+
+    assertTrue(((ExecutorService) ReflectionTestUtils.getField(service, "sender")).isShutdown());
+  }
+
+  @Test
+  void jobEnded_ends_every_stream_of_the_job() throws Exception {
+    service.stream(job, -1L);
+
+    service.jobEnded(5L, "error");
+    service.jobEnded(5L, "error");
+    service.jobEnded(6L, "complete");
+    drain();
+
+    assertEquals(List.of("event:end\ndata:error\n\n"), sentEvents(1));
+    verify(emitter, times(1)).complete();
+    assertEquals(0, service.getSubscriberCount(5L));
+  }
+
+  @Test
+  void lines_published_after_the_end_are_not_sent() throws Exception {
+    job.setStatus("cancelled");
+    service.stream(job, -1L);
+
+    service.publish(5L, List.of(line(0, "late")));
+
+    assertEquals(List.of("event:end\ndata:cancelled\n\n"), sentEvents(1));
+  }
+
+  @Test
+  void a_client_that_disconnects_is_unsubscribed() throws Exception {
+    ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Consumer<Throwable>> onError = ArgumentCaptor.forClass(Consumer.class);
+
+    service.stream(job, -1L);
+    service.stream(job, -1L);
+    verify(emitter, times(2)).onCompletion(onCompletion.capture());
+    verify(emitter, times(2)).onTimeout(onTimeout.capture());
+    verify(emitter, times(2)).onError(onError.capture());
+    assertEquals(2, service.getSubscriberCount(5L));
+
+    drain();
+    onCompletion.getAllValues().get(0).run();
+    assertEquals(1, service.getSubscriberCount(5L));
+    onTimeout.getAllValues().get(1).run();
+    assertEquals(0, service.getSubscriberCount(5L));
+    onError.getAllValues().get(0).accept(new IOException("gone"));
+    assertEquals(0, service.getSubscriberCount(5L));
+  }
+
+  @Test
+  void a_failed_send_closes_the_stream() throws Exception {
+    IOException broken = new IOException("broken pipe");
+    doThrow(broken).when(emitter).send(any(SseEventBuilder.class));
+    when(jobLogLinesRepository.findByJobIdAndSeqGreaterThanOrderBySeqAsc(5L, -1L))
+        .thenReturn(List.of(line(0, "a"), line(1, "b")));
+
+    service.stream(job, -1L);
+    service.jobEnded(5L, "complete");
+
+    drain();
+    verify(emitter, times(1)).send(any(SseEventBuilder.class));
+    verify(emitter, times(1)).completeWithError(broken);
+    verify(emitter, never()).complete();
+  }
+
+  @Test
+  void a_failed_end_event_closes_the_stream_with_the_error() throws Exception {
+    IllegalStateException closed = new IllegalStateException("already completed");
+    doThrow(closed).when(emitter).send(any(SseEventBuilder.class));
+    job.setStatus("complete");
+
+    service.stream(job, -1L);
+
+    drain();
+    verify(emitter, times(1)).completeWithError(closed);
+    verify(emitter, never()).complete();
+  }
+
+  @Test
+  void isActive_is_true_only_for_queued_and_running_jobs() {
+    assertTrue(JobLogStreamService.isActive("queued"));
+    assertTrue(JobLogStreamService.isActive("running"));
+    assertFalse(JobLogStreamService.isActive("complete"));
+    assertFalse(JobLogStreamService.isActive(null));
+  }
+
+  @Test
+  void createEmitter_uses_the_configured_timeout() {
+    JobLogStreamService real = new JobLogStreamService();
+
+    assertEquals(1800000L, real.createEmitter().getTimeout());
+  }
+}
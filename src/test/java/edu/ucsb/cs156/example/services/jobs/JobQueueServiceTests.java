@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+public class JobQueueServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobRegistry jobRegistry;
+
+  @Mock private JobScheduler jobScheduler;
+
+  @InjectMocks private JobQueueService jobQueueService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void workerId_is_fixed_for_the_life_of_the_service() {
+    assertNotNull(jobQueueService.getWorkerId());
+    assertEquals(jobQueueService.getWorkerId(), jobQueueService.getWorkerId());
+    assertFalse(jobQueueService.getWorkerId().equals(new JobQueueService().getWorkerId()));
+  }
+
+  @Test
+  void claim_marks_the_jobs_as_held_by_this_worker() {
+    Job job1 = Job.builder().id(1L).status("queued").build();
+    Job job2 = Job.builder().id(2L).status("queued").build();
+    when(jobsRepository.findUnclaimedQueuedJobs(PageRequest.of(0, 3)))
+        .thenReturn(List.of(job1, job2));
+
+    assertEquals(List.of(job1, job2), jobQueueService.claim(3));
+
+    assertEquals(jobQueueService.getWorkerId(), job1.getClaimedBy());
+    assertEquals(jobQueueService.getWorkerId(), job2.getClaimedBy());
+    assertNotNull(job1.getHeartbeatAt());
+    verify(jobsRepository).saveAll(List.of(job1, job2));
+  }
+
+  @Test
+  void claim_of_nothing_does_not_query() {
+    assertEquals(List.of(), jobQueueService.claim(0));
+
+    verify(jobsRepository, never()).findUnclaimedQueuedJobs(any());
+  }
+
+  @Test
+  void heartbeat_covers_the_jobs_in_the_scheduler() {
+    when(jobScheduler.getJobIds()).thenReturn(List.of(4L, 5L));
+
+    jobQueueService.heartbeat();
+
+    verify(jobsRepository).heartbeat(eq(List.of(4L, 5L)), eq(jobQueueService.getWorkerId()), any());
+  }
+
+  @Test
+  void heartbeat_with_no_jobs_does_nothing() {
+    when(jobScheduler.getJobIds()).thenReturn(List.of());
+
+    jobQueueService.heartbeat();
+
+    verify(jobsRepository, never()).heartbeat(any(), any(), any());
+  }
+
+  @Test
+  void heartbeat_swallows_errors() {
+    when(jobScheduler.getJobIds()).thenReturn(List.of(4L));
+    when(jobsRepository.heartbeat(any(), any(), any())).thenThrow(new RuntimeException("db down"));
+
+    jobQueueService.heartbeat();
+  }
+
+  @Test
+  void recoverOrphanedJobs_requeues_fails_or_gives_up_on_each_orphan() {
+    Job rerunnable = Job.builder().id(1L).attempts(1).build();
+    Job lost = Job.builder().id(2L).attempts(1).build();
+    Job tooManyAttempts = Job.builder().id(3L).attempts(3).build();
+    Job claimedMeanwhile = Job.builder().id(4L).attempts(1).build();
+    when(jobsRepository.findOrphanedJobs(any()))
+        .thenReturn(List.of(rerunnable, lost, tooManyAttempts, claimedMeanwhile));
+    when(jobRegistry.canCreate(rerunnable)).thenReturn(true);
+    when(jobRegistry.canCreate(tooManyAttempts)).thenReturn(true);
+    when(jobRegistry.canCreate(claimedMeanwhile)).thenReturn(true);
+    when(jobsRepository.requeueIfOrphaned(eq(1L), any())).thenReturn(1);
+    when(jobsRepository.requeueIfOrphaned(eq(4L), any())).thenReturn(0);
+    when(jobsRepository.failIfOrphaned(anyLong(), any(), any(), any())).thenReturn(1);
+
+    ZonedDateTime before = ZonedDateTime.now().minusSeconds(60);
+    assertEquals(1, jobQueueService.recoverOrphanedJobs());
+
+    ArgumentCaptor<ZonedDateTime> staleBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository).findOrphanedJobs(staleBefore.capture());
+    assertFalse(staleBefore.getValue().isBefore(before));
+    assertFalse(staleBefore.getValue().isAfter(ZonedDateTime.now().minusSeconds(60)));
+    verify(jobsRepository)
+        .failIfOrphaned(
+            eq(2L), any(), any(), eq("Job lost: its worker stopped before it finished"));
+    verify(jobsRepository)
+        .failIfOrphaned(eq(3L), any(), any(), eq("Job gave up: its worker stopped 3 times"));
+    verify(jobsRepository, never()).requeueIfOrphaned(eq(2L), any());
+    verify(jobsRepository, never()).requeueIfOrphaned(eq(3L), any());
+  }
+
+  @Test
+  void recoverOrphanedJobs_skips_jobs_that_stopped_being_orphans() {
+    Job lost = Job.builder().id(2L).build();
+    Job tooManyAttempts = Job.builder().id(3L).attempts(3).build();
+    when(jobsRepository.findOrphanedJobs(any())).thenReturn(List.of(lost, tooManyAttempts));
+    when(jobRegistry.canCreate(tooManyAttempts)).thenReturn(true);
+    when(jobsRepository.failIfOrphaned(anyLong(), any(), any(), any())).thenReturn(0);
+
+    assertEquals(0, jobQueueService.recoverOrphanedJobs());
+
+    verify(jobsRepository, never()).requeueIfOrphaned(anyLong(), any());
+  }
+
+  @Test
+  void recoverOrphanedJobs_swallows_errors() {
+    when(jobsRepository.findOrphanedJobs(any())).thenThrow(new RuntimeException("db down"));
+
+    assertEquals(0, jobQueueService.recoverOrphanedJobs());
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class JobRegistryTests {
+
+  private final JobRegistry jobRegistry = new JobRegistry(new ObjectMapper());
+
+  /** Jackson cannot serialize this job, because its getter throws */
+  static class OpaqueJob implements JobContextConsumer {
+    public String getSecret() {
+      throw new IllegalStateException("not serializable");
+    }
+
+    @Override
+    public void accept(JobContext c) {}
+  }
+
+  /** Has the same simple name as the registered TestJob, but is a different class */
+  static class TestJob implements JobContextConsumer {
+    @Override
+    public void accept(JobContext c) {}
+  }
+
+  @Test
+  void stores_and_recreates_a_registered_job() throws Exception {
+    String params =
+        jobRegistry
+            .paramsOf(edu.ucsb.cs156.example.jobs.TestJob.builder().fail(true).sleepMs(5).build())
+            .get();
+    assertEquals("{\"fail\":true,\"sleepMs\":5}", params);
+
+    Optional<JobContextConsumer> jobFunction =
+        jobRegistry.create(Job.builder().jobType("TestJob").params(params).build());
+
+    edu.ucsb.cs156.example.jobs.TestJob testJob =
+        (edu.ucsb.cs156.example.jobs.TestJob) jobFunction.get();
+    assertTrue(testJob.getFail());
+    assertEquals(5, testJob.getSleepMs());
+  }
+
+  @Test
+  void does_not_store_unregistered_jobs() {
+    assertEquals(Optional.empty(), jobRegistry.paramsOf(ctx -> {}));
+    assertEquals(Optional.empty(), jobRegistry.paramsOf(new TestJob()));
+  }
+
+  @Test
+  void does_not_store_jobs_that_cannot_be_serialized() {
+    jobRegistry.register(OpaqueJob.class);
+
+    assertEquals(Optional.empty(), jobRegistry.paramsOf(new OpaqueJob()));
+  }
+
+  @Test
+  void cannot_recreate_unknown_incomplete_or_corrupt_jobs() {
+    assertFalse(jobRegistry.canCreate(Job.builder().jobType("NoSuchJob").params("{}").build()));
+    assertFalse(jobRegistry.canCreate(Job.builder().jobType(null).params("{}").build()));
+    assertFalse(jobRegistry.canCreate(Job.builder().jobType("TestJob").params(null).build()));
+    assertFalse(
+        jobRegistry.canCreate(Job.builder().jobType("TestJob").params("{not json").build()));
+    assertTrue(jobRegistry.canCreate(Job.builder().jobType("TestJob").params("{}").build()));
+  }
+
+  @Test
+  void scans_only_the_given_package() {
+    JobRegistry empty = new JobRegistry(new ObjectMapper(), "edu.ucsb.cs156.example.models");
+
+    assertEquals(
+        Optional.empty(), empty.paramsOf(edu.ucsb.cs156.example.jobs.TestJob.builder().build()));
+  }
+}
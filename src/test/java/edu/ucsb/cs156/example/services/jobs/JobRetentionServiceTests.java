@@ -0,0 +1,129 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobRetentionServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @InjectMocks private JobRetentionService jobRetentionService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobRetentionService, "batchSize", 2);
+    when(jobsRepository.deleteByIdIn(any())).thenAnswer(i -> i.<List<Long>>getArgument(0).size());
+  }
+
+  @Test
+  void sweep_deletes_old_jobs_in_batches() {
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 0);
+    when(jobsRepository.findFinishedJobIdsCreatedBefore(any(), eq(PageRequest.of(0, 2))))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+
+    assertEquals(3, jobRetentionService.sweep());
+
+    verify(jobLogLinesRepository).deleteByJobIdIn(List.of(1L, 2L));
+    verify(jobsRepository).deleteByIdIn(List.of(1L, 2L));
+    verify(jobLogLinesRepository).deleteByJobIdIn(List.of(3L));
+    verify(jobsRepository).deleteByIdIn(List.of(3L));
+    verify(jobsRepository, never()).findFinishedJobIdsNewestFirst(any());
+  }
+
+  @Test
+  void sweep_uses_a_cutoff_of_maxAgeDays_ago() {
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 0);
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 7);
+    when(jobsRepository.findFinishedJobIdsCreatedBefore(any(), any())).thenReturn(List.of());
+    ZonedDateTime before = ZonedDateTime.now().minusDays(7);
+
+    assertEquals(0, jobRetentionService.sweep());
+
+    ArgumentCaptor<ZonedDateTime> cutoff = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository).findFinishedJobIdsCreatedBefore(cutoff.capture(), any());
+    assertFalse(cutoff.getValue().isBefore(before));
+    assertFalse(cutoff.getValue().isAfter(ZonedDateTime.now().minusDays(7)));
+    verify(jobsRepository, never()).deleteByIdIn(any());
+  }
+
+  @Test
+  void sweep_deletes_jobs_beyond_maxJobs() {
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 0);
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 100);
+    when(jobsRepository.findFinishedJobIdsNewestFirst(PageRequest.of(100, 1)))
+        .thenReturn(List.of(40L));
+    when(jobsRepository.findFinishedJobIdsUpTo(40L, PageRequest.of(0, 2)))
+        .thenReturn(List.of(39L, 40L), List.of());
+
+    assertEquals(2, jobRetentionService.sweep());
+
+    verify(jobsRepository).deleteByIdIn(List.of(39L, 40L));
+    verify(jobsRepository, times(2)).findFinishedJobIdsUpTo(40L, PageRequest.of(0, 2));
+    verify(jobsRepository, never()).findFinishedJobIdsCreatedBefore(any(), any());
+  }
+
+  @Test
+  void sweep_keeps_everything_when_there_are_at_most_maxJobs() {
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 0);
+    when(jobsRepository.findFinishedJobIdsNewestFirst(PageRequest.of(10000, 1)))
+        .thenReturn(List.of());
+
+    assertEquals(0, jobRetentionService.sweep());
+
+    verify(jobsRepository, never()).findFinishedJobIdsUpTo(anyLong(), any());
+    verify(jobsRepository, never()).deleteByIdIn(any());
+  }
+
+  @Test
+  void sweep_applies_both_limits_by_default() {
+    when(jobsRepository.findFinishedJobIdsCreatedBefore(any(), any())).thenReturn(List.of(1L));
+    when(jobsRepository.findFinishedJobIdsNewestFirst(any())).thenReturn(List.of(5L));
+    when(jobsRepository.findFinishedJobIdsUpTo(eq(5L), any()))
+        .thenReturn(List.of(4L, 5L), List.of());
+
+    assertEquals(3, jobRetentionService.sweep());
+  }
+
+  @Test
+  void scheduledSweep_swallows_errors() {
+    when(jobsRepository.findFinishedJobIdsCreatedBefore(any(), any()))
+        .thenThrow(new RuntimeException("db down"));
+
+    jobRetentionService.scheduledSweep();
+
+    verify(jobsRepository, never()).deleteByIdIn(any());
+  }
+
+  @Test
+  void scheduledSweep_runs_a_sweep() {
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 0);
+    when(jobsRepository.findFinishedJobIdsCreatedBefore(any(), any())).thenReturn(List.of(1L));
+
+    jobRetentionService.scheduledSweep();
+
+    verify(jobsRepository).deleteByIdIn(List.of(1L));
+  }
+}
@@ -0,0 +1,202 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.User;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class JobSchedulerTests {
+
+  private static final JobContextConsumer NOOP = ctx -> {};
+
+  private final User alice = User.builder().id(1L).email("alice@ucsb.edu").build();
+  private final User bob = User.builder().id(2L).email("bob@ucsb.edu").build();
+
+  private Job jobFor(User user) {
+    return Job.builder().createdBy(user).status("queued").build();
+  }
+
+  private List<Job> jobs(List<JobScheduler.ScheduledJob> scheduledJobs) {
+    return scheduledJobs.stream().map(JobScheduler.ScheduledJob::job).toList();
+  }
+
+  @Test
+  public void starts_jobs_up_to_the_global_limit() {
+    JobScheduler scheduler = new JobScheduler(2, 5, 10);
+    Job j1 = jobFor(alice);
+    Job j2 = jobFor(bob);
+    Job j3 = jobFor(alice);
+    scheduler.enqueue(j1, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(j2, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(j3, NOOP, JobPriority.NORMAL);
+
+    assertEquals(List.of(j1, j2), jobs(scheduler.takeRunnable()));
+    assertEquals(2, scheduler.getRunningCount());
+    assertEquals(1, scheduler.getQueuedCount());
+    assertEquals(List.of(), scheduler.takeRunnable());
+
+    assertTrue(scheduler.finished(j1));
+    assertEquals(List.of(j3), jobs(scheduler.takeRunnable()));
+    assertEquals(0, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void limits_running_jobs_per_user() {
+    JobScheduler scheduler = new JobScheduler(10, 1, 10);
+    Job a1 = jobFor(alice);
+    Job a2 = jobFor(alice);
+    Job b1 = jobFor(bob);
+    scheduler.enqueue(a1, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a2, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(b1, NOOP, JobPriority.NORMAL);
+
+    assertEquals(List.of(a1, b1), jobs(scheduler.takeRunnable()));
+
+    scheduler.finished(a1);
+    assertEquals(List.of(a2), jobs(scheduler.takeRunnable()));
+  }
+
+  @Test
+  public void goesBefore_orders_by_priority_then_running_jobs_then_arrival() {
+    JobScheduler scheduler = new JobScheduler(1, 5, 10);
+    JobScheduler.ScheduledJob first =
+        new JobScheduler.ScheduledJob(jobFor(alice), NOOP, JobPriority.NORMAL, 0, 1, 1L);
+    JobScheduler.ScheduledJob second =
+        new JobScheduler.ScheduledJob(jobFor(alice), NOOP, JobPriority.NORMAL, 0, 2, 1L);
+    JobScheduler.ScheduledJob low =
+        new JobScheduler.ScheduledJob(jobFor(alice), NOOP, JobPriority.LOW, 0, 3, 1L);
+
+    assertTrue(scheduler.goesBefore(first, second));
+    assertFalse(scheduler.goesBefore(second, first));
+    assertTrue(scheduler.goesBefore(first, low));
+    assertFalse(scheduler.goesBefore(low, first));
+  }
+
+  @Test
+  public void higher_priority_starts_first() {
+    JobScheduler scheduler = new JobScheduler(1, 5, 10);
+    Job low = jobFor(alice);
+    Job normal = jobFor(alice);
+    Job high = jobFor(alice);
+    scheduler.enqueue(low, NOOP, JobPriority.LOW);
+    scheduler.enqueue(normal, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(high, NOOP, JobPriority.HIGH);
+
+    assertEquals(List.of(high), jobs(scheduler.takeRunnable()));
+    scheduler.finished(high);
+    assertEquals(List.of(normal), jobs(scheduler.takeRunnable()));
+    scheduler.finished(normal);
+    assertEquals(List.of(low), jobs(scheduler.takeRunnable()));
+  }
+
+  @Test
+  public void user_with_fewer_running_jobs_goes_first_within_a_priority() {
+    JobScheduler scheduler = new JobScheduler(2, 5, 10);
+    Job a1 = jobFor(alice);
+    Job a2 = jobFor(alice);
+    Job a3 = jobFor(alice);
+    Job b1 = jobFor(bob);
+    scheduler.enqueue(a1, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a2, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a3, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(b1, NOOP, JobPriority.NORMAL);
+
+    // alice already has a1 running when the second slot is filled, so bob goes next
+    assertEquals(List.of(a1, b1), jobs(scheduler.takeRunnable()));
+  }
+
+  @Test
+  public void rejects_jobs_when_the_queue_is_full() {
+    JobScheduler scheduler = new JobScheduler(1, 1, 1);
+
+    assertTrue(scheduler.enqueue(jobFor(alice), NOOP, JobPriority.NORMAL));
+    assertFalse(scheduler.enqueue(jobFor(alice), NOOP, JobPriority.NORMAL));
+  }
+
+  @Test
+  public void jobs_without_a_user_share_one_bucket() {
+    JobScheduler scheduler = new JobScheduler(5, 1, 10);
+    Job n1 = jobFor(null);
+    Job n2 = jobFor(null);
+    scheduler.enqueue(n1, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(n2, NOOP, JobPriority.NORMAL);
+
+    assertEquals(List.of(n1), jobs(scheduler.takeRunnable()));
+    assertTrue(scheduler.finished(n1));
+    assertEquals(List.of(n2), jobs(scheduler.takeRunnable()));
+  }
+
+  @Test
+  public void finished_ignores_jobs_it_did_not_start() {
+    JobScheduler scheduler = new JobScheduler(5, 5, 10);
+    Job job = jobFor(alice);
+    scheduler.enqueue(job, NOOP, JobPriority.NORMAL);
+
+    assertFalse(scheduler.finished(jobFor(alice)));
+    assertFalse(scheduler.finished(job));
+    assertEquals(1, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void per_user_counts_are_released_one_at_a_time() {
+    JobScheduler scheduler = new JobScheduler(5, 2, 10);
+    Job a1 = jobFor(alice);
+    Job a2 = jobFor(alice);
+    Job a3 = jobFor(alice);
+    scheduler.enqueue(a1, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a2, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a3, NOOP, JobPriority.NORMAL);
+    assertEquals(List.of(a1, a2), jobs(scheduler.takeRunnable()));
+
+    scheduler.finished(a1);
+
+    assertEquals(List.of(a3), jobs(scheduler.takeRunnable()));
+    assertEquals(List.of(), scheduler.takeRunnable());
+  }
+
+  @Test
+  public void removeQueued_removes_only_queued_jobs() {
+    JobScheduler scheduler = new JobScheduler(1, 5, 10);
+    Job running = Job.builder().id(1L).createdBy(alice).build();
+    Job queued = Job.builder().id(2L).createdBy(alice).build();
+    scheduler.enqueue(running, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(queued, NOOP, JobPriority.NORMAL, 1000);
+    scheduler.takeRunnable();
+
+    assertEquals(Optional.empty(), scheduler.removeQueued(1L));
+    assertEquals(
+        Optional.of(queued), scheduler.removeQueued(2L).map(JobScheduler.ScheduledJob::job));
+    assertEquals(0, scheduler.getQueuedCount());
+    assertEquals(Optional.empty(), scheduler.removeQueued(2L));
+  }
+
+  @Test
+  public void scheduled_jobs_carry_their_timeout() {
+    JobScheduler scheduler = new JobScheduler(1, 5, 10);
+    scheduler.enqueue(jobFor(alice), NOOP, JobPriority.NORMAL, 1234);
+
+    assertEquals(1234L, scheduler.takeRunnable().get(0).timeoutMs());
+  }
+
+  @Test
+  public void getFreeSlots_counts_running_and_queued_jobs() {
+    JobScheduler scheduler = new JobScheduler(2, 1, 10);
+    assertEquals(2, scheduler.getFreeSlots());
+
+    Job a1 = Job.builder().id(1L).createdBy(alice).build();
+    Job a2 = Job.builder().id(2L).createdBy(alice).build();
+    Job a3 = Job.builder().id(3L).createdBy(alice).build();
+    scheduler.enqueue(a1, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a2, NOOP, JobPriority.NORMAL);
+    scheduler.enqueue(a3, NOOP, JobPriority.NORMAL);
+    scheduler.takeRunnable();
+
+    assertEquals(0, scheduler.getFreeSlots());
+    assertEquals(List.of(2L, 3L, 1L), scheduler.getJobIds());
+  }
+}
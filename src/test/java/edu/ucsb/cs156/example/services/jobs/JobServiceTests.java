@@ -0,0 +1,634 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private JobLogStreamService jobLogStreamService;
+
+  @Mock private JobRegistry jobRegistry;
+
+  @Mock private JobQueueService jobQueueService;
+
+  @InjectMocks private JobService jobService;
+
+  private JobService self;
+
+  private ThreadPoolTaskExecutor jobExecutor;
+
+  private JobScheduler jobScheduler;
+
+  private final User user = User.builder().id(1L).email("user@ucsb.edu").build();
+
+  private long nextId = 1;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    self = mock(JobService.class);
+    ReflectionTestUtils.setField(jobService, "self", self);
+    jobExecutor = new ThreadPoolTaskExecutor();
+    jobExecutor.setCorePoolSize(2);
+    jobExecutor.setMaxPoolSize(2);
+    jobExecutor.setQueueCapacity(5);
+    jobExecutor.initialize();
+    ReflectionTestUtils.setField(jobService, "jobExecutor", jobExecutor);
+    jobScheduler = new JobScheduler(2, 1, 2);
+    ReflectionTestUtils.setField(jobService, "jobScheduler", jobScheduler);
+    when(currentUserService.getUser()).thenReturn(user);
+    when(jobsRepository.save(any(Job.class)))
+        .thenAnswer(
+            invocation -> {
+              Job job = invocation.getArgument(0);
+              if (job.getId() == 0) {
+                job.setId(nextId++);
+              }
+              return job;
+            });
+  }
+
+  @AfterEach
+  public void teardown() {
+    jobExecutor.shutdown();
+  }
+
+  @Test
+  void runAsJob_hands_the_job_to_the_executor() {
+    JobContextConsumer jobFunction = ctx -> ctx.log("hi");
+
+    Job job = jobService.runAsJob(jobFunction);
+
+    assertEquals("running", job.getStatus());
+    assertEquals(user, job.getCreatedBy());
+    assertEquals("JobServiceTests", job.getJobType());
+    verify(self, times(1)).runJobAsync(job, jobFunction, 3600 * 1000L);
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobsRepository, times(1)).markRunning(job.getId(), 1, job.getHeartbeatAt());
+    assertEquals(1, jobService.getExecutorStats().getRunningJobs());
+  }
+
+  @Test
+  void runAsJob_queues_the_job_when_the_user_is_at_their_limit() {
+    JobContextConsumer first = ctx -> ctx.log("first");
+    JobContextConsumer second = ctx -> ctx.log("second");
+
+    Job job1 = jobService.runAsJob(first, JobPriority.NORMAL);
+    Job job2 = jobService.runAsJob(second, JobPriority.HIGH);
+
+    assertEquals("running", job1.getStatus());
+    assertEquals("queued", job2.getStatus());
+    verify(self, never()).runJobAsync(eq(job2), eq(second), anyLong());
+    assertEquals(1, jobService.getExecutorStats().getQueuedJobs());
+
+    // when the first job finishes, the queued one is started
+    jobService.runJobAsync(job1, first);
+
+    assertEquals("complete", job1.getStatus());
+    assertEquals("running", job2.getStatus());
+    verify(self, times(1)).runJobAsync(eq(job2), eq(second), anyLong());
+    assertEquals(0, jobService.getExecutorStats().getQueuedJobs());
+  }
+
+  @Test
+  void a_job_that_waited_in_the_queue_is_started_with_a_fresh_heartbeat() {
+    JobContextConsumer first = ctx -> ctx.log("first");
+    JobContextConsumer second = ctx -> ctx.log("second");
+    Job job1 = jobService.runAsJob(first, JobPriority.NORMAL);
+    Job job2 = jobService.runAsJob(second, JobPriority.NORMAL);
+    // job2 waits in the queue for longer than app.jobs.queue.staleAfterMs
+    ZonedDateTime stale = ZonedDateTime.now().minusMinutes(5);
+    job2.setHeartbeatAt(stale);
+
+    jobService.runJobAsync(job1, first);
+
+    assertEquals("running", job2.getStatus());
+    assertTrue(job2.getHeartbeatAt().isAfter(stale.plusMinutes(4)));
+    verify(jobsRepository).markRunning(job2.getId(), 1, job2.getHeartbeatAt());
+    // the job itself is not written back, which would store the stale heartbeat again
+    verify(jobsRepository, times(1)).save(job2);
+  }
+
+  @Test
+  void runJobAsync_records_timings_progress_and_result_summary() {
+    ZonedDateTime createdAt = ZonedDateTime.now().minusSeconds(5);
+    Job job = Job.builder().id(5L).createdAt(createdAt).build();
+
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.setProgress(0.5);
+          ctx.setResultSummary("did it");
+          Thread.sleep(20);
+        });
+
+    assertEquals("complete", job.getStatus());
+    assertEquals(1.0, job.getProgress());
+    assertEquals("did it", job.getResultSummary());
+    assertTrue(job.getQueueWaitMs() >= 5000);
+    assertTrue(job.getRunDurationMs() >= 20);
+    assertFalse(job.getEndedAt().isBefore(job.getStartedAt()));
+    verify(jobsRepository).markStarted(5L, job.getStartedAt(), job.getQueueWaitMs());
+  }
+
+  @Test
+  void runJobAsync_keeps_the_reported_progress_of_a_job_that_fails() {
+    Job job = Job.builder().id(6L).build();
+
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.setProgress(0.3);
+          throw new Exception("boom");
+        });
+
+    assertEquals("error", job.getStatus());
+    assertEquals(0.3, job.getProgress());
+    assertNull(job.getQueueWaitMs());
+    verify(jobsRepository).markStarted(6L, job.getStartedAt(), null);
+  }
+
+  @Test
+  void flushActiveJobLogs_saves_changed_progress() throws Exception {
+    Job job = Job.builder().id(13L).status("running").build();
+    Thread thread =
+        new Thread(
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      ctx.setProgress(0.75);
+                      jobService.flushActiveJobLogs();
+                      jobService.flushActiveJobLogs();
+                    },
+                    0));
+    thread.start();
+    thread.join(5_000);
+
+    verify(jobsRepository, times(1)).updateProgress(13L, 0.75);
+  }
+
+  @Test
+  void jobTypeOf_names_the_class_of_the_job_function() {
+    assertEquals("JobServiceTests", JobService.jobTypeOf(ctx -> {}));
+    assertEquals("NamedJob", JobService.jobTypeOf(new NamedJob()));
+  }
+
+  private static class NamedJob implements JobContextConsumer {
+    @Override
+    public void accept(JobContext c) {}
+  }
+
+  @Test
+  void runAsJob_rejects_the_job_when_the_scheduler_queue_is_full() {
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+
+    Job job = jobService.runAsJob(ctx -> {});
+
+    assertEquals("rejected", job.getStatus());
+    verify(self, never()).runJobAsync(eq(job), any(), anyLong());
+    assertEquals(1L, jobService.getExecutorStats().getRejectedCount());
+  }
+
+  @Test
+  void runJobAsync_of_a_job_the_scheduler_did_not_start_does_not_dispatch() {
+    Job job = Job.builder().id(3L).build();
+
+    jobService.runJobAsync(job, ctx -> ctx.log("direct"));
+
+    assertEquals("complete", job.getStatus());
+    verify(self, never()).runJobAsync(any(), any(), anyLong());
+  }
+
+  @Test
+  void runJobAsync_publishes_flushed_lines_and_the_end_of_the_job_to_streams() {
+    Job job = Job.builder().id(4L).build();
+
+    jobService.runJobAsync(job, ctx -> ctx.log("streamed"));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<JobLogLine>> linesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogStreamService, times(1)).publish(eq(4L), linesCaptor.capture());
+    assertEquals(1, linesCaptor.getValue().size());
+    assertEquals("streamed", linesCaptor.getValue().get(0).getMessage());
+    verify(jobLogStreamService, times(1)).jobEnded(4L, "complete");
+  }
+
+  @Test
+  void runJobAsync_ends_the_job_even_if_its_log_cannot_be_written() {
+    Job job = Job.builder().id(4L).build();
+    when(jobLogLinesRepository.saveAll(any())).thenThrow(new RuntimeException("db down"));
+
+    jobService.runJobAsync(job, ctx -> ctx.log("lost"));
+
+    assertEquals("complete", job.getStatus());
+    assertNotNull(job.getEndedAt());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobLogStreamService, times(1)).jobEnded(4L, "complete");
+  }
+
+  @Test
+  void runJobAsync_ends_the_job_with_an_error_if_it_cannot_be_marked_started() {
+    Job job = Job.builder().id(4L).build();
+    doThrow(new RuntimeException("db down"))
+        .when(jobsRepository)
+        .markStarted(anyLong(), any(), any());
+    JobContextConsumer jobFunction = mock(JobContextConsumer.class);
+
+    jobService.runJobAsync(job, jobFunction);
+
+    assertEquals("error", job.getStatus());
+    assertTrue(job.getLog().endsWith("db down"));
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobLogStreamService, times(1)).jobEnded(4L, "error");
+    verifyNoInteractions(jobFunction);
+  }
+
+  @Test
+  void runJobAsync_tells_streams_the_job_ended_even_if_its_status_cannot_be_saved() {
+    Job job = Job.builder().id(4L).build();
+    when(jobsRepository.save(job)).thenThrow(new RuntimeException("db down"));
+
+    assertThrows(RuntimeException.class, () -> jobService.runJobAsync(job, ctx -> {}));
+
+    verify(jobLogStreamService, times(1)).jobEnded(4L, "complete");
+  }
+
+  @Test
+  void runAsJob_marks_job_rejected_when_executor_is_full() {
+    doThrow(new TaskRejectedException("full")).when(self).runJobAsync(any(), any(), anyLong());
+
+    Job job = jobService.runAsJob(ctx -> ctx.log("never runs"));
+
+    assertEquals("rejected", job.getStatus());
+    assertEquals("Job rejected: too many jobs are already running or waiting to run", job.getLog());
+    verify(jobsRepository, times(2)).save(job);
+    verify(jobsRepository, times(1)).markRunning(job.getId(), 1, job.getHeartbeatAt());
+    verify(jobLogStreamService, times(1)).jobEnded(job.getId(), "rejected");
+    assertEquals(1L, jobService.getExecutorStats().getRejectedCount());
+    assertEquals(0, jobService.getExecutorStats().getRunningJobs());
+  }
+
+  @Test
+  void getExecutorStats_reports_the_executor() {
+    JobExecutorStats stats = jobService.getExecutorStats();
+
+    assertEquals(0, stats.getPoolSize());
+    assertEquals(2, stats.getMaxPoolSize());
+    assertEquals(0, stats.getActiveCount());
+    assertEquals(0, stats.getQueueDepth());
+    assertEquals(5, stats.getQueueCapacity());
+    assertEquals(0L, stats.getRejectedCount());
+    assertEquals(0, stats.getRunningJobs());
+    assertEquals(0, stats.getQueuedJobs());
+  }
+
+  @Test
+  void runAsJob_uses_the_timeout_given_for_the_job() {
+    JobContextConsumer jobFunction = ctx -> {};
+
+    jobService.runAsJob(jobFunction, JobPriority.LOW, 5);
+
+    verify(self, times(1)).runJobAsync(any(), eq(jobFunction), eq(5000L));
+  }
+
+  @Test
+  void cancelJob_removes_a_queued_job() {
+    Job job1 = jobService.runAsJob(ctx -> {});
+    Job job2 = jobService.runAsJob(ctx -> {});
+    assertEquals("queued", job2.getStatus());
+
+    assertTrue(jobService.cancelJob(job2.getId()));
+
+    assertEquals("cancelled", job2.getStatus());
+    assertEquals("Job cancelled before it started", job2.getLog());
+    verify(jobLogStreamService, times(1)).jobEnded(job2.getId(), "cancelled");
+    assertEquals(0, jobService.getExecutorStats().getQueuedJobs());
+    assertEquals("running", job1.getStatus());
+  }
+
+  @Test
+  void cancelJob_discards_a_queued_job() throws Exception {
+    JobContextConsumer running = mock(JobContextConsumer.class);
+    JobContextConsumer queued = mock(JobContextConsumer.class);
+    jobService.runAsJob(running);
+    Job job = jobService.runAsJob(queued);
+
+    jobService.cancelJob(job.getId());
+
+    verify(queued, times(1)).onDiscard();
+    verify(queued, never()).accept(any());
+    verify(running, never()).onDiscard();
+  }
+
+  @Test
+  void a_job_that_cannot_be_discarded_is_still_cancelled() throws Exception {
+    jobService.runAsJob(ctx -> {});
+    JobContextConsumer queued = mock(JobContextConsumer.class);
+    doThrow(new IOException("busy")).when(queued).onDiscard();
+    Job job = jobService.runAsJob(queued);
+
+    assertTrue(jobService.cancelJob(job.getId()));
+
+    assertEquals("cancelled", job.getStatus());
+    verify(jobLogStreamService, times(1)).jobEnded(job.getId(), "cancelled");
+  }
+
+  @Test
+  void a_job_rejected_by_the_scheduler_is_discarded() throws Exception {
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+    JobContextConsumer rejected = mock(JobContextConsumer.class);
+
+    Job job = jobService.runAsJob(rejected);
+
+    assertEquals("rejected", job.getStatus());
+    verify(rejected, times(1)).onDiscard();
+  }
+
+  @Test
+  void a_job_rejected_by_the_executor_is_discarded() throws Exception {
+    doThrow(new TaskRejectedException("full")).when(self).runJobAsync(any(), any(), anyLong());
+    JobContextConsumer rejected = mock(JobContextConsumer.class);
+
+    Job job = jobService.runAsJob(rejected);
+
+    assertEquals("rejected", job.getStatus());
+    verify(rejected, times(1)).onDiscard();
+  }
+
+  @Test
+  void cancelJob_returns_false_for_a_job_that_is_not_queued_or_running() throws Exception {
+    assertFalse(jobService.cancelJob(42L));
+
+    Job other = Job.builder().id(12L).status("running").build();
+    Thread thread =
+        new Thread(
+            () -> jobService.runJobAsync(other, ctx -> assertFalse(jobService.cancelJob(42L)), 0));
+    thread.start();
+    thread.join(5_000);
+
+    assertEquals("complete", other.getStatus());
+  }
+
+  @Test
+  void cancelJob_interrupts_a_sleeping_job() throws Exception {
+    Job job = Job.builder().id(7L).status("running").build();
+    Thread thread = new Thread(() -> jobService.runJobAsync(job, ctx -> Thread.sleep(60_000), 0));
+    thread.start();
+
+    await().atMost(5, SECONDS).until(() -> jobService.cancelJob(7L));
+    thread.join(5_000);
+
+    assertFalse(thread.isAlive());
+    assertEquals("cancelled", job.getStatus());
+    assertEquals("Job cancelled", job.getLog());
+    verify(jobsRepository, times(1)).save(job);
+  }
+
+  @Test
+  void cancelJob_stops_a_job_that_polls_checkCancelled() throws Exception {
+    Job job = Job.builder().id(8L).status("running").build();
+    Thread thread =
+        new Thread(
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      while (true) {
+                        ctx.checkCancelled();
+                        Thread.onSpinWait();
+                      }
+                    },
+                    0));
+    thread.start();
+
+    await().atMost(5, SECONDS).until(() -> jobService.cancelJob(8L));
+    thread.join(5_000);
+
+    assertFalse(thread.isAlive());
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  @Test
+  void a_job_that_returns_after_being_cancelled_is_still_cancelled() throws Exception {
+    Job job = Job.builder().id(9L).status("running").build();
+    Thread thread =
+        new Thread(
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      while (!ctx.isCancelled()) {
+                        Thread.onSpinWait();
+                      }
+                    },
+                    0));
+    thread.start();
+
+    await().atMost(5, SECONDS).until(() -> jobService.cancelJob(9L));
+    thread.join(5_000);
+
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  @Test
+  void cancelTimedOutJobs_stops_jobs_past_their_timeout() throws Exception {
+    Job job = Job.builder().id(10L).status("running").build();
+    Thread thread = new Thread(() -> jobService.runJobAsync(job, ctx -> Thread.sleep(60_000), 50));
+    thread.start();
+
+    await()
+        .atMost(5, SECONDS)
+        .until(
+            () -> {
+              jobService.cancelTimedOutJobs();
+              return !thread.isAlive();
+            });
+
+    assertEquals("timeout", job.getStatus());
+    assertEquals("Job timed out", job.getLog());
+  }
+
+  @Test
+  void cancelTimedOutJobs_leaves_jobs_within_their_timeout_alone() throws Exception {
+    Job job = Job.builder().id(11L).status("running").build();
+    Thread thread =
+        new Thread(
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      jobService.cancelTimedOutJobs();
+                      ctx.log("still here");
+                    },
+                    60_000));
+    thread.start();
+    thread.join(5_000);
+
+    assertEquals("complete", job.getStatus());
+    assertEquals("still here", job.getLog());
+  }
+
+  @Test
+  void runAsJob_stores_what_another_worker_needs_to_run_the_job() {
+    JobContextConsumer jobFunction = ctx -> {};
+    when(jobRegistry.paramsOf(jobFunction)).thenReturn(Optional.of("{}"));
+    when(jobQueueService.getWorkerId()).thenReturn("worker-1");
+
+    Job job = jobService.runAsJob(jobFunction, JobPriority.HIGH, 5);
+
+    assertEquals("{}", job.getParams());
+    assertEquals(JobPriority.HIGH, job.getPriority());
+    assertEquals(5000L, job.getTimeoutMs());
+    assertEquals("worker-1", job.getClaimedBy());
+    assertNotNull(job.getHeartbeatAt());
+    assertEquals(1, job.getAttempts());
+  }
+
+  @Test
+  void runJobAsync_of_a_restarted_job_continues_its_log() {
+    Job job = Job.builder().id(14L).attempts(2).build();
+    when(jobLogLinesRepository.findTopByJobIdOrderBySeqDesc(14L))
+        .thenReturn(Optional.of(JobLogLine.builder().jobId(14L).seq(4L).build()));
+
+    jobService.runJobAsync(job, ctx -> ctx.log("second try"));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<JobLogLine>> linesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository).saveAll(linesCaptor.capture());
+    assertEquals(List.of(5L, 6L), linesCaptor.getValue().stream().map(JobLogLine::getSeq).toList());
+    assertEquals("Job restarted (attempt 2)\nsecond try", job.getLog());
+  }
+
+  @Test
+  void runJobAsync_of_a_restarted_job_without_log_lines_starts_at_zero() {
+    Job job = Job.builder().id(15L).attempts(2).build();
+    when(jobLogLinesRepository.findTopByJobIdOrderBySeqDesc(15L)).thenReturn(Optional.empty());
+
+    jobService.runJobAsync(job, ctx -> {});
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<JobLogLine>> linesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository).saveAll(linesCaptor.capture());
+    assertEquals(0L, linesCaptor.getValue().get(0).getSeq());
+  }
+
+  @Test
+  void cancelJob_cancels_a_queued_job_no_worker_has_claimed() {
+    when(jobsRepository.cancelIfUnclaimed(eq(42L), any())).thenReturn(1);
+
+    assertTrue(jobService.cancelJob(42L));
+
+    verify(jobLogStreamService).jobEnded(42L, "cancelled");
+  }
+
+  @Test
+  void pollQueue_starts_the_jobs_it_claims() {
+    Job stored =
+        Job.builder()
+            .id(20L)
+            .createdBy(user)
+            .status("queued")
+            .priority(JobPriority.LOW)
+            .timeoutMs(7000L)
+            .build();
+    Job legacy = Job.builder().id(21L).createdBy(User.builder().id(2L).build()).build();
+    JobContextConsumer jobFunction = ctx -> {};
+    when(jobQueueService.claim(2)).thenReturn(List.of(stored, legacy));
+    when(jobRegistry.create(stored)).thenReturn(Optional.of(jobFunction));
+    when(jobRegistry.create(legacy)).thenReturn(Optional.of(jobFunction));
+
+    jobService.pollQueue();
+
+    assertEquals("running", stored.getStatus());
+    assertEquals(1, stored.getAttempts());
+    verify(self).runJobAsync(stored, jobFunction, 7000L);
+    verify(self).runJobAsync(legacy, jobFunction, 3600 * 1000L);
+  }
+
+  @Test
+  void pollQueue_fails_jobs_it_cannot_recreate() {
+    Job job = Job.builder().id(22L).jobType("GoneJob").status("queued").build();
+    when(jobQueueService.claim(2)).thenReturn(List.of(job));
+    when(jobRegistry.create(job)).thenReturn(Optional.empty());
+
+    jobService.pollQueue();
+
+    assertEquals("error", job.getStatus());
+    assertEquals("Unknown job type: GoneJob", job.getResultSummary());
+    assertNotNull(job.getEndedAt());
+    verify(jobsRepository).save(job);
+    verify(jobLogStreamService).jobEnded(22L, "error");
+  }
+
+  @Test
+  void pollQueue_gives_back_jobs_the_scheduler_cannot_take() {
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+    Job job = Job.builder().id(23L).createdBy(user).claimedBy("worker-1").build();
+    when(jobQueueService.claim(0)).thenReturn(List.of(job));
+    when(jobRegistry.create(job)).thenReturn(Optional.of(ctx -> {}));
+
+    jobService.pollQueue();
+
+    assertNull(job.getClaimedBy());
+    verify(jobsRepository).save(job);
+  }
+
+  @Test
+  void pollQueue_swallows_errors() {
+    when(jobQueueService.claim(anyInt())).thenThrow(new RuntimeException("db down"));
+
+    jobService.pollQueue();
+  }
+}
@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.models.JobTiming;
+import edu.ucsb.cs156.example.models.JobTypeStats;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class JobStatsServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobStatsService jobStatsService;
+
+  private final ZonedDateTime since = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private static JobTiming timing(
+      String jobType, String status, Long queueWaitMs, Long runDurationMs) {
+    return new JobTiming() {
+      public String getJobType() {
+        return jobType;
+      }
+
+      public String getStatus() {
+        return status;
+      }
+
+      public Long getQueueWaitMs() {
+        return queueWaitMs;
+      }
+
+      public Long getRunDurationMs() {
+        return runDurationMs;
+      }
+    };
+  }
+
+  @Test
+  void getStats_computes_counts_rates_and_percentiles_per_job_type() {
+    when(jobsRepository.findByEndedAtAfter(since))
+        .thenReturn(
+            List.of(
+                timing("UpdateJob", "complete", 10L, 400L),
+                timing("TestJob", "complete", 1L, 100L),
+                timing("TestJob", "error", 2L, 200L),
+                timing("TestJob", "timeout", 3L, 300L),
+                timing("TestJob", "cancelled", 4L, 50L),
+                timing(null, "complete", null, null)));
+
+    List<JobTypeStats> stats = jobStatsService.getStats(since);
+
+    assertEquals(3, stats.size());
+    JobTypeStats testJob = stats.get(0);
+    assertEquals("TestJob", testJob.getJobType());
+    assertEquals(4, testJob.getCount());
+    assertEquals(1, testJob.getCompleted());
+    assertEquals(2, testJob.getFailed());
+    assertEquals(1, testJob.getCancelled());
+    assertEquals(0.5, testJob.getFailureRate());
+    assertEquals(100L, testJob.getP50RunDurationMs());
+    assertEquals(300L, testJob.getP95RunDurationMs());
+    assertEquals(300L, testJob.getMaxRunDurationMs());
+    assertEquals(2L, testJob.getP50QueueWaitMs());
+    assertEquals(4L, testJob.getP95QueueWaitMs());
+
+    assertEquals("UpdateJob", stats.get(1).getJobType());
+    assertEquals(0.0, stats.get(1).getFailureRate());
+
+    JobTypeStats unknown = stats.get(2);
+    assertEquals(JobStatsService.UNKNOWN_JOB_TYPE, unknown.getJobType());
+    assertEquals(1, unknown.getCount());
+    assertNull(unknown.getP50RunDurationMs());
+    assertNull(unknown.getP95QueueWaitMs());
+  }
+
+  @Test
+  void getStats_of_no_jobs_is_empty() {
+    when(jobsRepository.findByEndedAtAfter(since)).thenReturn(List.of());
+
+    assertEquals(List.of(), jobStatsService.getStats(since));
+  }
+
+  @Test
+  void percentile_uses_the_nearest_rank() {
+    List<Long> values = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+
+    assertEquals(5L, JobStatsService.percentile(values, 50));
+    assertEquals(10L, JobStatsService.percentile(values, 95));
+    assertEquals(1L, JobStatsService.percentile(values, 1));
+    assertEquals(1L, JobStatsService.percentile(values, 0));
+    assertEquals(10L, JobStatsService.percentile(values, 100));
+    assertEquals(7L, JobStatsService.percentile(List.of(7L), 50));
+    assertNull(JobStatsService.percentile(List.of(), 50));
+  }
+}
@@ -1,14 +1,22 @@
 package edu.ucsb.cs156.example.testconfig;
 
 import edu.ucsb.cs156.example.config.SecurityConfig;
+import edu.ucsb.cs156.example.services.AdminService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.JsonExportService;
+import edu.ucsb.cs156.example.services.UserUpsertService;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 
 @TestConfiguration
-@Import(SecurityConfig.class)
+@Import({
+  SecurityConfig.class,
+  AdminService.class,
+  UserUpsertService.class,
+  JsonExportService.class
+})
 public class TestConfig {
 
   @Bean
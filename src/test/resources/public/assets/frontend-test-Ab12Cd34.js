@@ -0,0 +1 @@
+console.log("frontend test asset");